@@ -0,0 +1,500 @@
+/*
+ * Convolution.java - Multiplication of dense polynomials
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package algebra;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import numbers.Montgomery;
+
+/**
+ * This class provides the multiplication of dense polynomials given by their
+ * coefficient arrays, i.e., the convolution
+ * <p style="text-align:center">
+ *    <i>c<sub>k</sub></i> = &#x2211;<sub><i>i</i>+<i>j</i>=<i>k</i></sub>
+ *    <i>a<sub>i</sub> b<sub>j</sub></i>,
+ * </p>
+ * where the element at index <i>i</i> of an array denotes the coefficient of
+ * <i>x<sup>i</sup></i>. The product array has the length
+ * <i>m</i> + <i>n</i> - 1 for factors of the lengths <i>m</i> and <i>n</i>.
+ * Depending on the lengths, {@link #multiply(BigInteger[], BigInteger[])} and
+ * {@link #multiply(double[], double[])} choose one of the following algorithms:
+ * <ul>
+ * <li>the schoolbook method, with O(<i>mn</i>) operations;</li>
+ * <li>for integer coefficients, the Karatsuba method, with
+ * O(<i>n</i><sup>1.585</sup>) operations;</li>
+ * <li>for integer coefficients, the number-theoretic transform (NTT) modulo
+ * several primes <i>p</i> = <i>c</i>&middot;2<sup>32</sup> + 1 &lt; 2<sup>62</sup>
+ * with {@link Montgomery} arithmetic, whose results are combined by the Chinese
+ * remainder theorem in the form of Garner's algorithm;</li>
+ * <li>for real coefficients, the complex fast Fourier transform (FFT),</li>
+ * </ul>
+ * the last two ones with O(<i>n</i> log <i>n</i>) operations.
+ * The thresholds between the algorithms have been measured by the benchmark
+ * <code>bench.PolynomialMultiplyBenchmark</code>.
+ * @author agent
+ * @version 1.0
+ */
+public class Convolution {
+   /** Minimum length of both factors for the Karatsuba method.*/
+   public static final int KARATSUBA_THRESHOLD = 32;
+   /** Minimum length of both factors for the number-theoretic transform, per prime
+    *  required for the coefficients of the product.*/
+   public static final int NTT_THRESHOLD = 16;
+   /** Minimum length of both factors for the fast Fourier transform.*/
+   public static final int FFT_THRESHOLD = 128;
+   /** Primes of the form <i>c</i>&middot;2<sup><i>k</i></sup> + 1 with
+    *  <i>k</i> &ge; 32 and 2<sup>61</sup> &lt; <i>p</i> &lt; 2<sup>62</sup>.*/
+   private static final long[] PRIMES = {
+      0x3fffffee00000001L, 0x3fffffb400000001L, 0x3fffffa000000001L, 0x3fffff5d00000001L,
+      0x3fffff4900000001L, 0x3fffff4600000001L, 0x3fffff3000000001L, 0x3fffff2800000001L,
+      0x3fffff1c00000001L, 0x3fffff1800000001L, 0x3ffffed600000001L, 0x3ffffecb00000001L,
+      0x3ffffec700000001L, 0x3ffffeb800000001L, 0x3ffffeb300000001L, 0x3ffffe6a00000001L,
+      0x3ffffe4100000001L, 0x3ffffdf900000001L, 0x3ffffdd800000001L, 0x3ffffdd700000001L,
+      0x3ffffdc800000001L, 0x3ffffdc300000001L, 0x3ffffda700000001L, 0x3ffffd8300000001L,
+      0x3ffffd6600000001L, 0x3ffffd2d00000001L, 0x3ffffd2000000001L, 0x3ffffcfc00000001L,
+      0x3ffffcf700000001L, 0x3ffffce200000001L, 0x3ffffcc900000001L, 0x3ffffc7f00000001L,
+      0x3ffffc6c00000001L, 0x3ffffc4e00000001L, 0x3ffffbf700000001L, 0x3ffffbe200000001L,
+      0x3ffffbbf00000001L, 0x3ffffbb600000001L, 0x3ffffb9200000001L, 0x3ffffb6100000001L
+   };
+   /** The arithmetic modulo the primes.*/
+   private static final Montgomery[] RINGS = new Montgomery[PRIMES.length];
+   /** Montgomery forms of primitive 2<sup>32</sup>-th roots of unity modulo the primes.*/
+   private static final long[] ROOTS = new long[PRIMES.length];
+   /** Montgomery forms of <i>p<sub>j</sub></i><sup>-1</sup> mod <i>p<sub>i</sub></i> for <i>j</i> &lt; <i>i</i>.*/
+   private static final long[][] GARNER = new long[PRIMES.length][PRIMES.length];
+   /** The products <i>p</i><sub>0</sub> ... <i>p</i><sub><i>t</i>-1</sub> of the first <i>t</i> primes.*/
+   private static final BigInteger[] MODULI = new BigInteger[PRIMES.length + 1];
+   /** Cosines and sines of 2&pi;<i>j</i>/<i>N</i>, 0 &le; <i>j</i> &lt; <i>N</i>/2, for the largest FFT length <i>N</i> so far.*/
+   private static volatile double[][] twiddles = {{1}, {0}};
+
+   static {
+      MODULI[0] = BigInteger.ONE;
+      for (int i = 0; i < PRIMES.length; i++) {
+         long p = PRIMES[i];
+         Montgomery ring = new Montgomery(p);
+         RINGS[i] = ring;
+         MODULI[i + 1] = MODULI[i].multiply(BigInteger.valueOf(p));
+         // for a quadratic nonresidue g, g^((p-1)/2^32) has the order 2^32:
+         long minusOne = ring.toMontgomery(p - 1);
+         long g = 2;
+         while (ring.pow(ring.toMontgomery(g), (p - 1) >>> 1) != minusOne) {
+            g++;
+         }
+         ROOTS[i] = ring.pow(ring.toMontgomery(g), (p - 1) >>> 32);
+         for (int j = 0; j < i; j++) {
+            GARNER[j][i] = ring.pow(ring.toMontgomery(PRIMES[j]), p - 2);
+         }
+      }
+   }
+
+   private Convolution() {
+   }
+
+   /** Returns the product of the polynomials with the integer coefficients
+    *  <i>a</i> and <i>b</i>, computed by the schoolbook method, the Karatsuba
+    *  method or the number-theoretic transform, depending on their lengths and
+    *  the sizes of their coefficients.
+    *  @param a the coefficients of the first polynomial
+    *  @param b the coefficients of the second polynomial
+    *  @return the coefficients of the product
+    */
+   public static BigInteger[] multiply(BigInteger[] a, BigInteger[] b) {
+      int n = Math.min(a.length, b.length);
+      if (n < KARATSUBA_THRESHOLD) {
+         return schoolbook(a, b);
+      }
+      // the costs of the transforms and of the Chinese remainder grow with the number of primes:
+      int t = primes(a, b);
+      if (t <= PRIMES.length && n >= NTT_THRESHOLD * t) {
+         return ntt(a, b);
+      } else {
+         return karatsuba(a, b);
+      }
+   }
+
+   /** Returns the product of the polynomials with the integer coefficients
+    *  <i>a</i> and <i>b</i>, computed by the schoolbook method.
+    *  @param a the coefficients of the first polynomial
+    *  @param b the coefficients of the second polynomial
+    *  @return the coefficients of the product
+    */
+   public static BigInteger[] schoolbook(BigInteger[] a, BigInteger[] b) {
+      if (a.length == 0 || b.length == 0) return new BigInteger[0];
+      BigInteger[] c = new BigInteger[a.length + b.length - 1];
+      Arrays.fill(c, BigInteger.ZERO);
+      for (int i = 0; i < a.length; i++) {
+         if (a[i].signum() == 0) continue;
+         for (int j = 0; j < b.length; j++) {
+            c[i + j] = c[i + j].add(a[i].multiply(b[j]));
+         }
+      }
+      return c;
+   }
+
+   /** Returns the product of the polynomials with the integer coefficients
+    *  <i>a</i> and <i>b</i>, computed by the Karatsuba method. Factors of
+    *  very different lengths are split into pieces of the length of the shorter one.
+    *  Below {@link #KARATSUBA_THRESHOLD} the schoolbook method is applied.
+    *  @param a the coefficients of the first polynomial
+    *  @param b the coefficients of the second polynomial
+    *  @return the coefficients of the product
+    */
+   public static BigInteger[] karatsuba(BigInteger[] a, BigInteger[] b) {
+      if (a.length < b.length) {
+         BigInteger[] tmp = a; a = b; b = tmp;
+      }
+      if (b.length < KARATSUBA_THRESHOLD) {
+         return schoolbook(a, b);
+      }
+      BigInteger[] c = new BigInteger[a.length + b.length - 1];
+      Arrays.fill(c, BigInteger.ZERO);
+      if (a.length >= 2 * b.length) {
+         // unbalanced factors: c = sum_k (a_k b) x^(k*|b|) with pieces a_k of a
+         for (int k = 0; k < a.length; k += b.length) {
+            BigInteger[] piece = Arrays.copyOfRange(a, k, Math.min(k + b.length, a.length));
+            addTo(c, karatsuba(piece, b), k);
+         }
+         return c;
+      }
+      // a = a0 + a1 x^m, b = b0 + b1 x^m, where a1 and b1 are not empty since |b| > |a|/2 >= m:
+      int m = a.length / 2;
+      BigInteger[] a0 = Arrays.copyOfRange(a, 0, m), a1 = Arrays.copyOfRange(a, m, a.length);
+      BigInteger[] b0 = Arrays.copyOfRange(b, 0, m), b1 = Arrays.copyOfRange(b, m, b.length);
+      BigInteger[] z0 = karatsuba(a0, b0);
+      BigInteger[] z2 = karatsuba(a1, b1);
+      // z1 = (a0 + a1)(b0 + b1) - z0 - z2:
+      BigInteger[] z1 = karatsuba(sum(a0, a1), sum(b0, b1));
+      for (int i = 0; i < z0.length; i++) {
+         z1[i] = z1[i].subtract(z0[i]);
+      }
+      for (int i = 0; i < z2.length; i++) {
+         z1[i] = z1[i].subtract(z2[i]);
+      }
+      addTo(c, z0, 0);
+      addTo(c, z1, m);
+      addTo(c, z2, 2 * m);
+      return c;
+   }
+
+   /** Returns the product of the polynomials with the integer coefficients
+    *  <i>a</i> and <i>b</i>, computed by number-theoretic transforms modulo as
+    *  many primes as necessary to determine the coefficients of the product,
+    *  including their signs, by the Chinese remainder theorem.
+    *  If <i>a</i> and <i>b</i> are the same array, the transform is computed
+    *  only once.
+    *  @param a the coefficients of the first polynomial
+    *  @param b the coefficients of the second polynomial
+    *  @return the coefficients of the product
+    *  @throws IllegalArgumentException if the coefficients of the product may
+    *  exceed the product of the available primes
+    */
+   public static BigInteger[] ntt(BigInteger[] a, BigInteger[] b) {
+      if (a.length == 0 || b.length == 0) return new BigInteger[0];
+      int t = primes(a, b);
+      if (t > PRIMES.length) {
+         throw new IllegalArgumentException("Coefficients too large for " + PRIMES.length + " primes");
+      }
+      int n = a.length + b.length - 1;
+      int size = Integer.highestOneBit(n);
+      if (size < n) size <<= 1;
+
+      long[][] residues = new long[t][];
+      for (int i = 0; i < t; i++) {
+         Montgomery ring = RINGS[i];
+         long p = PRIMES[i];
+         long[] w = roots(i, size, false);
+         long[] x = residues(a, i, size);
+         forward(x, w, ring);
+         long[] y = x;
+         if (b != a) {
+            y = residues(b, i, size);
+            forward(y, w, ring);
+         }
+         // the pointwise product xyR^-1 is multiplied by the Montgomery form of R/size:
+         long scale = ring.toMontgomery(ring.pow(ring.toMontgomery(size), p - 2));
+         for (int k = 0; k < size; k++) {
+            x[k] = ring.multiply(ring.multiply(x[k], y[k]), scale);
+         }
+         inverse(x, roots(i, size, true), ring);
+         residues[i] = x;
+      }
+
+      // Garner's algorithm: c = d_0 + p_0 (d_1 + p_1 (d_2 + ...)) with 0 <= d_i < p_i
+      BigInteger[] c = new BigInteger[n];
+      BigInteger half = MODULI[t].shiftRight(1);
+      long[] d = new long[t];
+      for (int k = 0; k < n; k++) {
+         for (int i = 0; i < t; i++) {
+            Montgomery ring = RINGS[i];
+            long x = residues[i][k];
+            for (int j = 0; j < i; j++) {
+               // d_j < p_j < 2 p_i, since all primes are between 2^61 and 2^62:
+               long dj = d[j] >= PRIMES[i] ? d[j] - PRIMES[i] : d[j];
+               x = ring.multiply(ring.subtract(x, dj), GARNER[j][i]);
+            }
+            d[i] = x;
+         }
+         if (t == 1) {
+            c[k] = BigInteger.valueOf(d[0] > PRIMES[0] >>> 1 ? d[0] - PRIMES[0] : d[0]);
+         } else {
+            BigInteger value = BigInteger.valueOf(d[t - 1]);
+            for (int i = t - 2; i >= 0; i--) {
+               value = value.multiply(BigInteger.valueOf(PRIMES[i])).add(BigInteger.valueOf(d[i]));
+            }
+            c[k] = value.compareTo(half) > 0 ? value.subtract(MODULI[t]) : value;
+         }
+      }
+      return c;
+   }
+
+   /** Returns the product of the polynomials with the real coefficients
+    *  <i>a</i> and <i>b</i>, computed by the schoolbook method or the fast
+    *  Fourier transform, depending on their lengths.
+    *  @param a the coefficients of the first polynomial
+    *  @param b the coefficients of the second polynomial
+    *  @return the coefficients of the product
+    */
+   public static double[] multiply(double[] a, double[] b) {
+      if (Math.min(a.length, b.length) < FFT_THRESHOLD) {
+         return schoolbook(a, b);
+      } else {
+         return fft(a, b);
+      }
+   }
+
+   /** Returns the product of the polynomials with the real coefficients
+    *  <i>a</i> and <i>b</i>, computed by the schoolbook method.
+    *  @param a the coefficients of the first polynomial
+    *  @param b the coefficients of the second polynomial
+    *  @return the coefficients of the product
+    */
+   public static double[] schoolbook(double[] a, double[] b) {
+      if (a.length == 0 || b.length == 0) return new double[0];
+      double[] c = new double[a.length + b.length - 1];
+      for (int i = 0; i < a.length; i++) {
+         if (a[i] == 0) continue;
+         for (int j = 0; j < b.length; j++) {
+            c[i + j] += a[i] * b[j];
+         }
+      }
+      return c;
+   }
+
+   /** Returns the product of the polynomials with the real coefficients
+    *  <i>a</i> and <i>b</i>, computed by a complex fast Fourier transform.
+    *  Both factors are packed into the single complex sequence <i>a</i> + <i>isb</i>,
+    *  scaled by <i>s</i> = max|<i>a<sub>i</sub></i>| / max|<i>b<sub>j</sub></i>| for
+    *  balanced rounding errors, whose square (<i>a</i> + <i>isb</i>)<sup>2</sup>
+    *  has the imaginary part 2<i>s ab</i>. Thus one forward and one inverse
+    *  transform suffice. The coefficients of the product have absolute errors of
+    *  the order of 10<sup>-16</sup> max|<i>a<sub>i</sub></i>| max|<i>b<sub>j</sub></i>|
+    *  log <i>n</i>.
+    *  @param a the coefficients of the first polynomial
+    *  @param b the coefficients of the second polynomial
+    *  @return the coefficients of the product
+    */
+   public static double[] fft(double[] a, double[] b) {
+      if (a.length == 0 || b.length == 0) return new double[0];
+      int n = a.length + b.length - 1;
+      double[] c = new double[n];
+      double maxA = 0, maxB = 0;
+      for (double x : a) maxA = Math.max(maxA, Math.abs(x));
+      for (double x : b) maxB = Math.max(maxB, Math.abs(x));
+      if (maxA == 0 || maxB == 0) return c;
+      double s = maxA / maxB;
+
+      int size = Integer.highestOneBit(n);
+      if (size < n) size <<= 1;
+      double[] re = new double[size], im = new double[size];
+      System.arraycopy(a, 0, re, 0, a.length);
+      for (int j = 0; j < b.length; j++) {
+         im[j] = s * b[j];
+      }
+      double[][] w = twiddles(size);
+      transform(re, im, w[0], w[1], false);
+      for (int k = 0; k < size; k++) {
+         double x = re[k], y = im[k];
+         re[k] = x * x - y * y;
+         im[k] = 2 * x * y;
+      }
+      transform(re, im, w[0], w[1], true);
+      double factor = 1 / (2 * s * size);
+      for (int k = 0; k < n; k++) {
+         c[k] = im[k] * factor;
+      }
+      return c;
+   }
+
+   // --- number-theoretic transform: -----------------------------------------
+   /** Returns the number of primes whose product exceeds twice the absolute values
+    *  of the coefficients of the product of <i>a</i> and <i>b</i>.*/
+   private static int primes(BigInteger[] a, BigInteger[] b) {
+      int bits = maxBitLength(a) + maxBitLength(b)
+         + 32 - Integer.numberOfLeadingZeros(Math.min(a.length, b.length)) + 1;
+      return bits / 61 + 1;
+   }
+
+   private static int maxBitLength(BigInteger[] a) {
+      int max = 0;
+      for (BigInteger x : a) {
+         max = Math.max(max, x.bitLength());
+      }
+      return max;
+   }
+
+   /** Returns the coefficients of <i>a</i> modulo the <i>i</i>-th prime,
+    *  padded with zeros to the given size.*/
+   private static long[] residues(BigInteger[] a, int i, int size) {
+      long p = PRIMES[i];
+      BigInteger prime = null;
+      long[] x = new long[size];
+      for (int k = 0; k < a.length; k++) {
+         if (a[k].bitLength() < 63) {
+            x[k] = a[k].longValue() % p;
+            if (x[k] < 0) x[k] += p;
+         } else {
+            if (prime == null) prime = BigInteger.valueOf(p);
+            x[k] = a[k].mod(prime).longValue();
+         }
+      }
+      return x;
+   }
+
+   /** Returns the Montgomery forms of the powers <i>w<sup>j</sup></i>, 0 &le; <i>j</i> &lt;
+    *  <i>size</i>/2, of a primitive root of unity of order <i>size</i>, or of its inverse,
+    *  modulo the <i>i</i>-th prime.*/
+   private static long[] roots(int i, int size, boolean inverse) {
+      Montgomery ring = RINGS[i];
+      long root = ROOTS[i];
+      for (long order = 1L << 32; order > size; order >>= 1) {
+         root = ring.multiply(root, root);
+      }
+      if (inverse) {
+         root = ring.pow(root, size - 1);
+      }
+      long[] w = new long[Math.max(1, size / 2)];
+      w[0] = ring.one();
+      for (int j = 1; j < w.length; j++) {
+         w[j] = ring.multiply(w[j - 1], root);
+      }
+      return w;
+   }
+
+   /** Transforms x in place by decimation in frequency, with the result in bit reversed order.*/
+   private static void forward(long[] x, long[] w, Montgomery ring) {
+      for (int len = x.length; len >= 2; len >>= 1) {
+         int half = len >> 1, step = 2 * w.length / len;
+         for (int i = 0; i < x.length; i += len) {
+            for (int j = 0, k = i + half; j < half; j++, k++) {
+               long u = x[i + j], v = x[k];
+               x[i + j] = ring.add(u, v);
+               x[k] = ring.multiply(ring.subtract(u, v), w[j * step]);
+            }
+         }
+      }
+   }
+
+   /** Transforms x in bit reversed order in place by decimation in time, with the
+    *  result in natural order.*/
+   private static void inverse(long[] x, long[] w, Montgomery ring) {
+      for (int len = 2; len <= x.length; len <<= 1) {
+         int half = len >> 1, step = 2 * w.length / len;
+         for (int i = 0; i < x.length; i += len) {
+            for (int j = 0, k = i + half; j < half; j++, k++) {
+               long u = x[i + j], v = ring.multiply(x[k], w[j * step]);
+               x[i + j] = ring.add(u, v);
+               x[k] = ring.subtract(u, v);
+            }
+         }
+      }
+   }
+
+   // --- fast Fourier transform: ---------------------------------------------
+   /** Returns the cosines and sines of 2&pi;<i>j</i>/<i>N</i>, 0 &le; <i>j</i> &lt; <i>N</i>/2,
+    *  for some <i>N</i> &ge; <i>size</i>, which is a multiple of <i>size</i>.*/
+   private static double[][] twiddles(int size) {
+      double[][] w = twiddles;
+      if (2 * w[0].length < size) {
+         int half = size / 2;
+         w = new double[2][half];
+         for (int j = 0; j < half; j++) {
+            double phi = Math.PI * j / half;
+            w[0][j] = Math.cos(phi);
+            w[1][j] = Math.sin(phi);
+         }
+         twiddles = w;
+      }
+      return w;
+   }
+
+   /** Transforms (re, im) in place, forward by decimation in frequency with the
+    *  result in bit reversed order, or inverse by decimation in time from bit reversed
+    *  to natural order, the latter without the division by the length.*/
+   private static void transform(double[] re, double[] im, double[] cos, double[] sin, boolean inverse) {
+      int size = re.length;
+      for (int m = 0; m < 31 && (1 << m) < size; m++) {
+         int len = inverse ? 2 << m : size >> m;
+         int half = len >> 1, step = 2 * cos.length / len;
+         for (int i = 0; i < size; i += len) {
+            for (int j = 0, k = i + half; j < half; j++, k++) {
+               double c = cos[j * step], s = sin[j * step];
+               double ur = re[i + j], ui = im[i + j];
+               if (inverse) {
+                  // v = x_k exp(2 pi i j/len):
+                  double vr = re[k] * c - im[k] * s, vi = im[k] * c + re[k] * s;
+                  re[i + j] = ur + vr;
+                  im[i + j] = ui + vi;
+                  re[k] = ur - vr;
+                  im[k] = ui - vi;
+               } else {
+                  // x_k = (u - v) exp(-2 pi i j/len):
+                  double dr = ur - re[k], di = ui - im[k];
+                  re[i + j] = ur + re[k];
+                  im[i + j] = ui + im[k];
+                  re[k] = dr * c + di * s;
+                  im[k] = di * c - dr * s;
+               }
+            }
+         }
+      }
+   }
+
+   // --- auxiliary methods: --------------------------------------------------
+   /** Returns the coefficientwise sum of a and b.*/
+   private static BigInteger[] sum(BigInteger[] a, BigInteger[] b) {
+      if (a.length < b.length) {
+         BigInteger[] tmp = a; a = b; b = tmp;
+      }
+      BigInteger[] c = a.clone();
+      for (int i = 0; i < b.length; i++) {
+         c[i] = c[i].add(b[i]);
+      }
+      return c;
+   }
+
+   /** Adds x<sup>offset</sup> z to c.*/
+   private static void addTo(BigInteger[] c, BigInteger[] z, int offset) {
+      for (int i = 0; i < z.length; i++) {
+         c[offset + i] = c[offset + i].add(z[i]);
+      }
+   }
+}
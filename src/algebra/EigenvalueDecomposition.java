@@ -52,6 +52,15 @@ import numbers.Numbers;
  * badly conditioned, or even singular, so the validity of the equation 
  * <i>A = V&sdot;D&sdot;V</i><sup>-1</sup> depends upon <code>V.cond()</code>.
  * </p>
+ * <p>
+ * For symmetric matrices of dimension at least {@link #BLOCKED_THRESHOLD}, the
+ * reduction to tridiagonal form is blocked: the rank-2 updates of {@link #PANEL}
+ * Householder reflections are deferred and applied at once to the remaining
+ * submatrix, and these updates, the matrix-vector products of the reflections
+ * and the accumulation of the orthogonal transformation run in parallel as set
+ * by {@link Matrix#setParallelism(int)}. The result equals the one of the
+ * unblocked reduction up to rounding errors.
+ * </p>
  * 
  * This class is a slight modification of the Java class by the JAMA Java Matrix Package
  * by NIST, 
@@ -102,6 +111,10 @@ public class EigenvalueDecomposition { // implements java.io.Serializable {
     * @serial working storage for nonsymmetric algorithm.
     */
    private double[] ort;
+   /** Number of reflections of a panel of the blocked tridiagonalization.*/
+   static final int PANEL = 32;
+   /** Minimum dimension for the blocked tridiagonalization.*/
+   static final int BLOCKED_THRESHOLD = 128;
 
    /* ------------------------
     Constructor
@@ -196,6 +209,16 @@ public class EigenvalueDecomposition { // implements java.io.Serializable {
     * ------------------------ */
    // Symmetric Householder reduction to tridiagonal form.
    private void tred2() {
+      if (n >= BLOCKED_THRESHOLD) {
+         reduceBlocked();
+      } else {
+         reduce();
+      }
+      accumulate();
+   }
+
+   // Householder reduction, storing the reflections in V and their squared norms in d.
+   private void reduce() {
       /*
       for (int j = 0; j < n; j++) {
          d[j] = V[n - 1][j];
@@ -267,8 +290,124 @@ public class EigenvalueDecomposition { // implements java.io.Serializable {
          }
          d[i] = h;
       }
+   }
+
+   // Householder reduction like reduce(), but in panels of reflections. Within a panel
+   // the matrix is A - sum(u q^T + q u^T) over the reflections u of the panel so far, and
+   // the rank-2 updates are applied to the remaining leading submatrix after the panel.
+   // Both triangles of the submatrix are stored, so that all loops scan rows of V.
+   private void reduceBlocked() {
+      final double[][] U = new double[PANEL][], Q = new double[PANEL][];
+      for (int top = n - 1; top > 0; top -= PANEL) {
+         int bottom = Math.max(top - PANEL + 1, 1);
+         int count = 0;
+         for (int i = top; i >= bottom; i--) {
+            // Row i of the current matrix.
+            double[] row = V[i];
+            System.arraycopy(row, 0, d, 0, i + 1);
+            for (int s = 0; s < count; s++) {
+               double[] u = U[s], q = Q[s];
+               double ui = u[i], qi = q[i];
+               for (int j = 0; j <= i; j++) {
+                  d[j] -= ui * q[j] + qi * u[j];
+               }
+            }
+            row[i] = d[i];
+
+            // Scale to avoid under/overflow.
+            double scale = 0.0;
+            double h = 0.0;
+            for (int k = 0; k < i; k++) {
+               scale = scale + Math.abs(d[k]);
+            }
+            if (scale == 0.0) {
+               e[i] = d[i - 1];
+               for (int j = 0; j < i; j++) {
+                  V[i][j] = 0.0;
+                  V[j][i] = 0.0;
+               }
+            } else {
+               // Generate Householder vector.
+               final double[] u = new double[i];
+               for (int k = 0; k < i; k++) {
+                  u[k] = d[k] / scale;
+                  h += u[k] * u[k];
+               }
+               double f = u[i - 1];
+               double g = Math.sqrt(h);
+               if (f > 0) {
+                  g = -g;
+               }
+               e[i] = scale * g;
+               h = h - f * g;
+               u[i - 1] = f - g;
 
-      // Accumulate transformations.
+               // p = A u / h, where A u is computed row by row.
+               final double[] p = new double[i];
+               new Matrix.ParallelLoop() {
+                  void run(int from, int to) {
+                     for (int k = from; k < to; k++) {
+                        double[] vk = V[k];
+                        double sum = 0.0;
+                        for (int j = 0; j < u.length; j++) {
+                           sum += vk[j] * u[j];
+                        }
+                        p[k] = sum;
+                     }
+                  }
+               }.invoke(0, i, 2.0 * i * i);
+               for (int s = 0; s < count; s++) {
+                  double[] us = U[s], qs = Q[s];
+                  double qu = 0.0, uu = 0.0;
+                  for (int j = 0; j < i; j++) {
+                     qu += qs[j] * u[j];
+                     uu += us[j] * u[j];
+                  }
+                  for (int k = 0; k < i; k++) {
+                     p[k] -= us[k] * qu + qs[k] * uu;
+                  }
+               }
+               f = 0.0;
+               for (int j = 0; j < i; j++) {
+                  p[j] /= h;
+                  f += p[j] * u[j];
+               }
+               double hh = f / (h + h);
+               for (int j = 0; j < i; j++) {
+                  p[j] -= hh * u[j];
+               }
+               for (int j = 0; j < i; j++) {
+                  V[j][i] = u[j];
+                  V[i][j] = 0.0;
+               }
+               U[count] = u;
+               Q[count] = p;
+               count++;
+            }
+            d[i] = h;
+         }
+
+         // Apply the rank-2 updates of the panel to the leading submatrix.
+         final int size = bottom, updates = count;
+         new Matrix.ParallelLoop() {
+            void run(int from, int to) {
+               for (int k = from; k < to; k++) {
+                  double[] vk = V[k];
+                  for (int s = 0; s < updates; s++) {
+                     double[] u = U[s], q = Q[s];
+                     double uk = u[k], qk = q[k];
+                     for (int j = 0; j < size; j++) {
+                        vk[j] -= uk * q[j] + qk * u[j];
+                     }
+                  }
+               }
+            }
+         }.invoke(0, size, 4.0 * size * size * count);
+      }
+   }
+
+   // Accumulate transformations.
+   private void accumulate() {
       for (int i = 0; i < n - 1; i++) {
          V[n - 1][i] = V[i][i];
          V[i][i] = 1.0;
@@ -277,15 +416,28 @@ public class EigenvalueDecomposition { // implements java.io.Serializable {
             for (int k = 0; k <= i; k++) {
                d[k] = V[k][i + 1] / h;
             }
-            for (int j = 0; j <= i; j++) {
-               double g = 0.0;
-               for (int k = 0; k <= i; k++) {
-                  g += V[k][i + 1] * V[k][j];
-               }
-               for (int k = 0; k <= i; k++) {
-                  V[k][j] -= g * d[k];
+            // V = V - d g^T with g_j = sum_k V[k][i+1] V[k][j], the columns j
+            // in independent chunks, each scanning the rows of V:
+            final int size = i + 1;
+            new Matrix.ParallelLoop() {
+               void run(int from, int to) {
+                  double[] g = new double[to - from];
+                  for (int k = 0; k < size; k++) {
+                     double[] vk = V[k];
+                     double u = vk[size];
+                     for (int j = from; j < to; j++) {
+                        g[j - from] += u * vk[j];
+                     }
+                  }
+                  for (int k = 0; k < size; k++) {
+                     double[] vk = V[k];
+                     double dk = d[k];
+                     for (int j = from; j < to; j++) {
+                        vk[j] -= g[j - from] * dk;
+                     }
+                  }
                }
-            }
+            }.invoke(0, size, 4.0 * size * size);
          }
          for (int k = 0; k <= i; k++) {
             V[k][i + 1] = 0.0;
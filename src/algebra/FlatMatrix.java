@@ -0,0 +1,408 @@
+/*
+ * FlatMatrix.java - Matrix stored in a contiguous one-dimensional array
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package algebra;
+
+/**
+ * This class represents a real matrix whose entries are stored row by row in a
+ * single array of type <code>double[]</code>, in contrast to the array of rows
+ * of a {@link Matrix}. The entry <i>a<sub>ij</sub></i> (counted from 0) is
+ * located at the position
+ * <pre>
+ *    offset + i * stride + j
+ * </pre>
+ * of the data array, where the <i>stride</i> is the distance of two consecutive
+ * rows. A matrix created by a constructor is contiguous, i.e., its stride equals
+ * its number of columns. The methods {@link #row(int)}, {@link #column(int)} and
+ * {@link #submatrix(int, int, int, int)} return views sharing the data array with
+ * this matrix, so that they do not copy any entry and modifications of a view
+ * are visible in the matrix, and vice versa:
+ * <pre>
+ *    FlatMatrix a = new FlatMatrix(new Matrix(new double[][] {{1,2,3},{4,5,6},{7,8,9}}));
+ *    a.submatrix(1, 1, 2, 2).set(0, 0, 0.0); // sets a<sub>11</sub> = 0
+ * </pre>
+ * Conversions to and from {@link Matrix} are provided by {@link #toMatrix()} and
+ * {@link Matrix#toFlatMatrix()}.
+ * @author  agent
+ * @version 1.0
+ */
+public class FlatMatrix {
+   /** Edge length of the square tiles in which {@link #times(FlatMatrix)} traverses the factors.*/
+   private static final int BLOCK_SIZE = 64;
+   /** Array containing the entries of this matrix.*/
+   private final double[] data;
+   /** Position of the entry <i>a</i><sub>00</sub> in the data array.*/
+   private final int offset;
+   /** Distance of two consecutive rows in the data array.*/
+   private final int stride;
+   /** Number of rows of this matrix.*/
+   private final int rows;
+   /** Number of columns of this matrix.*/
+   private final int columns;
+
+   /** Constructs a zero matrix with the given rows and columns.
+    *  @param rows the number of rows of this matrix
+    *  @param columns the number of columns of this matrix
+    */
+   public FlatMatrix(int rows, int columns) {
+      this(new double[rows * columns], 0, columns, rows, columns);
+   }
+
+   /** Constructs a matrix from the given row-major data array, which is not copied.
+    *  @param data the entries of the matrix, row by row
+    *  @param rows the number of rows of this matrix
+    *  @param columns the number of columns of this matrix
+    *  @throws IllegalArgumentException if the length of the array is not rows &times; columns
+    */
+   public FlatMatrix(double[] data, int rows, int columns) {
+      this(data, 0, columns, rows, columns);
+      if (data.length != rows * columns) {
+         throw new IllegalArgumentException(
+            "Array length " + data.length + " != " + rows + "*" + columns
+         );
+      }
+   }
+
+   /** Constructs a contiguous copy of the given matrix.
+    *  @param a a matrix
+    */
+   public FlatMatrix(Matrix a) {
+      this(a.rows, a.columns);
+      for (int i = 0; i < rows; i++) {
+         System.arraycopy(a.matrix[i], 0, data, i * columns, columns);
+      }
+   }
+
+   /** Constructs a view of the specified data array. */
+   private FlatMatrix(double[] data, int offset, int stride, int rows, int columns) {
+      this.data = data;
+      this.offset = offset;
+      this.stride = stride;
+      this.rows = rows;
+      this.columns = columns;
+   }
+
+   /** Returns the number of rows of this matrix.
+    *  @return the number of rows of this matrix
+    */
+   public int getRows() {
+      return rows;
+   }
+
+   /** Returns the number of columns of this matrix.
+    *  @return the number of columns of this matrix
+    */
+   public int getColumns() {
+      return columns;
+   }
+
+   /** Returns the distance of two consecutive rows in the data array.
+    *  @return the stride of this matrix
+    */
+   public int getStride() {
+      return stride;
+   }
+
+   /** Returns the position of the entry <i>a</i><sub>00</sub> in the data array.
+    *  @return the offset of this matrix
+    */
+   public int getOffset() {
+      return offset;
+   }
+
+   /** Returns the data array of this matrix. It is not copied, hence
+    *  modifications of the array change this matrix.
+    *  @return the data array of this matrix
+    */
+   public double[] getData() {
+      return data;
+   }
+
+   /** Returns whether the entries of this matrix occupy a gapless range of
+    *  the data array, i.e., whether its stride equals the number of columns
+    *  or it consists of a single row.
+    *  @return true if and only if this matrix is contiguous
+    */
+   public boolean isContiguous() {
+      return stride == columns || rows <= 1;
+   }
+
+   /** Returns the entry <i>a<sub>ij</sub></i>, where the indices are counted from 0.
+    *  @param i the row index
+    *  @param j the column index
+    *  @return the entry <i>a<sub>ij</sub></i>
+    *  @throws IndexOutOfBoundsException if an index is out of bounds
+    */
+   public double get(int i, int j) {
+      checkIndex(i, j);
+      return data[offset + i * stride + j];
+   }
+
+   /** Sets the entry <i>a<sub>ij</sub></i>, where the indices are counted from 0.
+    *  @param i the row index
+    *  @param j the column index
+    *  @param value the value to be set
+    *  @throws IndexOutOfBoundsException if an index is out of bounds
+    */
+   public void set(int i, int j, double value) {
+      checkIndex(i, j);
+      data[offset + i * stride + j] = value;
+   }
+
+   /** Returns the specified row of this matrix as a 1 &times; <i>n</i> view.
+    *  @param i row number, counted from 0
+    *  @return a view of the i-th row of this matrix
+    *  @throws IndexOutOfBoundsException if the index is out of bounds
+    */
+   public FlatMatrix row(int i) {
+      return submatrix(i, 0, 1, columns);
+   }
+
+   /** Returns the specified column of this matrix as an <i>m</i> &times; 1 view.
+    *  @param j column number, counted from 0
+    *  @return a view of the j-th column of this matrix
+    *  @throws IndexOutOfBoundsException if the index is out of bounds
+    */
+   public FlatMatrix column(int j) {
+      return submatrix(0, j, rows, 1);
+   }
+
+   /** Returns a view of the submatrix with the specified number of rows and
+    *  columns whose upper left entry is <i>a<sub>ij</sub></i>.
+    *  @param i the row index of the upper left entry, counted from 0
+    *  @param j the column index of the upper left entry, counted from 0
+    *  @param rows the number of rows of the submatrix
+    *  @param columns the number of columns of the submatrix
+    *  @return a view of the submatrix
+    *  @throws IndexOutOfBoundsException if the submatrix exceeds this matrix
+    */
+   public FlatMatrix submatrix(int i, int j, int rows, int columns) {
+      if (i < 0 || j < 0 || rows < 0 || columns < 0 || i + rows > this.rows || j + columns > this.columns) {
+         throw new IndexOutOfBoundsException(
+            "Submatrix (" + i + "," + j + ")+" + rows + "x" + columns + " exceeds " + this.rows + "x" + this.columns
+         );
+      }
+      return new FlatMatrix(data, offset + i * stride + j, stride, rows, columns);
+   }
+
+   /** Returns a contiguous copy of this matrix.
+    *  @return a copy of this matrix
+    */
+   public FlatMatrix copy() {
+      FlatMatrix c = new FlatMatrix(rows, columns);
+      for (int i = 0; i < rows; i++) {
+         System.arraycopy(data, offset + i * stride, c.data, i * columns, columns);
+      }
+      return c;
+   }
+
+   /** Returns the entries of the specified row as a new array.
+    *  @param i row number, counted from 0
+    *  @return a copy of the i-th row of this matrix
+    *  @throws IndexOutOfBoundsException if the index is out of bounds
+    */
+   public double[] getRow(int i) {
+      if (i < 0 || i >= rows) {
+         throw new IndexOutOfBoundsException("Row " + i + " not in " + rows + "x" + columns);
+      }
+      double[] row = new double[columns];
+      System.arraycopy(data, offset + i * stride, row, 0, columns);
+      return row;
+   }
+
+   /** Returns the entries of the specified column as a new array.
+    *  @param j column number, counted from 0
+    *  @return a copy of the j-th column of this matrix
+    *  @throws IndexOutOfBoundsException if the index is out of bounds
+    */
+   public double[] getColumn(int j) {
+      if (j < 0 || j >= columns) {
+         throw new IndexOutOfBoundsException("Column " + j + " not in " + rows + "x" + columns);
+      }
+      double[] column = new double[rows];
+      for (int i = 0, p = offset + j; i < rows; i++, p += stride) {
+         column[i] = data[p];
+      }
+      return column;
+   }
+
+   /** Returns the transpose of this matrix as a new contiguous matrix.
+    *  @return the transpose of this matrix
+    */
+   public FlatMatrix transpose() {
+      FlatMatrix t = new FlatMatrix(columns, rows);
+      for (int i = 0; i < rows; i++) {
+         int p = offset + i * stride;
+         for (int j = 0; j < columns; j++) {
+            t.data[j * rows + i] = data[p + j];
+         }
+      }
+      return t;
+   }
+
+   /** Returns the (right) product of this matrix with the given column vector v.
+    *  @param v the column vector to multiply this matrix from right
+    *  @return the right product of this matrix and the input vector v
+    *  @throws IllegalArgumentException if number of columns of this matrix is
+    *  different from the number of rows of <i>v</i>
+    */
+   public double[] times(double[] v) {
+      if (columns != v.length) {
+         throw new IllegalArgumentException(
+            "Column and row numbers not appropriate for multiplication: " +
+            columns + "!=" + v.length
+         );
+      }
+      double[] y = new double[rows];
+      for (int i = 0; i < rows; i++) {
+         int p = offset + i * stride;
+         double sum = 0;
+         for (int j = 0; j < columns; j++) {
+            sum += data[p + j] * v[j];
+         }
+         y[i] = sum;
+      }
+      return y;
+   }
+
+   /** Returns the (right) product of this matrix with the given matrix b.
+    *  Like {@link Matrix#times(Matrix)}, the product is computed over square
+    *  tiles in <i>i-k-j</i> order and thus has the same entries.
+    *  @param b the matrix to multiply this matrix from right
+    *  @return the right product of this matrix and the input matrix b
+    *  @throws IllegalArgumentException if number of columns of this matrix is
+    *  different from the number of rows of <i>b</i>
+    */
+   public FlatMatrix times(FlatMatrix b) {
+      if (columns != b.rows) {
+         throw new IllegalArgumentException(
+            "Column and row numbers not appropriate for multiplication: " +
+            columns + "!=" + b.rows
+         );
+      }
+      int n = b.columns;
+      FlatMatrix c = new FlatMatrix(rows, n);
+      double[] cd = c.data, bd = b.data;
+      for (int ii = 0; ii < rows; ii += BLOCK_SIZE) {
+         int iMax = Math.min(ii + BLOCK_SIZE, rows);
+         for (int kk = 0; kk < columns; kk += BLOCK_SIZE) {
+            int kMax = Math.min(kk + BLOCK_SIZE, columns);
+            for (int jj = 0; jj < n; jj += BLOCK_SIZE) {
+               int jMax = Math.min(jj + BLOCK_SIZE, n);
+               for (int i = ii; i < iMax; i++) {
+                  int ci = i * n, ai = offset + i * stride;
+                  for (int k = kk; k < kMax; k++) {
+                     double aik = data[ai + k];
+                     int bk = b.offset + k * b.stride;
+                     for (int j = jj; j < jMax; j++) {
+                        cd[ci + j] += aik * bd[bk + j];
+                     }
+                  }
+               }
+            }
+         }
+      }
+      return c;
+   }
+
+   /** Returns a {@link Matrix} with the entries of this matrix.
+    *  @return a copy of this matrix as a <code>Matrix</code>
+    */
+   public Matrix toMatrix() {
+      Matrix a = new Matrix(rows, columns);
+      for (int i = 0; i < rows; i++) {
+         System.arraycopy(data, offset + i * stride, a.matrix[i], 0, columns);
+      }
+      return a;
+   }
+
+   /** Returns true if and only if the specified object is a <code>FlatMatrix</code>
+    *  with the same dimensions and the same entries as this matrix, compared as by
+    *  {@link java.util.Arrays#equals(double[], double[])}. The layout of the data
+    *  array does not matter, so a view equals its contiguous copy.
+    *  For a comparison with tolerance, see {@link #approximates(FlatMatrix)}.
+    *  @param o an object
+    *  @return true if and only if this matrix equals the specified object
+    */
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof FlatMatrix)) return false;
+      FlatMatrix a = (FlatMatrix) o;
+      if (rows != a.rows || columns != a.columns) return false;
+      for (int i = 0; i < rows; i++) {
+         int p = offset + i * stride, q = a.offset + i * a.stride;
+         for (int j = 0; j < columns; j++) {
+            if (Double.doubleToLongBits(data[p + j]) != Double.doubleToLongBits(a.data[q + j])) {
+               return false;
+            }
+         }
+      }
+      return true;
+   }
+
+   /** Returns a hash code consistent with {@link #equals(Object)}.
+    *  @return a hash code of this matrix
+    */
+   @Override
+   public int hashCode() {
+      int hash = 31 * rows + columns;
+      for (int i = 0; i < rows; i++) {
+         int p = offset + i * stride;
+         for (int j = 0; j < columns; j++) {
+            long bits = Double.doubleToLongBits(data[p + j]);
+            hash = 31 * hash + (int) (bits ^ (bits >>> 32));
+         }
+      }
+      return hash;
+   }
+
+   /** Returns true if and only if this matrix has the same dimensions as the
+    *  specified matrix and all entries differ by at most {@link Matrix#EPSILON}.
+    *  This relation is not transitive and therefore not {@link #equals(Object)}.
+    *  @param a a matrix
+    *  @return true if and only if this matrix approximates the specified matrix a
+    */
+   public boolean approximates(FlatMatrix a) {
+      if (rows != a.rows || columns != a.columns) return false;
+      for (int i = 0; i < rows; i++) {
+         for (int j = 0; j < columns; j++) {
+            if (Math.abs(data[offset + i * stride + j] - a.data[a.offset + i * a.stride + j]) > Matrix.EPSILON) {
+               return false;
+            }
+         }
+      }
+      return true;
+   }
+
+   /** Returns a String representation of this matrix.
+    * @return a string representation of this matrix
+    */
+   @Override
+   public String toString() {
+      return toMatrix().toString();
+   }
+
+   private void checkIndex(int i, int j) {
+      if (i < 0 || i >= rows || j < 0 || j >= columns) {
+         throw new IndexOutOfBoundsException("(" + i + "," + j + ") not in " + rows + "x" + columns);
+      }
+   }
+}
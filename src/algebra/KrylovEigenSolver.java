@@ -0,0 +1,527 @@
+/*
+ * KrylovEigenSolver.java - Some eigenpairs of large matrices by implicitly restarted Arnoldi
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package algebra;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * Computes <i>k</i> eigenvalues and eigenvectors of a large matrix <i>A</i>,
+ * namely those of largest magnitude or of largest real part, by the
+ * implicitly restarted Arnoldi method (IRAM) of Sorensen, as implemented by ARPACK.
+ * For symmetric matrices, the method reduces to the implicitly restarted
+ * Lanczos method. In contrast to the {@link EigenvalueDecomposition}, which
+ * computes the full spectrum with several <i>n</i>&times;<i>n</i> work arrays,
+ * the matrix enters only by its products with vectors, given as a
+ * {@link KrylovSolver.Operator}, and besides it only <i>m</i> + 1 vectors are
+ * stored, where the dimension <i>m</i> of the Krylov subspace is of the order of <i>k</i>:
+ * <pre>
+ *    KrylovEigenSolver solver = new KrylovEigenSolver(KrylovSolver.operator(A), 5).setSymmetric(true).solve();
+ *    double[] lambda = solver.getRealEigenvalues();
+ *    Matrix V = solver.getV();
+ * </pre>
+ * The eigenvalues are returned in the order of the target, e.g., by decreasing
+ * magnitude. Like in the {@link EigenvalueDecomposition}, a pair of complex conjugate
+ * eigenvalues occupies two consecutive positions <i>j</i>, <i>j</i>+1, and the columns
+ * <i>j</i> and <i>j</i>+1 of <i>V</i> contain the real and the imaginary part of the
+ * eigenvector of the eigenvalue with positive imaginary part. Therefore <i>k</i> + 1
+ * eigenpairs are returned if the <i>k</i>-th eigenvalue is the first of a complex pair.
+ * @author agent
+ * @version 1.0
+ */
+public class KrylovEigenSolver {
+   /** The eigenvalues to be computed.*/
+   public enum Target {
+      /** The eigenvalues of largest absolute value.*/
+      LARGEST_MAGNITUDE,
+      /** The eigenvalues of largest real part.*/
+      LARGEST_REAL
+   }
+
+   private final KrylovSolver.Operator a;
+   private final int n;
+   private final int k;
+   private int m;
+   private boolean symmetric;
+   private Target target = Target.LARGEST_MAGNITUDE;
+   private double tolerance = 1e-10;
+   private int maxRestarts = 300;
+   /** Bound for the dimension of the subspaces verifying the eigenvalues of largest
+    *  real part of a nonsymmetric matrix, as a multiple of <i>m</i>.*/
+   private static final int MAX_VERIFICATION_FACTOR = 8;
+
+   /** The results.*/
+   private double[] realEigenvalues, imagEigenvalues;
+   private double[][] eigenvectors;
+   private boolean converged;
+   private int restarts;
+
+   /** Creates a solver for <i>k</i> eigenpairs of the specified square matrix.
+    *  The dimension of the Krylov subspace is initially set to
+    *  min(<i>n</i>, max(2<i>k</i> + 1, 20)).
+    *  @param a the operator of the matrix
+    *  @param k the number of eigenpairs
+    *  @throws IllegalArgumentException if k is not between 1 and n - 1
+    */
+   public KrylovEigenSolver(KrylovSolver.Operator a, int k) {
+      this.a = a;
+      this.n = a.getDimension();
+      if (k < 1 || k >= n) {
+         throw new IllegalArgumentException("Number of eigenpairs not in [1, " + (n - 1) + "]: " + k);
+      }
+      this.k = k;
+      this.m = Math.min(n, Math.max(2 * k + 1, 20));
+   }
+
+   /** Declares whether the matrix is symmetric, which makes all eigenvalues real
+    *  and the eigenvectors orthogonal.
+    *  @param symmetric flag whether the matrix is symmetric
+    *  @return this solver
+    */
+   public KrylovEigenSolver setSymmetric(boolean symmetric) {
+      this.symmetric = symmetric;
+      return this;
+   }
+
+   /** Sets which eigenvalues are to be computed.
+    *  @param target the target eigenvalues
+    *  @return this solver
+    */
+   public KrylovEigenSolver setTarget(Target target) {
+      this.target = target;
+      return this;
+   }
+
+   /** Sets the dimension <i>m</i> of the Krylov subspace. Larger values need more
+    *  memory, but fewer restarts.
+    *  @param m the dimension of the Krylov subspace
+    *  @return this solver
+    *  @throws IllegalArgumentException if m is not between k + 2 and n
+    */
+   public KrylovEigenSolver setSubspaceDimension(int m) {
+      if (m < k + 2 || m > n) {
+         throw new IllegalArgumentException("Subspace dimension not in [" + (k + 2) + ", " + n + "]: " + m);
+      }
+      this.m = m;
+      return this;
+   }
+
+   /** Sets the relative tolerance of the eigenpairs: a Ritz pair (&theta;, <i>x</i>)
+    *  is accepted if ||<i>Ax</i> - &theta;<i>x</i>|| &le; <i>tolerance</i> &middot; |&theta;|.
+    *  @param tolerance the relative tolerance
+    *  @return this solver
+    */
+   public KrylovEigenSolver setTolerance(double tolerance) {
+      this.tolerance = tolerance;
+      return this;
+   }
+
+   /** Sets the maximum number of restarts.
+    *  @param maxRestarts the maximum number of restarts
+    *  @return this solver
+    */
+   public KrylovEigenSolver setMaxRestarts(int maxRestarts) {
+      this.maxRestarts = maxRestarts;
+      return this;
+   }
+
+   /** Returns the real parts of the computed eigenvalues.
+    *  @return the real parts of the eigenvalues
+    */
+   public double[] getRealEigenvalues() {
+      return realEigenvalues;
+   }
+
+   /** Returns the imaginary parts of the computed eigenvalues.
+    *  @return the imaginary parts of the eigenvalues
+    */
+   public double[] getImagEigenvalues() {
+      return imagEigenvalues;
+   }
+
+   /** Returns the <i>n</i>&times;<i>k</i> matrix of the eigenvectors as columns,
+    *  each of unit length, with complex eigenvectors stored as described above.
+    *  @return the eigenvector matrix
+    */
+   public Matrix getV() {
+      return new Matrix(eigenvectors);
+   }
+
+   /** Returns whether all eigenpairs have reached the tolerance. For the target
+    *  {@link Target#LARGEST_REAL} of a nonsymmetric matrix, it is moreover required
+    *  that a run for 2<i>k</i> eigenpairs in a larger subspace from another start
+    *  vector yields the same first <i>k</i> eigenvalues, see {@link #solve()}.
+    *  @return true if and only if the iteration converged
+    */
+   public boolean isConverged() {
+      return converged;
+   }
+
+   /** Returns the number of performed restarts.
+    *  @return the number of restarts
+    */
+   public int getRestarts() {
+      return restarts;
+   }
+
+   /** Computes the eigenpairs. For the target {@link Target#LARGEST_REAL} of a
+    *  nonsymmetric matrix, the residuals of the Ritz pairs do not reveal an eigenvalue
+    *  of larger real part which has not entered the Krylov subspace. Therefore the
+    *  converged eigenvalues are verified by a further run for 2<i>k</i> eigenpairs
+    *  from another start vector with at least the doubled subspace dimension, which is
+    *  repeated until two consecutive runs agree on the first <i>k</i> eigenvalues. If
+    *  they do not agree up to the dimension 8<i>m</i>, the solver is not converged.
+    *  The number of restarts then counts all runs.
+    *  @return this solver
+    */
+   public KrylovEigenSolver solve() {
+      iterate(1, k);
+      if (symmetric || target != Target.LARGEST_REAL) {
+         return this;
+      }
+      // For a nonsymmetric matrix, the exact shifts may filter out an eigenvalue of
+      // largest real part before it has entered the Krylov subspace, while the Ritz
+      // pairs found instead converge. Hence the result is only accepted if a run for
+      // 2k eigenpairs from another start vector in a larger subspace confirms it.
+      int dimension = m, count = Math.min(2 * k, n - 1), totalRestarts = restarts;
+      for (long seed = 2; converged && m < n; seed++) {
+         double[] re = realEigenvalues, im = imagEigenvalues;
+         if (m >= MAX_VERIFICATION_FACTOR * dimension) {
+            converged = false;
+            break;
+         }
+         m = Math.min(n, Math.max(2 * m, 2 * count + 1));
+         iterate(seed, count);
+         totalRestarts += restarts;
+         truncate();
+         if (converged && equal(re, im, realEigenvalues, imagEigenvalues)) break;
+      }
+      m = dimension;
+      restarts = totalRestarts;
+      return this;
+   }
+
+   /** Runs the implicitly restarted Arnoldi method for the given number of eigenpairs
+    *  and subspace dimension m from the random start vector given by the seed, and
+    *  stores the wanted Ritz pairs. */
+   private void iterate(long seed, int count) {
+      double[][] v = new double[m][];      // the Arnoldi basis V_m, row by row
+      double[][] h = new double[m][m];     // the Hessenberg matrix H_m
+      double[] f = new double[n];          // the residual vector of A V_m = V_m H_m + f e_m^T
+      Random random = new Random(seed);
+      for (int i = 0; i < n; i++) {
+         f[i] = random.nextDouble() - .5;
+      }
+      int j = 0; // current length of the factorization
+      restarts = 0;
+
+      while (true) {
+         j = extend(v, h, f, j, random);
+
+         // Ritz values and vectors of H_m, sorted by the target:
+         double[][] hm = new double[m][];
+         for (int i = 0; i < m; i++) {
+            hm[i] = h[i].clone();
+         }
+         if (symmetric) { // remove the rounding errors breaking the symmetry
+            for (int i = 0; i < m; i++) {
+               for (int l = 0; l < i; l++) {
+                  hm[i][l] = hm[l][i] = (hm[i][l] + hm[l][i]) / 2;
+               }
+            }
+         }
+         EigenvalueDecomposition ritz = new EigenvalueDecomposition(new Matrix(hm));
+         final double[] re = ritz.getRealEigenvalues(), im = ritz.getImagEigenvalues();
+         double[][] y = ritz.getV().matrix;
+         Integer[] order = order(re, im);
+         int wanted = count;
+         if (im[order[count - 1]] != 0 && im[order[count]] == -im[order[count - 1]]) {
+            wanted++; // keep complex conjugate pairs together
+         }
+
+         // Residuals of the wanted Ritz pairs: ||A x - theta x|| = ||f|| |e_m^T y|
+         double fNorm = norm(f);
+         converged = true;
+         for (int l = 0; l < wanted && converged; l++) {
+            int c = order[l];
+            double last, length, theta = Math.hypot(re[c], im[c]);
+            if (im[c] == 0) {
+               last = Math.abs(y[m - 1][c]);
+               length = columnNorm(y, c, -1);
+            } else {
+               int p = im[c] > 0 ? c : c - 1; // columns of real and imaginary part
+               last = Math.hypot(y[m - 1][p], y[m - 1][p + 1]);
+               length = columnNorm(y, p, p + 1);
+            }
+            converged = fNorm * last <= tolerance * Math.max(theta, Matrix.EPSILON) * length;
+         }
+
+         if (converged || restarts >= maxRestarts || wanted >= m - 1) {
+            ritzVectors(v, y, re, im, order, wanted);
+            return;
+         }
+
+         // Implicit restart with the unwanted Ritz values as exact shifts:
+         double[][] q = identity(m);
+         for (int l = wanted; l < m; l++) {
+            int c = order[l];
+            if (im[c] == 0) {
+               shift(h, q, re[c], 0, false);
+            } else if (im[c] > 0) { // a complex pair, applied once by a double shift
+               shift(h, q, 2 * re[c], re[c] * re[c] + im[c] * im[c], true);
+            }
+         }
+         // f = v_{k+1} h_{k+1,k} + f q_{m,k}, and V_k = V_m Q(:, 1:k)
+         double beta = h[wanted][wanted - 1], sigma = q[m - 1][wanted - 1];
+         double[][] vk = new double[wanted + 1][n];
+         for (int l = 0; l <= wanted; l++) {
+            for (int i = 0; i < m; i++) {
+               double qil = q[i][l];
+               if (qil != 0) {
+                  double[] vi = v[i], vl = vk[l];
+                  for (int r = 0; r < n; r++) {
+                     vl[r] += qil * vi[r];
+                  }
+               }
+            }
+         }
+         for (int r = 0; r < n; r++) {
+            f[r] = vk[wanted][r] * beta + f[r] * sigma;
+         }
+         for (int l = 0; l < m; l++) {
+            v[l] = l < wanted ? vk[l] : null;
+            for (int i = 0; i < m; i++) {
+               if (l >= wanted || i >= wanted) h[l][i] = 0;
+            }
+         }
+         j = wanted;
+         restarts++;
+      }
+   }
+
+   /** Extends the Arnoldi factorization A V_j = V_j H_j + f e_j^T to length m,
+    *  orthogonalizing each new vector twice (DGKS), and returns m. */
+   private int extend(double[][] v, double[][] h, double[] f, int j, Random random) {
+      double[] w = new double[n];
+      for (int i = j; i < m; i++) {
+         double beta = norm(f);
+         if (i > 0 && beta <= Matrix.EPSILON * Math.max(1, normH(h, i))) {
+            // invariant subspace: continue with a random vector orthogonal to V_i
+            for (int r = 0; r < n; r++) {
+               f[r] = random.nextDouble() - .5;
+            }
+            for (int pass = 0; pass < 2; pass++) {
+               for (int l = 0; l < i; l++) {
+                  axpy(-dot(v[l], f), v[l], f);
+               }
+            }
+            beta = 0;
+         }
+         double fNorm = norm(f);
+         v[i] = new double[n];
+         for (int r = 0; r < n; r++) {
+            v[i][r] = f[r] / fNorm;
+         }
+         if (i > 0) h[i][i - 1] = beta;
+
+         a.apply(v[i], w);
+         System.arraycopy(w, 0, f, 0, n);
+         for (int pass = 0; pass < 2; pass++) {
+            for (int l = 0; l <= i; l++) {
+               double c = dot(v[l], f);
+               h[l][i] += c;
+               axpy(-c, v[l], f);
+            }
+         }
+      }
+      return m;
+   }
+
+   /** Applies a shifted QR step to H and accumulates its orthogonal factor in Q:
+    *  H = Q_s^T H Q_s and Q = Q Q_s, where Q_s is the orthogonal factor of H - s I,
+    *  or of H^2 - s H + t I if double is true. */
+   private void shift(double[][] h, double[][] q, double s, double t, boolean isDouble) {
+      double[][] p = new double[m][m];
+      for (int i = 0; i < m; i++) {
+         for (int l = 0; l < m; l++) {
+            if (isDouble) {
+               double sum = 0;
+               for (int r = 0; r < m; r++) {
+                  sum += h[i][r] * h[r][l];
+               }
+               p[i][l] = sum - s * h[i][l];
+            } else {
+               p[i][l] = h[i][l];
+            }
+         }
+         p[i][i] += isDouble ? t : -s;
+      }
+      double[][] qs = new QRDecomposition(new Matrix(p)).getQ().matrix;
+      double[][] tmp = new double[m][m];
+      // H = Q_s^T H Q_s:
+      for (int i = 0; i < m; i++) {
+         for (int l = 0; l < m; l++) {
+            double sum = 0;
+            for (int r = 0; r < m; r++) {
+               sum += qs[r][i] * h[r][l];
+            }
+            tmp[i][l] = sum;
+         }
+      }
+      for (int i = 0; i < m; i++) {
+         for (int l = 0; l < m; l++) {
+            double sum = 0;
+            for (int r = 0; r < m; r++) {
+               sum += tmp[i][r] * qs[r][l];
+            }
+            h[i][l] = (i > l + 1) ? 0 : sum; // H stays upper Hessenberg
+         }
+      }
+      // Q = Q Q_s:
+      for (int i = 0; i < m; i++) {
+         double[] qi = q[i];
+         double[] row = new double[m];
+         for (int r = 0; r < m; r++) {
+            double qir = qi[r];
+            if (qir != 0) {
+               for (int l = 0; l < m; l++) {
+                  row[l] += qir * qs[r][l];
+               }
+            }
+         }
+         q[i] = row;
+      }
+   }
+
+   /** Stores the wanted Ritz pairs as the result, with unit length eigenvectors x = V_m y. */
+   private void ritzVectors(double[][] v, double[][] y, double[] re, double[] im, Integer[] order, int wanted) {
+      realEigenvalues = new double[wanted];
+      imagEigenvalues = new double[wanted];
+      eigenvectors = new double[n][wanted];
+      for (int l = 0; l < wanted; l++) {
+         int c = order[l];
+         realEigenvalues[l] = re[c];
+         imagEigenvalues[l] = im[c];
+         // the columns c, c+1 of y are the real and imaginary part of the Ritz vector
+         // of the eigenvalue with positive imaginary part at position c:
+         int p = (im[c] < 0) ? c - 1 : c;
+         double length = im[c] == 0 ? columnNorm(y, c, -1) : columnNorm(y, p, p + 1);
+         for (int r = 0; r < n; r++) {
+            double sum = 0;
+            for (int i = 0; i < m; i++) {
+               sum += v[i][r] * y[i][c];
+            }
+            eigenvectors[r][l] = sum / length;
+         }
+      }
+   }
+
+   /** Returns the indices of the Ritz values in the target order, with the eigenvalue
+    *  of positive imaginary part preceding its conjugate. */
+   private Integer[] order(final double[] re, final double[] im) {
+      Integer[] order = new Integer[re.length];
+      for (int i = 0; i < order.length; i++) {
+         order[i] = i;
+      }
+      Arrays.sort(order, new Comparator<Integer>() {
+         public int compare(Integer i, Integer j) {
+            double x = target == Target.LARGEST_REAL ? re[i] : Math.hypot(re[i], im[i]);
+            double y = target == Target.LARGEST_REAL ? re[j] : Math.hypot(re[j], im[j]);
+            if (x != y) return x > y ? -1 : 1;
+            if (re[i] != re[j]) return re[i] > re[j] ? -1 : 1;
+            return im[i] > im[j] ? -1 : (im[i] < im[j] ? 1 : 0);
+         }
+      });
+      return order;
+   }
+
+   /** Reduces the stored eigenpairs to the first k, or k + 1 if the k-th eigenvalue
+    *  is the first of a complex pair. */
+   private void truncate() {
+      int length = Math.min(realEigenvalues.length, imagEigenvalues[k - 1] > 0 ? k + 1 : k);
+      realEigenvalues = Arrays.copyOf(realEigenvalues, length);
+      imagEigenvalues = Arrays.copyOf(imagEigenvalues, length);
+      for (int r = 0; r < n; r++) {
+         eigenvectors[r] = Arrays.copyOf(eigenvectors[r], length);
+      }
+   }
+
+   /** Returns whether the eigenvalues (re, im) and (re2, im2) agree up to the square root
+    *  of the tolerance, relative to the largest magnitude. */
+   private boolean equal(double[] re, double[] im, double[] re2, double[] im2) {
+      if (re.length != re2.length) return false;
+      double max = 0;
+      for (int l = 0; l < re.length; l++) {
+         max = Math.max(max, Math.hypot(re[l], im[l]));
+      }
+      for (int l = 0; l < re.length; l++) {
+         if (Math.hypot(re[l] - re2[l], im[l] - im2[l]) > Math.sqrt(tolerance) * max) return false;
+      }
+      return true;
+   }
+
+   /** Returns the Euclidean norm of column c of y, together with column d if d &ge; 0. */
+   private static double columnNorm(double[][] y, int c, int d) {
+      double sum = 0;
+      for (int i = 0; i < y.length; i++) {
+         sum += y[i][c] * y[i][c];
+         if (d >= 0) sum += y[i][d] * y[i][d];
+      }
+      return Math.sqrt(sum);
+   }
+
+   private static double normH(double[][] h, int j) {
+      double sum = 0;
+      for (int i = 0; i < j; i++) {
+         for (int l = 0; l < j; l++) {
+            sum += h[i][l] * h[i][l];
+         }
+      }
+      return Math.sqrt(sum);
+   }
+
+   private static double[][] identity(int m) {
+      double[][] q = new double[m][m];
+      for (int i = 0; i < m; i++) {
+         q[i][i] = 1;
+      }
+      return q;
+   }
+
+   private static double dot(double[] v, double[] w) {
+      double sum = 0;
+      for (int i = 0; i < v.length; i++) {
+         sum += v[i] * w[i];
+      }
+      return sum;
+   }
+
+   private static double norm(double[] v) {
+      return Math.sqrt(dot(v, v));
+   }
+
+   private static void axpy(double a, double[] x, double[] y) {
+      for (int i = 0; i < y.length; i++) {
+         y[i] += a * x[i];
+      }
+   }
+}
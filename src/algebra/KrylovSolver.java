@@ -0,0 +1,616 @@
+/*
+ * KrylovSolver.java - Iterative solvers of large linear systems
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package algebra;
+
+import java.util.Arrays;
+
+/**
+ * Iterative Krylov subspace solvers of the linear equation <i>Ax = b</i> for
+ * large matrices <i>A</i>, as an alternative to the direct elimination of
+ * {@link Matrix#solve(Matrix)}:
+ * <ul>
+ *   <li>{@link #cg(Operator, double[]) conjugate gradients} (CG) for symmetric
+ *       positive definite matrices,</li>
+ *   <li>{@link #gmres(Operator, double[], int) GMRES(<i>m</i>)}, restarted after
+ *       <i>m</i> steps, for general matrices,</li>
+ *   <li>{@link #bicgstab(Operator, double[]) BiCGSTAB} for general matrices with
+ *       constant memory.</li>
+ * </ul>
+ * The matrix enters only by its product with vectors, given as an {@link Operator};
+ * operators of dense and sparse matrices are created by {@link #operator(Matrix)}
+ * and {@link #operator(SparseMatrix)}. The convergence can be accelerated by a
+ * {@link Preconditioner}, e.g., by {@link #jacobi(SparseMatrix)} or
+ * {@link #ilu0(SparseMatrix)}:
+ * <pre>
+ *    KrylovSolver solver = new KrylovSolver(1e-10, 1000).setPreconditioner(KrylovSolver.ilu0(A));
+ *    KrylovSolver.Result result = solver.bicgstab(KrylovSolver.operator(A), b);
+ *    if (result.isConverged()) x = result.getSolution();
+ * </pre>
+ * An iteration stops as soon as the residual satisfies
+ * ||<i>b - Ax</i>|| &le; <i>tolerance</i> &middot; ||<i>b</i>||, or after the
+ * maximum number of iterations. The residual norm after each iteration is
+ * recorded in the {@link Result} and reported to an optional {@link Listener}.
+ * @author agent
+ * @version 1.0
+ */
+public class KrylovSolver {
+   /** A linear map <i>x</i> &#x21A6; <i>Ax</i> given by its product with vectors.*/
+   public interface Operator {
+      /** Returns the dimension <i>n</i> of the vectors the operator acts on.
+       *  @return the dimension
+       */
+      int getDimension();
+
+      /** Stores the product <i>Ax</i> into <i>y</i>.
+       *  @param x the vector to be multiplied
+       *  @param y the array receiving the product, distinct from x
+       */
+      void apply(double[] x, double[] y);
+   }
+
+   /** An approximation <i>M</i> of <i>A</i> whose equations <i>Mz = r</i> are cheap to solve.*/
+   public interface Preconditioner {
+      /** Stores the solution <i>z</i> of <i>Mz = r</i> into <i>z</i>.
+       *  @param r the right hand side
+       *  @param z the array receiving the solution, distinct from r
+       */
+      void solve(double[] r, double[] z);
+   }
+
+   /** Receives the residual norms of an iteration, for instance to monitor its convergence.*/
+   public interface Listener {
+      /** Is invoked after each iteration.
+       *  @param iteration the number of the iteration, counted from 1
+       *  @param residual the relative residual norm ||<i>b - Ax</i>|| / ||<i>b</i>||
+       */
+      void iterationPerformed(int iteration, double residual);
+   }
+
+   /** The outcome of an iteration.*/
+   public static class Result {
+      private final double[] solution;
+      private final double[] residuals;
+      private final boolean converged;
+
+      Result(double[] solution, double[] residuals, boolean converged) {
+         this.solution = solution;
+         this.residuals = residuals;
+         this.converged = converged;
+      }
+
+      /** Returns the approximate solution <i>x</i>.
+       *  @return the solution
+       */
+      public double[] getSolution() {
+         return solution;
+      }
+
+      /** Returns whether the tolerance was reached.
+       *  @return true if and only if the iteration converged
+       */
+      public boolean isConverged() {
+         return converged;
+      }
+
+      /** Returns the number of performed iterations.
+       *  @return the number of iterations
+       */
+      public int getIterations() {
+         return residuals.length - 1;
+      }
+
+      /** Returns the final relative residual norm ||<i>b - Ax</i>|| / ||<i>b</i>||.
+       *  @return the relative residual norm
+       */
+      public double getResidual() {
+         return residuals[residuals.length - 1];
+      }
+
+      /** Returns the relative residual norms, starting with the initial residual
+       *  before the first iteration.
+       *  @return the relative residual norms of all iterations
+       */
+      public double[] getResiduals() {
+         return residuals.clone();
+      }
+
+      @Override
+      public String toString() {
+         return (converged ? "converged" : "not converged") + " after " + getIterations()
+            + " iterations, residual " + getResidual();
+      }
+   }
+
+   /** The relative tolerance of the residual norm.*/
+   private final double tolerance;
+   /** The maximum number of iterations.*/
+   private final int maxIterations;
+   /** The preconditioner, or null.*/
+   private Preconditioner preconditioner;
+   /** The listener, or null.*/
+   private Listener listener;
+
+   /** Creates a solver with the specified stopping criteria.
+    *  @param tolerance the relative tolerance of the residual norm
+    *  @param maxIterations the maximum number of iterations
+    *  @throws IllegalArgumentException if a parameter is not positive
+    */
+   public KrylovSolver(double tolerance, int maxIterations) {
+      if (!(tolerance > 0) || maxIterations <= 0) {
+         throw new IllegalArgumentException("Tolerance and iterations must be positive");
+      }
+      this.tolerance = tolerance;
+      this.maxIterations = maxIterations;
+   }
+
+   /** Sets the preconditioner.
+    *  @param preconditioner the preconditioner, or null for none
+    *  @return this solver
+    */
+   public KrylovSolver setPreconditioner(Preconditioner preconditioner) {
+      this.preconditioner = preconditioner;
+      return this;
+   }
+
+   /** Sets the listener which is informed about the residual after each iteration.
+    *  @param listener the listener, or null for none
+    *  @return this solver
+    */
+   public KrylovSolver setListener(Listener listener) {
+      this.listener = listener;
+      return this;
+   }
+
+   /* ------------------------
+    + Operators and preconditioners
+    * ------------------------ */
+
+   /** Returns the operator of the specified square matrix.
+    *  @param a a square matrix
+    *  @return the operator <i>x</i> &#x21A6; <i>ax</i>
+    *  @throws IllegalArgumentException if the matrix is not square
+    */
+   public static Operator operator(final Matrix a) {
+      if (!a.isSquare()) {
+         throw new IllegalArgumentException("This matrix is not square.");
+      }
+      return new Operator() {
+         public int getDimension() {
+            return a.rows;
+         }
+
+         public void apply(double[] x, double[] y) {
+            for (int i = 0; i < a.rows; i++) {
+               double[] ai = a.matrix[i];
+               double sum = 0;
+               for (int j = 0; j < a.columns; j++) {
+                  sum += ai[j] * x[j];
+               }
+               y[i] = sum;
+            }
+         }
+      };
+   }
+
+   /** Returns the operator of the specified square sparse matrix.
+    *  @param a a square sparse matrix
+    *  @return the operator <i>x</i> &#x21A6; <i>ax</i>
+    *  @throws IllegalArgumentException if the matrix is not square
+    */
+   public static Operator operator(final SparseMatrix a) {
+      if (!a.isSquare()) {
+         throw new IllegalArgumentException("This matrix is not square.");
+      }
+      return new Operator() {
+         public int getDimension() {
+            return a.getRows();
+         }
+
+         public void apply(double[] x, double[] y) {
+            a.times(x, y);
+         }
+      };
+   }
+
+   /** Returns the Jacobi preconditioner of the specified matrix, i.e., its diagonal.
+    *  @param a a square matrix
+    *  @return the Jacobi preconditioner
+    *  @throws IllegalArgumentException if a diagonal entry is zero
+    */
+   public static Preconditioner jacobi(Matrix a) {
+      double[] d = new double[a.rows];
+      for (int i = 0; i < d.length; i++) {
+         d[i] = a.matrix[i][i];
+      }
+      return jacobi(d);
+   }
+
+   /** Returns the Jacobi preconditioner of the specified sparse matrix, i.e., its diagonal.
+    *  @param a a square sparse matrix
+    *  @return the Jacobi preconditioner
+    *  @throws IllegalArgumentException if a diagonal entry is zero
+    */
+   public static Preconditioner jacobi(SparseMatrix a) {
+      double[] d = new double[a.getRows()];
+      for (int i = 0; i < d.length; i++) {
+         d[i] = a.getValue(i + 1, i + 1);
+      }
+      return jacobi(d);
+   }
+
+   private static Preconditioner jacobi(double[] diagonal) {
+      final double[] inverse = new double[diagonal.length];
+      for (int i = 0; i < inverse.length; i++) {
+         if (diagonal[i] == 0) {
+            throw new IllegalArgumentException("Zero diagonal entry in row " + i);
+         }
+         inverse[i] = 1 / diagonal[i];
+      }
+      return new Preconditioner() {
+         public void solve(double[] r, double[] z) {
+            for (int i = 0; i < inverse.length; i++) {
+               z[i] = inverse[i] * r[i];
+            }
+         }
+      };
+   }
+
+   /** Returns the incomplete LU preconditioner ILU(0) of the specified dense matrix,
+    *  computed from the sparsity pattern of its nonzero entries.
+    *  @param a a square matrix
+    *  @return the ILU(0) preconditioner
+    *  @throws IllegalArgumentException if a pivot is zero
+    */
+   public static Preconditioner ilu0(Matrix a) {
+      return ilu0(new SparseMatrix(a));
+   }
+
+   /** Returns the incomplete LU preconditioner ILU(0) of the specified sparse matrix.
+    *  The factors <i>L</i> and <i>U</i> have the same sparsity pattern as the matrix,
+    *  i.e., all fill-in of the Gaussian elimination is dropped.
+    *  @param a a square sparse matrix
+    *  @return the ILU(0) preconditioner
+    *  @throws IllegalArgumentException if the matrix is not square or a pivot is zero
+    */
+   public static Preconditioner ilu0(SparseMatrix a) {
+      if (!a.isSquare()) {
+         throw new IllegalArgumentException("This matrix is not square.");
+      }
+      final int n = a.getRows();
+      final int[] ptr = a.getRowPointers();
+      final int[] col = a.getColumnIndices();
+      final double[] lu = Arrays.copyOf(a.getValues(), ptr[n]);
+      final int[] diag = new int[n];    // position of the diagonal entry of each row
+      int[] position = new int[n];      // position of each column in the current row, or -1
+      Arrays.fill(position, -1);
+
+      for (int i = 0; i < n; i++) {
+         for (int p = ptr[i]; p < ptr[i + 1]; p++) {
+            position[col[p]] = p;
+         }
+         diag[i] = position[i];
+         if (diag[i] < 0) {
+            throw new IllegalArgumentException("Zero pivot in row " + i);
+         }
+         for (int p = ptr[i]; p < ptr[i + 1] && col[p] < i; p++) {
+            int k = col[p];
+            lu[p] /= lu[diag[k]];                              // l_ik = a_ik / u_kk
+            for (int q = diag[k] + 1; q < ptr[k + 1]; q++) {   // a_ij -= l_ik u_kj within the pattern
+               int r = position[col[q]];
+               if (r >= 0) {
+                  lu[r] -= lu[p] * lu[q];
+               }
+            }
+         }
+         if (lu[diag[i]] == 0) {
+            throw new IllegalArgumentException("Zero pivot in row " + i);
+         }
+         for (int p = ptr[i]; p < ptr[i + 1]; p++) {
+            position[col[p]] = -1;
+         }
+      }
+
+      return new Preconditioner() {
+         public void solve(double[] r, double[] z) {
+            for (int i = 0; i < n; i++) {      // L y = r
+               double sum = r[i];
+               for (int p = ptr[i]; p < diag[i]; p++) {
+                  sum -= lu[p] * z[col[p]];
+               }
+               z[i] = sum;
+            }
+            for (int i = n - 1; i >= 0; i--) { // U z = y
+               double sum = z[i];
+               for (int p = diag[i] + 1; p < ptr[i + 1]; p++) {
+                  sum -= lu[p] * z[col[p]];
+               }
+               z[i] = sum / lu[diag[i]];
+            }
+         }
+      };
+   }
+
+   /* ------------------------
+    + Solvers
+    * ------------------------ */
+
+   /** Solves <i>Ax = b</i> for a symmetric positive definite matrix <i>A</i> by the
+    *  preconditioned conjugate gradient method, starting with <i>x</i> = 0. The
+    *  preconditioner must be symmetric positive definite as well, as the Jacobi
+    *  preconditioner of such a matrix is.
+    *  @param a the operator of the matrix <i>A</i>
+    *  @param b the right hand side
+    *  @return the result of the iteration
+    *  @throws IllegalArgumentException if the dimensions of <i>A</i> and <i>b</i> differ
+    */
+   public Result cg(Operator a, double[] b) {
+      int n = checkDimension(a, b);
+      double[] x = new double[n];
+      double[] r = b.clone();
+      double[] z = new double[n];
+      double[] p = new double[n];
+      double[] ap = new double[n];
+      double bNorm = norm(b);
+      Residuals residuals = new Residuals(bNorm);
+      if (residuals.add(bNorm)) {
+         return residuals.result(x);
+      }
+
+      precondition(r, z);
+      System.arraycopy(z, 0, p, 0, n);
+      double rz = dot(r, z), alpha, beta, rzNew;
+
+      for (int k = 0; k < maxIterations; k++) {
+         a.apply(p, ap);
+         alpha = rz / dot(p, ap);
+         for (int i = 0; i < n; i++) {
+            x[i] += alpha * p[i];
+            r[i] -= alpha * ap[i];
+         }
+         if (residuals.add(norm(r))) break;
+         precondition(r, z);
+         rzNew = dot(r, z);
+         beta = rzNew / rz;
+         rz = rzNew;
+         for (int i = 0; i < n; i++) {
+            p[i] = z[i] + beta * p[i];
+         }
+      }
+      return residuals.result(x);
+   }
+
+   /** Solves <i>Ax = b</i> by the stabilized biconjugate gradient method (BiCGSTAB)
+    *  with right preconditioning, starting with <i>x</i> = 0.
+    *  @param a the operator of the matrix <i>A</i>
+    *  @param b the right hand side
+    *  @return the result of the iteration
+    *  @throws IllegalArgumentException if the dimensions of <i>A</i> and <i>b</i> differ
+    */
+   public Result bicgstab(Operator a, double[] b) {
+      int n = checkDimension(a, b);
+      double[] x = new double[n];
+      double[] r = b.clone();
+      double[] r0 = b.clone();
+      double[] p = new double[n];
+      double[] v = new double[n];
+      double[] y = new double[n];
+      double[] s = new double[n];
+      double[] t = new double[n];
+      double bNorm = norm(b);
+      Residuals residuals = new Residuals(bNorm);
+      if (residuals.add(bNorm)) {
+         return residuals.result(x);
+      }
+      double rho = 1, alpha = 1, omega = 1, rhoNew, beta;
+
+      for (int k = 0; k < maxIterations; k++) {
+         rhoNew = dot(r0, r);
+         if (rhoNew == 0) break; // breakdown
+         beta = (rhoNew / rho) * (alpha / omega);
+         rho = rhoNew;
+         for (int i = 0; i < n; i++) {
+            p[i] = r[i] + beta * (p[i] - omega * v[i]);
+         }
+         precondition(p, y);
+         a.apply(y, v);
+         alpha = rho / dot(r0, v);
+         for (int i = 0; i < n; i++) {
+            x[i] += alpha * y[i];
+            s[i] = r[i] - alpha * v[i];
+         }
+         double sNorm = norm(s);
+         if (sNorm <= tolerance * bNorm) {
+            System.arraycopy(s, 0, r, 0, n);
+            residuals.add(sNorm);
+            break;
+         }
+         precondition(s, y);
+         a.apply(y, t);
+         omega = dot(t, s) / dot(t, t);
+         for (int i = 0; i < n; i++) {
+            x[i] += omega * y[i];
+            r[i] = s[i] - omega * t[i];
+         }
+         if (residuals.add(norm(r)) || omega == 0) break;
+      }
+      return residuals.result(x);
+   }
+
+   /** Solves <i>Ax = b</i> by the generalized minimal residual method, restarted
+    *  after <i>m</i> steps (GMRES(<i>m</i>)) with right preconditioning, starting
+    *  with <i>x</i> = 0. Besides the matrix, the method stores <i>m</i> + 1 vectors.
+    *  @param a the operator of the matrix <i>A</i>
+    *  @param b the right hand side
+    *  @param m the number of steps after which the method is restarted
+    *  @return the result of the iteration
+    *  @throws IllegalArgumentException if the dimensions of <i>A</i> and <i>b</i> differ, or if m &lt; 1
+    */
+   public Result gmres(Operator a, double[] b, int m) {
+      int n = checkDimension(a, b);
+      if (m < 1) {
+         throw new IllegalArgumentException("Restart must be positive: " + m);
+      }
+      double[] x = new double[n];
+      double[] r = b.clone();
+      double[] w = new double[n];
+      double[] z = new double[n];
+      double[][] v = new double[m + 1][];   // orthonormal basis of the Krylov space
+      double[][] h = new double[m + 1][m];  // Hessenberg matrix, triangularized by rotations
+      double[] cs = new double[m], sn = new double[m];
+      double[] g = new double[m + 1];       // rotated right hand side of the least squares problem
+      double bNorm = norm(b);
+      Residuals residuals = new Residuals(bNorm);
+      double beta = bNorm;
+      boolean done = residuals.add(beta);
+
+      while (!done) {
+         v[0] = new double[n];
+         for (int i = 0; i < n; i++) {
+            v[0][i] = r[i] / beta;
+         }
+         Arrays.fill(g, 0.0);
+         g[0] = beta;
+         int k = 0;
+         while (k < m) {
+            // Arnoldi step with modified Gram-Schmidt: w = A M^-1 v_k
+            precondition(v[k], z);
+            a.apply(z, w);
+            for (int i = 0; i <= k; i++) {
+               h[i][k] = dot(w, v[i]);
+               for (int l = 0; l < n; l++) {
+                  w[l] -= h[i][k] * v[i][l];
+               }
+            }
+            double hNext = norm(w);
+            // apply the previous rotations to the new column, and compute a new one:
+            for (int i = 0; i < k; i++) {
+               double tmp = cs[i] * h[i][k] + sn[i] * h[i + 1][k];
+               h[i + 1][k] = -sn[i] * h[i][k] + cs[i] * h[i + 1][k];
+               h[i][k] = tmp;
+            }
+            double rr = Math.hypot(h[k][k], hNext);
+            cs[k] = rr == 0 ? 1 : h[k][k] / rr;
+            sn[k] = rr == 0 ? 0 : hNext / rr;
+            h[k][k] = rr;
+            g[k + 1] = -sn[k] * g[k];
+            g[k] = cs[k] * g[k];
+            k++;
+            done = residuals.add(Math.abs(g[k]));
+            if (done || hNext == 0) break;
+            v[k] = new double[n];
+            for (int l = 0; l < n; l++) {
+               v[k][l] = w[l] / hNext;
+            }
+         }
+         // solve the triangular system H y = g and update x += M^-1 V y
+         double[] y = new double[k];
+         for (int i = k - 1; i >= 0; i--) {
+            double sum = g[i];
+            for (int j = i + 1; j < k; j++) {
+               sum -= h[i][j] * y[j];
+            }
+            y[i] = sum / h[i][i];
+         }
+         Arrays.fill(w, 0.0);
+         for (int j = 0; j < k; j++) {
+            for (int l = 0; l < n; l++) {
+               w[l] += y[j] * v[j][l];
+            }
+         }
+         precondition(w, z);
+         for (int l = 0; l < n; l++) {
+            x[l] += z[l];
+         }
+         if (!done) { // restart with the true residual
+            a.apply(x, w);
+            for (int l = 0; l < n; l++) {
+               r[l] = b[l] - w[l];
+            }
+            beta = norm(r);
+         }
+      }
+      return residuals.result(x);
+   }
+
+   /* ------------------------
+    + Private Methods
+    * ------------------------ */
+
+   /** Records the relative residual norms and decides on convergence. */
+   private class Residuals {
+      private final double bNorm;
+      private double[] values = new double[16];
+      private int size;
+      private boolean converged;
+
+      Residuals(double bNorm) {
+         this.bNorm = bNorm == 0 ? 1 : bNorm;
+      }
+
+      /** Adds the residual norm and returns true if the iteration is to be stopped. */
+      boolean add(double residualNorm) {
+         if (size == values.length) {
+            values = Arrays.copyOf(values, 2 * size);
+         }
+         double residual = residualNorm / bNorm;
+         values[size] = residual;
+         if (size > 0 && listener != null) {
+            listener.iterationPerformed(size, residual);
+         }
+         size++;
+         converged = residual <= tolerance;
+         return converged || size > maxIterations;
+      }
+
+      Result result(double[] x) {
+         return new Result(x, Arrays.copyOf(values, size), converged);
+      }
+   }
+
+   private int checkDimension(Operator a, double[] b) {
+      if (a.getDimension() != b.length) {
+         throw new IllegalArgumentException(
+            "Dimensions of matrix and vector are different: " + a.getDimension() + " != " + b.length
+         );
+      }
+      return b.length;
+   }
+
+   private void precondition(double[] r, double[] z) {
+      if (preconditioner == null) {
+         System.arraycopy(r, 0, z, 0, r.length);
+      } else {
+         preconditioner.solve(r, z);
+      }
+   }
+
+   private static double dot(double[] v, double[] w) {
+      double sum = 0;
+      for (int i = 0; i < v.length; i++) {
+         sum += v[i] * w[i];
+      }
+      return sum;
+   }
+
+   private static double norm(double[] v) {
+      return Math.sqrt(dot(v, v));
+   }
+}
@@ -0,0 +1,227 @@
+/*
+ * LUDecomposition.java - LU decomposition of a square matrix
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package algebra;
+
+/**
+ * LU Decomposition. <p> For a square <i>n</i>&times;<i>n</i> matrix <i>A</i>, the
+ * LU decomposition is a unit lower triangular matrix <i>L</i>, an upper triangular
+ * matrix <i>U</i> and a permutation of the rows of <i>A</i> such that
+ * <i>PA = LU</i>, where <i>P</i> denotes the permutation matrix.
+ * The decomposition is computed once by Crout's algorithm with implicit
+ * partial pivoting, as in {@link Matrix#det()} and {@link Matrix#inverse()},
+ * and can then be applied to any number of right hand sides without
+ * refactoring the matrix:
+ * <pre>
+ *    LUDecomposition lu = new LUDecomposition(A);
+ *    double[] x = lu.solve(b);
+ *    Matrix X = lu.solve(B);   // all columns of B at once
+ * </pre>
+ * A matrix is considered singular if a pivot is smaller than {@link Matrix#EPSILON}
+ * in absolute value. The decomposition of a singular matrix can be constructed,
+ * but it can only provide its determinant 0.
+ * @author agent
+ * @version 1.0
+ */
+public class LUDecomposition {
+   /** Array for internal storage of L below and of U on and above the diagonal.*/
+   private final double[][] LU;
+   /** The row interchanges: in step <i>i</i> the rows <i>i</i> and <i>indx[i]</i> are swapped.*/
+   private final int[] indx;
+   /** Row and column dimension.*/
+   private final int n;
+   /** The determinant of the decomposed matrix.*/
+   private final double det;
+   /** Flag whether the decomposed matrix is nonsingular.*/
+   private final boolean nonsingular;
+
+   /**
+    * Constructs the LU decomposition of the specified matrix.
+    * @param A a square matrix
+    * @throws IllegalArgumentException if the matrix is not square
+    */
+   public LUDecomposition(Matrix A) {
+      if (!A.isSquare()) {
+         throw new IllegalArgumentException("Not a square matrix: ("+A.rows+"x"+A.columns+")");
+      }
+      n = A.rows;
+      LU = A.getMatrix();
+      indx = new int[n];
+      double d = 0;
+      boolean decomposed = false;
+      try {
+         d = Matrix.luDecompose(LU, indx);
+         for (int j = 0; j < n; j++)  d *= LU[j][j];
+         decomposed = true;
+      } catch (IllegalArgumentException iae) {
+         d = 0;
+      }
+      det = d;
+      nonsingular = decomposed;
+   }
+
+   /**
+    * Returns whether the decomposed matrix is nonsingular.
+    * @return true if and only if the matrix is nonsingular
+    */
+   public boolean isNonsingular() {
+      return nonsingular;
+   }
+
+   /**
+    * Returns the determinant of the decomposed matrix.
+    * @return the determinant
+    */
+   public double det() {
+      return det;
+   }
+
+   /**
+    * Returns the unit lower triangular factor <i>L</i>.
+    * @return <i>L</i>
+    * @throws IllegalArgumentException if the matrix is singular
+    */
+   public Matrix getL() {
+      checkNonsingular();
+      Matrix L = new Matrix(n, n);
+      for (int i = 0; i < n; i++) {
+         System.arraycopy(LU[i], 0, L.matrix[i], 0, i);
+         L.matrix[i][i] = 1.0;
+      }
+      return L;
+   }
+
+   /**
+    * Returns the upper triangular factor <i>U</i>.
+    * @return <i>U</i>
+    * @throws IllegalArgumentException if the matrix is singular
+    */
+   public Matrix getU() {
+      checkNonsingular();
+      Matrix U = new Matrix(n, n);
+      for (int i = 0; i < n; i++) {
+         System.arraycopy(LU[i], i, U.matrix[i], i, n - i);
+      }
+      return U;
+   }
+
+   /**
+    * Returns the row permutation: row <i>i</i> of <i>LU</i> is row
+    * <code>getPivot()[i]</code> of the decomposed matrix.
+    * @return the pivot vector
+    * @throws IllegalArgumentException if the matrix is singular
+    */
+   public int[] getPivot() {
+      checkNonsingular();
+      int[] piv = new int[n];
+      for (int i = 0; i < n; i++) {
+         piv[i] = i;
+      }
+      for (int i = 0; i < n; i++) {
+         int tmp = piv[i];
+         piv[i] = piv[indx[i]];
+         piv[indx[i]] = tmp;
+      }
+      return piv;
+   }
+
+   /**
+    * Solves the linear equation <i>Ax = b</i>.
+    * @param b a vector with <i>n</i> entries
+    * @return the solution <i>x</i>
+    * @throws IllegalArgumentException if the matrix is singular or the dimension of <i>b</i> does not fit
+    */
+   public double[] solve(double[] b) {
+      checkNonsingular();
+      if (b.length != n) {
+         throw new IllegalArgumentException("b is not an n-dimensional vector: length="+b.length);
+      }
+      return Matrix.luBacksubst(LU, indx, b);
+   }
+
+   /**
+    * Solves the linear equation <i>AX = B</i> for all columns of <i>B</i> at once.
+    * The substitutions run row by row over the right hand sides, such that the
+    * innermost loops scan rows of <i>X</i> sequentially.
+    * @param B a matrix with <i>n</i> rows
+    * @return the solution <i>X</i>
+    * @throws IllegalArgumentException if the matrix is singular or the number of rows of <i>B</i> does not fit
+    */
+   public Matrix solve(Matrix B) {
+      checkNonsingular();
+      if (B.rows != n) {
+         throw new IllegalArgumentException("B has not n rows: rows="+B.rows);
+      }
+      int m = B.columns;
+      double[][] X = B.getMatrix();
+      double[] xi, xk, tmp;
+      double lik;
+
+      // Apply the row interchanges:
+      for (int i = 0; i < n; i++) {
+         tmp = X[i];
+         X[i] = X[indx[i]];
+         X[indx[i]] = tmp;
+      }
+      // Solve L*Y = P*B:
+      for (int i = 1; i < n; i++) {
+         xi = X[i];
+         for (int k = 0; k < i; k++) {
+            lik = LU[i][k];
+            if (lik != 0) {
+               xk = X[k];
+               for (int j = 0; j < m; j++) {
+                  xi[j] -= lik * xk[j];
+               }
+            }
+         }
+      }
+      // Solve U*X = Y:
+      for (int i = n - 1; i >= 0; i--) {
+         xi = X[i];
+         for (int k = i + 1; k < n; k++) {
+            lik = LU[i][k];
+            xk = X[k];
+            for (int j = 0; j < m; j++) {
+               xi[j] -= lik * xk[j];
+            }
+         }
+         for (int j = 0; j < m; j++) {
+            xi[j] /= LU[i][i];
+         }
+      }
+      return new Matrix(X, n, m);
+   }
+
+   /**
+    * Returns the inverse of the decomposed matrix.
+    * @return the inverse
+    * @throws IllegalArgumentException if the matrix is singular
+    */
+   public Matrix inverse() {
+      return solve(Matrix.createIdentity(n));
+   }
+
+   private void checkNonsingular() {
+      if (!nonsingular) {
+         throw new IllegalArgumentException("Singular matrix!");
+      }
+   }
+}
@@ -27,11 +27,11 @@
  * If you do not wish to do so, delete this exception statement from your version.
  */
 package algebra;
-import java.math.BigDecimal;
 import java.math.MathContext;
-import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import numbers.Numbers;
 /** 
  * This class enables to construct a matrix which can be manipulated by various
@@ -50,6 +50,16 @@ public class Matrix {
     *  For instance, this is important to decide whether a matrix is invertible.
     */
    public static final double EPSILON = 1e-10;
+   /** Edge length of the square tiles in which {@link #times(Matrix)} traverses
+    *  the factors, chosen such that a tile of each factor fits into the L1/L2 cache.*/
+   private static final int BLOCK_SIZE = 64;
+   /** Number of floating-point operations from which on {@link #times(Matrix)} and the
+    *  decompositions distribute their loops over the fork-join pool.*/
+   private static final double PARALLEL_THRESHOLD = 1 << 21;
+   /** Number of threads of the parallel matrix algorithms, see {@link #setParallelism(int)}.*/
+   private static volatile int parallelism = ForkJoinPool.getCommonPoolParallelism();
+   /** The pool running the parallel matrix algorithms.*/
+   private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
    /** Internally fixed number format.*/
    private static final java.text.DecimalFormat numberFormat = 
            util.Formats.O_DOT_A3;
@@ -66,6 +76,10 @@ public class Matrix {
    protected double[] dominantEigenvector;
    /** The eigenvalue decomposition of this matrix. It is null initially and will be computed if necessary.*/
    protected EigenvalueDecomposition eigenvalueDecomposition;
+   /** The singular values of this matrix, without the singular vectors. It is null 
+    *  initially and will be computed if necessary by {@link #norm2()}, {@link #rank()}
+    *  or {@link #cond()}.*/
+   protected SingularValueDecomposition singularValueDecomposition;
    
    /** Constructs a zero matrix with the given rows and columns.
     *  @param rows the number of rows of this matrix
@@ -78,6 +92,7 @@ public class Matrix {
       dominantEigenvalue = Double.NaN;
       dominantEigenvector = null;
       eigenvalueDecomposition = null;
+      singularValueDecomposition = null;
    }
    
    /** Constructs a matrix from the given two-dimensional array.
@@ -90,6 +105,7 @@ public class Matrix {
       dominantEigenvalue = Double.NaN;
       dominantEigenvector = null;
       eigenvalueDecomposition = null;
+      singularValueDecomposition = null;
    }
    
    /** Constructs a matrix from the given two-dimensional array.
@@ -107,6 +123,7 @@ public class Matrix {
       dominantEigenvalue = Double.NaN;
       dominantEigenvector = null;
       eigenvalueDecomposition = null;
+      singularValueDecomposition = null;
    }
    
    /** Constructs a matrix from the given two-dimensional array.
@@ -121,6 +138,7 @@ public class Matrix {
       dominantEigenvalue = Double.NaN;
       dominantEigenvector = null;
       eigenvalueDecomposition = null;
+      singularValueDecomposition = null;
    }
    
    /** Constructs a matrix (1 &times; <i>n</i>) matrix from the given one-dimensional array.
@@ -134,6 +152,7 @@ public class Matrix {
       dominantEigenvalue = Double.NaN;
       dominantEigenvector = null;
       eigenvalueDecomposition = null;
+      singularValueDecomposition = null;
    }
    
    /**
@@ -230,7 +249,15 @@ public class Matrix {
       }
       return a;
    }
-  
+
+   /** Returns a copy of this matrix whose entries are stored row by row in a
+    *  single contiguous array.
+    *  @return this matrix as a {@link FlatMatrix}
+    */
+   public FlatMatrix toFlatMatrix() {
+      return new FlatMatrix(this);
+   }
+
    /** Returns the value of the matrix position given by the parameters row and col
     *  in the usual mathematical convention, that is, both indices are
     *  counted from 1 and terminate at the maximum number of rows or columns, respectively.
@@ -251,6 +278,10 @@ public class Matrix {
     */
    public void setValue(int row, int col, double value) {
        matrix[row - 1][col - 1] = value;
+       dominantEigenvalue = Double.NaN;
+       dominantEigenvector = null;
+       eigenvalueDecomposition = null;
+       singularValueDecomposition = null;
    }
    
    /** Returns whether this matrix is square.
@@ -308,7 +339,10 @@ public class Matrix {
     * @see SingularValueDecomposition#norm2()
     */
    public double norm2() {
-      return new SingularValueDecomposition(this).norm2();
+      if (singularValueDecomposition == null) {
+         singularValueDecomposition = new SingularValueDecomposition(this, false);
+      }
+      return singularValueDecomposition.norm2();
    }
    
    /**
@@ -326,7 +360,10 @@ public class Matrix {
     * @see SingularValueDecomposition#rank()
     */
    public int rank() {
-      return new SingularValueDecomposition(this).rank();
+      if (singularValueDecomposition == null) {
+         singularValueDecomposition = new SingularValueDecomposition(this, false);
+      }
+      return singularValueDecomposition.rank();
    }
    
    /**
@@ -345,7 +382,10 @@ public class Matrix {
     * @see SingularValueDecomposition#cond()
     */
    public double cond() {
-      return new SingularValueDecomposition(this).cond();
+      if (singularValueDecomposition == null) {
+         singularValueDecomposition = new SingularValueDecomposition(this, false);
+      }
+      return singularValueDecomposition.cond();
    }
 
    /** Computes the determinant of this matrix. 
@@ -355,31 +395,45 @@ public class Matrix {
     *  @throws IllegalArgumentException if this matrix is not square
     */
    public double det() {
-	   if (rows != columns) {
-	         throw new IllegalArgumentException("Not a square matrix: ("+rows+"x"+columns+")");
-	      }
-	      double[][] a = new double[rows][columns]; 
-	      for (int i = 0; i < rows; i++) {
-	         System.arraycopy(matrix[i], 0, a[i], 0, columns);
-	      }
-	      int indx [] = new int[rows];
-	      double d_ = 0;
-	      try {
-	         d_ = luDecompose(a, indx);
-	         for (int j = 0; j < rows; j++)  d_ *= a[j][j];
-	      } catch (IllegalArgumentException iae) {}
-	      return d_;
+      if (rows != columns) {
+         throw new IllegalArgumentException("Not a square matrix: ("+rows+"x"+columns+")");
+      }
+      return luDeterminant(getMatrix(), new int[rows]);
    }
 
    /** Computes the <i>n</i>-th power of this matrix. 
     *  An exception is thrown if this matrix is not square, since then
     *  the multiplication of a matrix with itself is not defined mathematically.
+    *  The power is computed by repeated squaring, i.e., with at most
+    *  2 log<sub>2</sub> |<i>n</i>| matrix multiplications.
     *  @param n the exponent
     *  @return the <i>n</i>-th power of this matrix
     *  @throws IllegalArgumentException if this matrix is not square, or 
     *  if <i>n</i> is negative and not invertible.
+    *  @see #pow(int, boolean)
     */
    public Matrix pow(int n) {
+      return pow(n, false);
+   }
+
+   /** Computes the <i>n</i>-th power of this matrix, optionally by diagonalization.
+    *  If <code>diagonalize</code> is true and this matrix <i>A</i> is symmetric,
+    *  the power is obtained from the
+    *  {@link EigenvalueDecomposition eigenvalue decomposition} <i>A = VDV<sup>T</sup></i>
+    *  as <i>A<sup>n</sup> = VD<sup>n</sup>V<sup>T</sup></i>, which needs a single
+    *  matrix multiplication for any exponent. The decomposition is computed once
+    *  and reused by subsequent calls, as by {@link #getRealEigenvalues()}, until
+    *  an entry is changed by {@link #setValue(int, int, double)}, which discards it.
+    *  Otherwise, the power is computed by repeated squaring.
+    *  An exception is thrown if this matrix is not square, since then
+    *  the multiplication of a matrix with itself is not defined mathematically.
+    *  @param n the exponent
+    *  @param diagonalize whether a symmetric matrix is to be powered by its eigenvalue decomposition
+    *  @return the <i>n</i>-th power of this matrix
+    *  @throws IllegalArgumentException if this matrix is not square, or 
+    *  if <i>n</i> is negative and not invertible.
+    */
+   public Matrix pow(int n, boolean diagonalize) {
       if (rows != columns) {
          throw new IllegalArgumentException("Not a square matrix: ("+rows+"x"+columns+")");
       }
@@ -388,26 +442,60 @@ public class Matrix {
          throw new IllegalArgumentException("Negative power of a non-invertible matrix: "+n);
       }
 
-      Matrix base;
-      Matrix power = new Matrix(rows,columns);
-      
-      if (n<0) {
-         base = this.inverse();
-         n = -n;
-      } else {
-         base = this;
-      }      
+      if (n == 0) {
+         return createIdentity(rows);
+      }
       
-      // Start with the identity matrix:
-      for (int i = 0; i < rows; i++) {
-         power.matrix[i][i] = 1;
+      if (diagonalize && isSymmetric()) {
+         if (eigenvalueDecomposition == null) {
+            eigenvalueDecomposition = new EigenvalueDecomposition(this);
+         }
+         double[][] v = eigenvalueDecomposition.getV().matrix;
+         double[] d = eigenvalueDecomposition.getRealEigenvalues();
+         double[] dn = new double[rows];
+         for (int k = 0; k < rows; k++) {
+            dn[k] = Math.pow(d[k], n);
+         }
+         double[][] w = new double[rows][rows];  // w = V D^n
+         double[][] vt = new double[rows][rows]; // V^T
+         for (int i = 0; i < rows; i++) {
+            for (int k = 0; k < rows; k++) {
+               w[i][k] = v[i][k] * dn[k];
+               vt[k][i] = v[i][k];
+            }
+         }
+         Matrix power = new Matrix(rows, columns);
+         multiply(w, vt, power.matrix, rows, rows, rows);
+         return power;
       }
+
+      // base and power are squared and multiplied in place, the results of
+      // each product are written to the spare buffer which then changes roles:
+      double[][] base = (n < 0) ? this.inverse().matrix : this.getMatrix();
+      double[][] power = null;
+      double[][] spare = new double[rows][columns];
+      double[][] swap;
+      long e = Math.abs((long) n);
       
-      for (int i = 1; i <= n; i++) {
-         power = power.times(base);
+      while (true) {
+         if ((e & 1) == 1) {
+            if (power == null) {
+               power = new double[rows][];
+               for (int i = 0; i < rows; i++) {
+                  power[i] = base[i].clone();
+               }
+            } else {
+               multiply(power, base, spare, rows, rows, rows);
+               swap = power; power = spare; spare = swap;
+            }
+         }
+         e >>= 1;
+         if (e == 0) break;
+         multiply(base, base, spare, rows, rows, rows);
+         swap = base; base = spare; spare = swap;
       }
       
-      return power;
+      return new Matrix(power, rows, columns);
    }
    
    /**
@@ -600,9 +688,22 @@ public class Matrix {
          throw new IllegalArgumentException("Not a square matrix: ("+rows+"x"+columns+")");
       }
       Matrix adj = new Matrix(rows, columns);
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < columns; j++) {
-            adj.matrix [i][j] = cofactor(j,i);
+      double[][] a = getMatrix();
+      int indx [] = new int[rows];
+      double d = luDeterminant(a, indx);
+      if (d != 0) {                                   // adj(A) = det(A) A^{-1}
+         double [] col = new double[rows];
+         for (int j = 0; j < rows; j++) {
+            Arrays.fill(col, 0.0);
+            col[j] = d;
+            col = luBacksubst(a, indx, col);
+            for (int i = 0; i < rows; i++)  adj.matrix[i][j] = col[i];
+         }
+      } else {                                        // singular: expand by cofactors
+         for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+               adj.matrix [i][j] = cofactor(j,i);
+            }
          }
       }
       return adj;
@@ -614,25 +715,7 @@ public class Matrix {
     *  @throws IllegalArgumentException if the matrix is not invertible
     */
    public Matrix inverse() {
-      if (rows != columns) {
-         throw new IllegalArgumentException("Not a square matrix: ("+rows+"x"+columns+")");
-      }
-      Matrix inv = new Matrix(rows, columns);
-      double[][] a = new double[rows][columns];
-      for (int i = 0; i < rows; i++) { // copy by value
-         System.arraycopy(matrix[i], 0, a[i], 0, columns);
-      }
-      int indx [] = new int[rows];
-      double [] col = new double[rows];
-      
-      luDecompose(a, indx);                           // LU-decompose matrix a
-      for (int j = 0; j < rows; j++) {                // find inverse by columns
-         for (int i = 0; i < rows; i++)  col[i] = 0.0;
-         col[j] = 1.0;
-         col = luBacksubst(a, indx, col);
-         for (int i = 0; i < rows; i++)  inv.matrix[i][j] = col[i];
-      }
-      return inv;
+      return decomposeLU().inverse();
    }
   
    /** Returns the cofactor <i>C<sub>ij</sub></i> = (-1)<sup><i>i</i> + <i>j</i></sup> <i>M<sub>ij</sub></i>
@@ -646,6 +729,9 @@ public class Matrix {
     *  @throws IllegalArgumentException if the matrix is not square
     */
    public double cofactor(int i, int j) {
+      if (rows != columns) {
+         throw new IllegalArgumentException("Not a square matrix: ("+rows+"x"+columns+")");
+      }
       int kCorrect = 0, lCorrect;
       Matrix minorMatrix = new Matrix (rows - 1, columns - 1);
       for (int k = 0; k < rows - 1; k++) {
@@ -656,7 +742,8 @@ public class Matrix {
             minorMatrix.matrix[k][l] = matrix[k + kCorrect][l + lCorrect];
          }
       }
-      return Math.pow(-1, i+j) * minorMatrix.det();
+      double minor = minorMatrix.det();
+      return ((i + j) % 2 == 0) ? minor : -minor;
    }
   
    /** Returns the transpose of this matrix.
@@ -791,6 +878,9 @@ public class Matrix {
    }
   
    /** Returns the (right) product of this matrix with the given matrix b.
+    *  The product is computed block by block in a cache-friendly order;
+    *  for large matrices the row blocks are computed in parallel on the
+    *  common fork-join pool.
     *  @param b the matrix to multiply this matrix from right
     *  @return the right product of this matrix and the input matrix b
     *  @throws IllegalArgumentException if number of columns of this matrix is
@@ -803,15 +893,144 @@ public class Matrix {
             columns + "!=" + b.getRows()
          );
       }
-      Matrix c = new Matrix(rows, b.getColumns());
-      for (int i = 0; i < rows; i++) {
-         for (int j = 0; j < b.getColumns(); j++) {
-            for (int k = 0; k < columns; k++) {
-               c.matrix[i][j] += matrix[i][k] * b.getMatrix()[k][j];
+      Matrix c = new Matrix(rows, b.columns);
+      multiply(matrix, b.matrix, c.matrix, rows, columns, b.columns);
+      return c;
+   }
+  
+   /** Stores the product of the <i>l</i> &times; <i>m</i> matrix <i>a</i> and the
+    *  <i>m</i> &times; <i>n</i> matrix <i>b</i> into <i>c</i>, which must be distinct
+    *  from both factors. For large matrices the row blocks are computed in parallel.
+    */
+   private static void multiply(double[][] a, double[][] b, double[][] c, int l, int m, int n) {
+      for (int i = 0; i < l; i++) {
+         Arrays.fill(c[i], 0, n, 0.0);
+      }
+      final double[][] a_ = a, b_ = b, c_ = c;
+      final int l_ = l, m_ = m, n_ = n;
+      // the row blocks of c are computed independently:
+      new ParallelLoop() {
+         void run(int from, int to) {
+            multiply(a_, b_, c_, from * BLOCK_SIZE, Math.min(to * BLOCK_SIZE, l_), m_, n_);
+         }
+      }.invoke(0, (l + BLOCK_SIZE - 1) / BLOCK_SIZE, 2.0 * l * m * n);
+   }
+  
+   /** Computes the rows <i>from</i>, ..., <i>to</i> - 1 of the product <i>c</i> = <i>ab</i>
+    *  of the <i>l</i> &times; <i>m</i> matrix <i>a</i> and the <i>m</i> &times; <i>n</i> matrix <i>b</i>,
+    *  where <i>c</i> is assumed to be zero initially.
+    *  The loops run in the order <i>i-k-j</i> over square tiles of size {@link #BLOCK_SIZE},
+    *  such that the innermost loop scans rows of <i>b</i> and <i>c</i> sequentially.
+    *  Each entry <i>c<sub>ij</sub></i> still accumulates the products
+    *  <i>a<sub>ik</sub> b<sub>kj</sub></i> in ascending order of <i>k</i>, so the result
+    *  equals the one of the plain triple loop bit by bit.
+    */
+   private static void multiply(double[][] a, double[][] b, double[][] c, int from, int to, int m, int n) {
+      double[] ci, bk;
+      double aik;
+      for (int ii = from; ii < to; ii += BLOCK_SIZE) {
+         int iMax = Math.min(ii + BLOCK_SIZE, to);
+         for (int kk = 0; kk < m; kk += BLOCK_SIZE) {
+            int kMax = Math.min(kk + BLOCK_SIZE, m);
+            for (int jj = 0; jj < n; jj += BLOCK_SIZE) {
+               int jMax = Math.min(jj + BLOCK_SIZE, n);
+               for (int i = ii; i < iMax; i++) {
+                  ci = c[i];
+                  for (int k = kk; k < kMax; k++) {
+                     aik = a[i][k];
+                     bk = b[k];
+                     for (int j = jj; j < jMax; j++) {
+                        ci[j] += aik * bk[j];
+                     }
+                  }
+               }
             }
          }
       }
-      return c;
+   }
+   
+   /** Sets the number of threads used by the parallel matrix algorithms, i.e.,
+    *  by {@link #times(Matrix)}, the {@link QRDecomposition} and the
+    *  {@link EigenvalueDecomposition} of symmetric matrices. Initially it is the
+    *  parallelism of the common fork-join pool; for 1 all computations are sequential.
+    *  It is safe to change the parallelism while other threads are computing: they
+    *  complete their current loops on the previous pool, which is not shut down,
+    *  since the workers of an idle fork-join pool terminate by themselves.
+    *  @param threads the number of threads
+    *  @throws IllegalArgumentException if threads &lt; 1
+    */
+   public static synchronized void setParallelism(int threads) {
+      if (threads < 1) {
+         throw new IllegalArgumentException("Number of threads < 1: " + threads);
+      }
+      if (threads == ForkJoinPool.getCommonPoolParallelism()) {
+         pool = ForkJoinPool.commonPool();
+      } else if (threads != parallelism) {
+         pool = new ForkJoinPool(threads);
+      }
+      parallelism = threads;
+   }
+   
+   /** Returns the number of threads used by the parallel matrix algorithms.
+    *  @return the number of threads
+    *  @see #setParallelism(int)
+    */
+   public static int getParallelism() {
+      return parallelism;
+   }
+   
+   /** A loop whose iterations <i>from</i>, ..., <i>to</i> - 1 are independent of each
+    *  other, such as the rows of a matrix product or the columns of a Householder update.
+    *  The method {@link #invoke(int, int, double)} runs it sequentially, or for enough
+    *  work split into chunks on the pool of the parallel matrix algorithms.
+    *  Each chunk must write disjoint data, so that no synchronization is needed.
+    */
+   abstract static class ParallelLoop {
+      /** Runs the iterations <i>from</i>, ..., <i>to</i> - 1. */
+      abstract void run(int from, int to);
+      
+      /** Runs the iterations <i>from</i>, ..., <i>to</i> - 1, in parallel if the
+       *  number of floating-point operations exceeds {@link Matrix#PARALLEL_THRESHOLD}. */
+      final void invoke(int from, int to, double work) {
+         ForkJoinPool pool = Matrix.pool; // may be replaced concurrently by setParallelism
+         int threads = parallelism;
+         int chunks = Math.min(to - from, 4 * threads);
+         if (threads == 1 || chunks < 2 || work < PARALLEL_THRESHOLD) {
+            run(from, to);
+         } else {
+            pool.invoke(new Chunks(this, from, to, chunks));
+         }
+      }
+   }
+   
+   /** Task running a range of iterations of a parallel loop. It halves the range
+    *  until it consists of a single chunk.
+    */
+   private static class Chunks extends RecursiveAction {
+      private static final long serialVersionUID = 1L;
+      private final ParallelLoop loop;
+      private final int from, to, chunks;
+      
+      Chunks(ParallelLoop loop, int from, int to, int chunks) {
+         this.loop = loop;
+         this.from = from;
+         this.to = to;
+         this.chunks = chunks;
+      }
+      
+      @Override
+      protected void compute() {
+         if (chunks == 1) {
+            loop.run(from, to);
+         } else {
+            int half = chunks / 2;
+            int mid = from + (int) ((long) (to - from) * half / chunks);
+            invokeAll(
+               new Chunks(loop, from, mid, half),
+               new Chunks(loop, mid, to, chunks - half)
+            );
+         }
+      }
    }
   
    /** Returns the (right) product of this matrix with the given column vector v.
@@ -848,29 +1067,18 @@ public class Matrix {
       }
       return y;
    }
+   /** Returns the (right) product of this matrix with the given matrix B.
+    *  It equals {@link #times(Matrix)}.
+    *  @param B the matrix to multiply this matrix from right
+    *  @return the right product of this matrix and the input matrix B
+    *  @throws IllegalArgumentException if number of columns of this matrix is
+    *  different from the number of rows of <i>B</i>
+    */
    public  Matrix Multiply( Matrix B) {
-
-       int aRows = this.rows;
-       int aColumns = this.columns;
-       int bRows = B.rows;
-       int bColumns = B.columns;
-
-       if (aColumns != bRows) {
-           throw new IllegalArgumentException("A:Rows: " + aColumns + " did not match B:Columns " + bRows + ".");
+       if (this.columns != B.rows) {
+           throw new IllegalArgumentException("A:Rows: " + this.columns + " did not match B:Columns " + B.rows + ".");
        }
-
-       Matrix C = new Matrix (aRows,bColumns);
-
-       for (int i = 1; i <= aRows; i++) { // aRow
-           for (int j = 1; j <= bColumns; j++) { // bColumn
-               for (int k = 1; k <= aColumns; k++) { // aColumn
-            	   C.setValue(i, j, C.getValue(i, j)+this.getValue(i, k)*B.getValue(k, j));
-                   //C[i][j] += A[i][k] * B[k][j];
-               }
-           }
-       }
-
-       return C;
+       return times(B);
    }
    /** Returns the scalar product of the vectors v and w.
     *  @param v a row vector
@@ -967,16 +1175,7 @@ public class Matrix {
       if (b.getRows() != rows) {
          throw new IllegalArgumentException("b is not an n-dimensional vector: rows="+b.getRows());
       }
-      Matrix x = new Matrix(rows, 1);
-      double[][] a = this.getMatrix();
-      int indx [] = new int[rows];
-      double[] bv = new double[rows];
-      double[] v;
-      for (int i = 0; i < rows; i++)  bv[i] = b.matrix[i][0]; // copy by value
-      luDecompose(a, indx); // return value ignored, used as a void method to change a and indx
-      v = luBacksubst(a, indx, bv);
-      for (int i = 0; i < rows; i++)  x.matrix[i][0] = v[i];
-      return x;
+      return decomposeLU().solve(b);
    }
    
    /** Returns the QR decomposition of this matrix as a pair of matrices.
@@ -986,85 +1185,19 @@ public class Matrix {
     *  @throws IllegalArgumentException if this matrix has more columns than rows.
     */
    public Matrix[] decomposeQR() {
-      if (rows < columns) {
-         throw new IllegalArgumentException(
-           "This matrix is not decomposable: "+rows+" rows < "+columns+" columns"
-         );
-      }
-      int m = rows, n = columns;
-      int i, j, k;
-      double norm, s;
-      double[][] QR = new double[rows][columns]; // Array for internal storage of decomposition
-      double[] Rdiag = new double[n];
-      Matrix Q = new Matrix(rows,columns);
-      Matrix R = new Matrix(columns,columns);      
-      
-      for (i = 0; i < rows; i++) {
-         for (j = 0; j < columns; j++) {
-            QR[i][j] = matrix[i][j];
-         }
-      }
-
-      for (k = 0; k < n; k++) {
-         // Compute 2-norm of k-th column without under/overflow.
-         norm = 0;
-         for (i = k; i < m; i++) {
-            norm = Numbers.hypotenuse(norm, QR[i][k]);
-         }
-
-         if (norm != 0.0) {
-            // Form k-th Householder vector.
-            if (QR[k][k] < 0) {
-               norm = -norm;
-            }
-            for (i = k; i < m; i++) {
-               QR[i][k] /= norm;
-            }
-            QR[k][k] += 1.0;
+      QRDecomposition qr = new QRDecomposition(this);
+      return new Matrix[]{qr.getQ(), qr.getR()};
+   }
 
-            // Apply transformation to remaining columns.
-            for (j = k+1; j < n; j++) {
-               s = 0.0;
-               for (i = k; i < m; i++) {
-                  s += QR[i][k] * QR[i][j];
-               }
-               s = -s / QR[k][k];
-               for (i = k; i < m; i++) {
-                  QR[i][j] += s * QR[i][k];
-               }
-            }
-         }
-         Rdiag[k] = norm;
-      }
-      
-      // Compute Q:
-      for (k = n-1; k >= 0; k--) {
-         Q.matrix[k][k] = -1.0;
-         for (j = k; j < n; j++) {
-            if (QR[k][k] != 0) {
-               s = 0.0;
-               for (i = k; i < m; i++) {
-                  s -= QR[i][k]*Q.matrix[i][j];
-               }
-               s = -s/QR[k][k]; // ??
-               for (i = k; i < m; i++) {
-                  Q.matrix[i][j] -= s*QR[i][k];
-               }
-            }
-         }
-      }
-      
-      // Compute R:
-      for (i = 0; i < columns; i++) {
-         for (j = 0; j < columns; j++) {
-            if (i < j) {
-               R.matrix[i][j] = -QR[i][j];
-            } else if (i == j) {
-               R.matrix[i][j] = Rdiag[i];
-            }
-         }
-      }
-      return new Matrix[]{Q, R};
+   /** Returns the LU decomposition of this matrix. It can be used to solve
+    *  linear equations with this matrix for many right hand sides, or to compute
+    *  both the determinant and the inverse, with a single factorization.
+    *  @return the LU decomposition of this matrix
+    *  @throws IllegalArgumentException if this matrix is not square
+    *  @see LUDecomposition
+    */
+   public LUDecomposition decomposeLU() {
+      return new LUDecomposition(this);
    }
 
    /** Returns a String representation of this matrix as an HTML table where each
@@ -1164,7 +1297,7 @@ public class Matrix {
     *  @return +1 or -1 depending on whether the number of row interchanges <i>a</i> was even or odd,
     *  @throws IllegalArgumentException if the specified matrix is singular
     */
-   private static byte luDecompose(double[][] a, int[] indx) {
+   static byte luDecompose(double[][] a, int[] indx) {
 	   byte d = 1;                   // no row interchanges yet
 	      int imax = 0, n = a.length;   // rows;
 	      double big, dum, sum, temp;
@@ -1187,6 +1320,7 @@ public class Matrix {
 	            a[i][j] = sum;
 	         }
 	         big = 0.0;      // initialize for the search for largest pivot element
+	         imax = j;
 	         for (int i = j; i < n; i++) {
 	            sum = a[i][j];
 	            for (int k = 0; k < j; k++)
@@ -1216,6 +1350,27 @@ public class Matrix {
 	      return d;
    }
    
+   /** 
+    *  Replaces the input matrix <code>a</code> by its LU decomposition as
+    *  {@link #luDecompose(double[][], int[]) luDecompose} does, and returns the
+    *  determinant of <code>a</code>, i.e., the product of the pivots. 
+    *  If <code>a</code> is singular, 0 is returned, and <code>a</code> and
+    *  <code>indx</code> must not be used for back substitution.
+    *  @param a the matrix to be replaced by the LU decomposition (call by reference!)
+    *  @param indx a vector recording the row permutations (call by reference!)
+    *  @return the determinant of <code>a</code>
+    */
+   private static double luDeterminant(double[][] a, int[] indx) {
+      double d;
+      try {
+         d = luDecompose(a, indx);
+      } catch (IllegalArgumentException iae) {
+         return 0;
+      }
+      for (int j = 0; j < a.length; j++)  d *= a[j][j];
+      return d;
+   }
+   
    /**
     *  This method solves the <i>n</i> linear equation <code>ax = b</code>, given the 
     *  LU-decomposed (n x n)-matrix <code>a</code> and the n-vector <code>b</code> as 
@@ -1231,7 +1386,7 @@ public class Matrix {
     *  @param a the matrix of the linear equation <code>ax = b</code>
     *  @param b the matrix of the linear equation <code>ax = b</code>
     */
-   private static double[] luBacksubst(double[][] a, int [] indx, double[] b) {
+   static double[] luBacksubst(double[][] a, int [] indx, double[] b) {
       double x[] = new double[b.length]; //[rows];
       System.arraycopy(b, 0, x, 0, b.length);
       int n = a.length, ii = -1, ip;
@@ -1292,53 +1447,24 @@ public class Matrix {
       }
       return m;
    }
-   private static Matrix generateSubArray (double A[][], int N, int j1){
-       double m[][];
-	   m = new double[N-1][];
-       for (int k=0; k<(N-1); k++)
-               m[k] = new double[N-1];
-
-       for (int i=1; i<N; i++)
-       {
-               int j2=0;
-               for (int j=0; j<N; j++)
-               {
-                 if(j == j1)
-                         continue;
-                 m[i-1][j2] = A[i][j];
-                 j2++;
-               }
-       }
-       Matrix m_ = new Matrix(m);
-       return m_;
-   }
+   /** Returns the determinant of the upper left <i>N</i> &times; <i>N</i> submatrix
+    *  of the matrix <i>M</i>. It is computed from the LU decomposition of the
+    *  submatrix, like {@link #det()}.
+    *  @param M a matrix
+    *  @param N the number of rows and columns of the submatrix
+    *  @return the determinant of the upper left <i>N</i> &times; <i>N</i> submatrix of <i>M</i>
+    *  @throws IllegalArgumentException if <i>N</i> exceeds the rows or columns of <i>M</i>
+    */
    public double determinant(Matrix M,int N)
    {
-	   Matrix m;
-       double res;
-       double[][] A;
-       A=M.matrix;
-       // Trivial 1x1 matrix
-       if (N == 1)
-           res = A[0][0];
-       // Trivial 2x2 matrix
-       else if (N == 2)
-           res = A[0][0]*A[1][1] - A[1][0]*A[0][1];
-       // NxN matrix
-       else
-       {
-           res=0;
-           for (int j1=0; j1<N; j1++)
-           {
-                           m = generateSubArray (A, N, j1);
-                           res += Math.pow(-1.0, 1.0+j1+1.0) * A[0][j1] * determinant(m, N-1);
-           }
+       if (N > M.rows || N > M.columns) {
+           throw new IllegalArgumentException("Submatrix exceeds matrix: "+N+" > ("+M.rows+"x"+M.columns+")");
+       }
+       double[][] a = new double[N][N];
+       for (int i = 0; i < N; i++) {
+           System.arraycopy(M.matrix[i], 0, a[i], 0, N);
        }
-       BigDecimal bd = new BigDecimal(res).setScale(4, RoundingMode.HALF_DOWN);
-       res = bd.doubleValue();
-       return res;
-       
-       
+       return luDeterminant(a, new int[N]);
    }
    public Matrix invert() 
    {
@@ -31,6 +31,7 @@ package algebra;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.Set;
 import java.util.TreeMap;
 
@@ -116,8 +117,10 @@ public class Polynomial extends TreeMap<Integer, Double> {
 	 * denotes the coefficient <i>a<sub>i</sub></i> of the polynomial, and the
 	 * length of the array is &gt;= the degree of the polynomial. If the degree
 	 * of the involved polynomials is not too large, this method is fast and
-	 * easy to use. Compare this static method to the object method
-	 * {@link #multiply(Polynomial)}.
+	 * easy to use. The coefficients are computed exactly as sums of products, for
+	 * long arrays a faster but approximate product is given by
+	 * {@link #multiplyFFT(double[],double[])}. Compare this static method to the
+	 * object method {@link #multiply(Polynomial)}.
 	 * 
 	 * @param p
 	 *            array representing the first polynomial
@@ -140,6 +143,32 @@ public class Polynomial extends TreeMap<Integer, Double> {
 		return rr;
 	}
 
+	/**
+	 * Returns an array representing the polynomial product of <i>p</i> and
+	 * <i>q</i>, computed by the fast Fourier transform in O(<i>n</i> log
+	 * <i>n</i>) operations, see {@link Convolution#fft(double[],double[])}. In
+	 * contrast to {@link #multiply(double[],double[])} the coefficients are not
+	 * exact: each one carries a rounding error of the order
+	 * 10<sup>-16</sup> <i>n</i> max|<i>p<sub>i</sub></i>| max|<i>q<sub>j</sub></i>|
+	 * for <i>n</i> coefficients, i.e., small coefficients next to large ones and
+	 * integer coefficients are not reproduced. The length of the result is
+	 * determined by the degrees of <i>p</i> and <i>q</i>, not by the computed
+	 * coefficients.
+	 * 
+	 * @param p
+	 *            array representing the first polynomial
+	 * @param q
+	 *            array representing the second polynomial
+	 * @return the product <i>pq</i> of the polynomials <i>p</i> and <i>q</i>
+	 *         up to rounding errors
+	 * @see #multiply(double[],double[])
+	 */
+	public static double[] multiplyFFT(double[] p, double[] q) {
+		int degP = deg(p), degQ = deg(q);
+		double[] r = Convolution.fft(Arrays.copyOf(p, degP + 1), Arrays.copyOf(q, degQ + 1));
+		return Arrays.copyOf(r, degP + degQ + 1);
+	}
+
 	/**
 	 * Comparably fast method which returns an array {q,r} of two arrays
 	 * representing the quotient <i>q</i> of the two given polynomials
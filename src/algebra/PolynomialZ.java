@@ -31,10 +31,13 @@
 package algebra;
 import java.math.BigInteger;
 import static java.math.BigInteger.*;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import numbers.Montgomery;
 
 /**
  *  This class enables to generate objects representing polynomials with integer
@@ -85,6 +88,8 @@ import java.util.TreeSet;
  */
 public class PolynomialZ extends TreeMap<BigInteger, BigInteger> {
    private static final long serialVersionUID = -1742369818L;
+   /** Minimum number of terms of two polynomials to be multiplied by {@link Convolution}.*/
+   private static final int DENSE_THRESHOLD = 8;
    private BigExponentComparator ec;
    
    /** Creates an empty polynomial with a new {@link BigExponentComparator}.
@@ -258,10 +263,16 @@ public class PolynomialZ extends TreeMap<BigInteger, BigInteger> {
    }
    
    /** Multiplies this polynomial with the given polynomial <i>q</i>.
+    *  If both polynomials have sufficiently many nonvanishing coefficients,
+    *  their coefficient arrays are multiplied by 
+    *  {@link Convolution#multiply(BigInteger[], BigInteger[])}.
     *  @param q the polynomial to be multiplied with this polynomial
     *  @return the product of this polynomial times <i>q</i>
     */
    public PolynomialZ multiply(PolynomialZ q) {
+      if (isDense(this, q)) {
+         return toPolynomial(Convolution.multiply(toArray(this, null), toArray(q, null)), null);
+      }
       PolynomialZ p = this, r = new PolynomialZ(ec);
       Set<BigInteger> pKeys = keySet();
       Set<BigInteger> qKeys = q.keySet();
@@ -294,12 +305,18 @@ public class PolynomialZ extends TreeMap<BigInteger, BigInteger> {
    /** Multiplies this polynomial with the given polynomial <i>q</i> modulo <i>n</i>.
     *  This means that all coefficients of the involved polynomials are
     *  computed modulo <i>n</i>.
+    *  If both polynomials have sufficiently many nonvanishing coefficients,
+    *  their coefficient arrays are multiplied by 
+    *  {@link Convolution#multiply(BigInteger[], BigInteger[])}.
     *  @param q the polynomial to be multiplied with this polynomial
     *  @param n the modulus
     *  @return the product of this polynomial times <i>q</i>, with coefficients 
     *  mod <i>n</i>
     */
    public PolynomialZ multiplyMod(PolynomialZ q, BigInteger n) {
+      if (isDense(this, q)) {
+         return toPolynomial(Convolution.multiply(toArray(this, n), toArray(q, n)), n);
+      }
       PolynomialZ p = this, r = new PolynomialZ(ec);
       Set<BigInteger> pKeys = keySet();
       Set<BigInteger> qKeys = q.keySet();
@@ -335,7 +352,9 @@ public class PolynomialZ extends TreeMap<BigInteger, BigInteger> {
     *  This methods is implemented to walk through all possible powers of the two
     *  involved polynomials; in consequence it should be faster than 
     *  {@link #multiplyMod(PolynomialZ, BigInteger)} if all, or nearly all,
-    *  powers have non-vanishing coefficients.
+    *  powers have non-vanishing coefficients. In this case, if the polynomials
+    *  have sufficiently many terms, their coefficient arrays are multiplied by
+    *  {@link Convolution#multiply(BigInteger[], BigInteger[])}.
     *  @param q the polynomial to be multiplied with this polynomial
     *  @param n the modulus
     *  @return the product of this polynomial times <i>q</i>, with coefficients 
@@ -343,6 +362,9 @@ public class PolynomialZ extends TreeMap<BigInteger, BigInteger> {
     *  @see #multiplyMod(PolynomialZ, BigInteger)
     */
    public PolynomialZ multiplyMod2( PolynomialZ q, BigInteger n ) {
+      if (isDense(this, q)) {
+         return toPolynomial(Convolution.multiply(toArray(this, n), toArray(q, n)), n);
+      }
       PolynomialZ p=this, r = new PolynomialZ(ec);
       
       BigInteger i, j, k, tmp;
@@ -383,12 +405,18 @@ public class PolynomialZ extends TreeMap<BigInteger, BigInteger> {
    /** Divides this polynomial by the given polynomial <i>v</i>
     *  and returns an array {q,r} holding the quotient <i>q</i> as the first 
     *  entry and the remainder <i>r</i> as the second entry.
+    *  If the leading coefficient of <i>v</i> is &#x00B1;1, the quotient is
+    *  computed from the reciprocal of the reversal of <i>v</i> by Newton iteration,
+    *  with the cost of a few multiplications.
     *  @param v the polynomial to divide this polynomial
     *  @return the array {<i>q,r</i>} where <i>q</i> is the quotient of this 
     *  polynomial, say <i>u</i>, over <i>v</i>, and <i>r</i> is the remainder 
     *  polynomial such that <i>u</i> = <i>qv</i> + <i>r</i>
     */
    public PolynomialZ[] divide( PolynomialZ v) {
+      PolynomialZ[] fast = divide(divisor(v, null));
+      if (fast != null) return fast;
+      
       PolynomialZ u = this;
       
       PolynomialZ r = new PolynomialZ(ec), q = new PolynomialZ(ec);
@@ -446,35 +474,8 @@ public class PolynomialZ extends TreeMap<BigInteger, BigInteger> {
     *  where <i>u</i> is this polynomial and <i>q</i> is the quotient <i>u/v</i>
     */
    public PolynomialZ mod(PolynomialZ y) {
-      BigInteger degY = y.getDegree();
-      if (degY.signum() == 0) return new PolynomialZ();
-      
-      BigInteger degX = getDegree();
-      BigInteger d = degX.subtract(degY);
-      
-      if (d.signum() < 0) return new PolynomialZ();
-      
-      PolynomialZ X = reversal(degX);
-      PolynomialZ Y = y.reversal(degY);
-      PolynomialZ q = Y.reciprocal(d);
-      PolynomialZ r;
-      BigInteger i;
-      
-      d = d.add(ONE);
-      q = q.multiply(X).truncate(d);
-      r = X.minus(q.multiply(Y));
-      i = r.index(d);
-      // r(x) <- r(x) / t^i:
-      if (i.signum() > 0) {
-         java.util.SortedMap<BigInteger,BigInteger> tmp = r.headMap(i.subtract(ONE));
-         r = new PolynomialZ();
-         Set<BigInteger> keys = tmp.keySet();
-         for (BigInteger j : keys) {
-            r.put(j.subtract(i), tmp.get(j));
-         }
-      }
-      
-      return r.reversal(degX.subtract(i));
+      if (y.getDegree().signum() == 0) return new PolynomialZ();
+      return divide(y)[1];
    }
    
    /** Returns the remainder of the division of this polynomial by the given 
@@ -491,42 +492,36 @@ public class PolynomialZ extends TreeMap<BigInteger, BigInteger> {
     *  where <i>u</i> is this polynomial and <i>q</i> is the quotient <i>u/v</i>
     */
    public PolynomialZ mod(PolynomialZ y, BigInteger m) {
-      BigInteger degY = y.getDegree();
-      if (degY.signum() == 0) return new PolynomialZ();
+      return mod(y, m, divisor(y, m));
+   }
+   
+   /** Returns the remainder of the division of this polynomial by the 
+    *  polynomial <i>y</i> modulo <i>m</i>, using the given divisor for <i>y</i> 
+    *  if it is not null.
+    */
+   private PolynomialZ mod(PolynomialZ y, BigInteger m, Divisor divisor) {
+      if (y.getDegree().signum() == 0) return new PolynomialZ();
       
-      BigInteger degX = getDegree();
-      BigInteger d = degX.subtract(degY);
-      PolynomialZ r; // resulting polynomial
+      PolynomialZ[] fast = divide(divisor);
+      if (fast != null) return fast[1];
       
-      if (d.signum() < 0) { // return copy of this polynomial
-         r = new PolynomialZ(ec);
+      if (getDegree().compareTo(y.getDegree()) < 0) { // return copy of this polynomial
+         PolynomialZ r = new PolynomialZ(ec);
          Set<BigInteger> keys = keySet();
          for (BigInteger e : keys) {
             r.put(e, get(e).mod(m));
          }
          return r;
       }
-      
-      PolynomialZ X = reversal(degX);
-      PolynomialZ Y = y.reversal(degY);
-      PolynomialZ q = Y.reciprocal(d,m);
-      BigInteger i;
-      
-      d = d.add(ONE);
-      q = q.multiply(X).truncate(d);
-      r = X.minus(q.multiplyMod(Y,m),m);
-      i = r.index(d);
-      // r(x) <- r(x) / t^i:
-      if (i.signum() > 0) {
-         java.util.SortedMap<BigInteger,BigInteger> tmp = r.headMap(i.subtract(ONE));
-         r = new PolynomialZ();
-         Set<BigInteger> keys = tmp.keySet();
-         for (BigInteger j : keys) {
-            r.put(j.subtract(i), tmp.get(j));
+      // the long division leaves the coefficients of the remainder unreduced:
+      PolynomialZ remainder = divideMod(y, m)[1], r = new PolynomialZ(ec);
+      for (BigInteger e : remainder.keySet()) {
+         BigInteger c = remainder.get(e).mod(m);
+         if (c.signum() != 0) {
+            r.put(e, c);
          }
       }
-      
-      return r.reversal(degX.subtract(i));
+      return r;
    }
    
    /** Divides this polynomial by the given polynomial <i>v</i> modulo <i>m</i>
@@ -534,6 +529,9 @@ public class PolynomialZ extends TreeMap<BigInteger, BigInteger> {
     *  and the remainder <i>r</i> as the second entry.
     *  Modulo means that all coefficients of the involved polynomials are
     *  computed modulo <i>m</i>.
+    *  If the leading coefficient of <i>v</i> is prime to <i>m</i>, the quotient is
+    *  computed from the reciprocal of the reversal of <i>v</i> by Newton iteration,
+    *  with the cost of a few multiplications.
     *  @param v the polynomial to divide this polynomial
     *  @param m the modulus
     *  @return the array {<i>q,r</i>} where <i>q</i> is the quotient of this 
@@ -541,6 +539,9 @@ public class PolynomialZ extends TreeMap<BigInteger, BigInteger> {
     *  polynomial such that <i>u</i> = <i>qv</i> + <i>r</i> mod <i>m</i>
     */
    public PolynomialZ[] divideMod( PolynomialZ v, BigInteger m) {
+      PolynomialZ[] fast = divide(divisor(v, m));
+      if (fast != null) return fast;
+      
       PolynomialZ u = this;
       
       PolynomialZ r = new PolynomialZ(ec), q = new PolynomialZ(ec);
@@ -612,7 +613,9 @@ public class PolynomialZ extends TreeMap<BigInteger, BigInteger> {
    }
    
    /** Returns the polynomial <i>q<sup>e</sup></i> mod (<i>p, n</i>) 
-    *  where <i>q</i> is this polynomial. Naive algorithm.
+    *  where <i>q</i> is this polynomial. Naive algorithm, where the reciprocal
+    *  of <i>p</i> for the remainders is computed only once if the leading 
+    *  coefficient of <i>p</i> is prime to <i>n</i>.
     *  @param p the modulus polynomial
     *  @param e the exponent
     *  @param n the modulus
@@ -621,14 +624,16 @@ public class PolynomialZ extends TreeMap<BigInteger, BigInteger> {
    public PolynomialZ modPow(PolynomialZ p, BigInteger e, BigInteger n) {
       PolynomialZ result = new PolynomialZ(ZERO, ONE, ec);
       PolynomialZ square = this;
+      // the reciprocal of p is computed once for all divisions:
+      Divisor divisor = divisor(p, n);
       
       for ( int i=0; i <= e.bitLength(); i++ ) {
          if (e.testBit(i)) {
             //result = (result.multiplyMod(square, n)).divideMod(p,n)[1];
-            result = (result.multiplyMod(square, n)).mod(p,n);
+            result = (result.multiplyMod(square, n)).mod(p, n, divisor);
          }
          //square = (square.multiplyMod(square,n)).divideMod(p, n)[1];
-         square = (square.multiplyMod(square,n)).mod(p, n);
+         square = (square.multiplyMod(square,n)).mod(p, n, divisor);
       }
       return result;
    }
@@ -636,6 +641,11 @@ public class PolynomialZ extends TreeMap<BigInteger, BigInteger> {
    /** 
     * Returns <i>s<sup>e</sup></i> mod (<i>x<sup>r</sup></i> - 1, <i>n</i>) 
     * where <i>s</i> is this polynomial.
+    * If <i>n</i> is odd and less than 2<sup>63</sup> and this polynomial has no
+    * negative exponents, as in the AKS primality test, the powers are computed in a
+    * dense representation of the residue polynomials by arrays of <i>r</i>
+    * coefficients, which are multiplied modulo <i>n</i> by {@link Montgomery}
+    * multiplication.
     * @param e the exponent
     * @param r the degree of the monic polynomial <i>x<sup>r</sup></i> - 1
     * @param n the modulus
@@ -647,6 +657,10 @@ public class PolynomialZ extends TreeMap<BigInteger, BigInteger> {
       if (r < 0) {
          throw new IllegalArgumentException("Negative polynomial degree: " + r);
       }
+      if (r > 0 && e.signum() > 0 && n.signum() > 0 && n.bitLength() < 64 && n.testBit(0)
+            && (isEmpty() || lastKey().signum() >= 0)) {
+         return modPowDense(e, r, n);
+      }
       /* computes s^e mod (x^r - 1, n) where s is this polynomial. */
       PolynomialZ result = new PolynomialZ(ZERO, ONE, ec);
       PolynomialZ square = this;
@@ -663,6 +677,86 @@ public class PolynomialZ extends TreeMap<BigInteger, BigInteger> {
       return result;
    }
    
+   /** 
+    * Returns <i>s<sup>e</sup></i> mod (<i>x<sup>r</sup></i> - 1, <i>n</i>) 
+    * for <i>e</i> &gt; 0, <i>r</i> &gt; 0 and odd <i>n</i> &lt; 2<sup>63</sup>, 
+    * where <i>s</i> is this polynomial. A residue polynomial is represented by
+    * the array of the Montgomery forms of its coefficients <i>a</i><sub>0</sub>, ...,
+    * <i>a</i><sub><i>r</i>-1</sub>.
+    */
+   private PolynomialZ modPowDense(BigInteger e, int r, BigInteger n) {
+      Montgomery ring = new Montgomery(n.longValue());
+      long[] square = new long[r];
+      for (BigInteger i : tailMap(BigInteger.valueOf(r - 1)).keySet()) {
+         square[i.intValue()] = ring.toMontgomery(get(i).mod(n).longValue());
+      }
+      long[] result = null;
+      int bits = e.bitLength();
+      for (int i = 0; i < bits; i++) {
+         if (e.testBit(i)) {
+            result = (result == null) ? square.clone() : multiplyMod(result, square, ring);
+         }
+         if (i < bits - 1) {
+            square = squareMod(square, ring);
+         }
+      }
+      PolynomialZ t = new PolynomialZ(ec);
+      for (int k = 0; k < r; k++) {
+         long c = ring.fromMontgomery(result[k]);
+         if (c != 0) {
+            t.put(BigInteger.valueOf(k), BigInteger.valueOf(c));
+         }
+      }
+      return t;
+   }
+
+   /** 
+    * Returns <i>ab</i> mod (<i>x<sup>r</sup></i> - 1, <i>n</i>) for the dense
+    * residue polynomials <i>a</i> and <i>b</i> with <i>r</i> coefficients.
+    */
+   private static long[] multiplyMod(long[] a, long[] b, Montgomery ring) {
+      int r = a.length;
+      long[] t = new long[r];
+      for (int i = 0; i < r; i++) {
+         long ai = a[i];
+         if (ai == 0) continue;
+         // t[(i+j) % r] += a[i] * b[j], split at the wrap-around of i + j:
+         for (int j = 0, k = i; j < r - i; j++, k++) {
+            t[k] = ring.add(t[k], ring.multiply(ai, b[j]));
+         }
+         for (int j = r - i, k = 0; j < r; j++, k++) {
+            t[k] = ring.add(t[k], ring.multiply(ai, b[j]));
+         }
+      }
+      return t;
+   }
+
+   /** 
+    * Returns <i>a</i><sup>2</sup> mod (<i>x<sup>r</sup></i> - 1, <i>n</i>) for the
+    * dense residue polynomial <i>a</i> with <i>r</i> coefficients, computing each
+    * mixed product <i>a<sub>i</sub>a<sub>j</sub></i> only once.
+    */
+   private static long[] squareMod(long[] a, Montgomery ring) {
+      int r = a.length;
+      long[] t = new long[r];
+      for (int i = 0; i < r; i++) {
+         long ai = a[i];
+         if (ai == 0) continue;
+         int k = (2 * i) % r;
+         t[k] = ring.add(t[k], ring.multiply(ai, ai));
+         long twice = ring.add(ai, ai);
+         // t[(i+j) % r] += 2 a[i] a[j] for j > i, split at the wrap-around of i + j:
+         int j = i + 1;
+         for (k = 2 * i + 1; j < r && k < r; j++, k++) {
+            t[k] = ring.add(t[k], ring.multiply(twice, a[j]));
+         }
+         for (k -= r; j < r; j++, k++) {
+            t[k] = ring.add(t[k], ring.multiply(twice, a[j]));
+         }
+      }
+      return t;
+   }
+
    /** 
     * Returns the polynomial <i>as</i> mod (<i>x<sup>r</sup></i> - 1, <i>n</i>) 
     * where <i>s</i> is this polynomial.
@@ -674,9 +768,12 @@ public class PolynomialZ extends TreeMap<BigInteger, BigInteger> {
     */
    private PolynomialZ multiplyMod(PolynomialZ a, BigInteger r, BigInteger n) {
       /* computes a * s mod (x^r - 1, n) where s is this polynomial. */
-      PolynomialZ t = new PolynomialZ(ec);
       SortedMap<BigInteger,BigInteger> S = this.tailMap(r.subtract(ONE));
       SortedMap<BigInteger,BigInteger> A = a.tailMap(r.subtract(ONE));
+      if (isDense(S, A)) {
+         return toPolynomial(fold(Convolution.multiply(toArray(S, n), toArray(A, n)), r.intValue()), n);
+      }
+      PolynomialZ t = new PolynomialZ(ec);
       BigInteger k;
       BigInteger tmp;
       
@@ -714,10 +811,15 @@ public class PolynomialZ extends TreeMap<BigInteger, BigInteger> {
     */
    private PolynomialZ squareMod(BigInteger r, BigInteger n) {
       /* computes s^2 mod (x^r - 1, n) where s is this polynomial.*/
+      SortedMap<BigInteger,BigInteger> S = tailMap(r.subtract(ONE));
+      if (isDense(S, S)) {
+         BigInteger[] s = toArray(S, n);
+         return toPolynomial(fold(Convolution.multiply(s, s), r.intValue()), n);
+      }
       PolynomialZ t = new PolynomialZ(ec);
       BigInteger k;
       BigInteger tmp;      
-      TreeSet<BigInteger> keys = new TreeSet<BigInteger>(tailMap(r.subtract(ONE)).keySet());
+      TreeSet<BigInteger> keys = new TreeSet<BigInteger>(S.keySet());
       
       for (BigInteger i : keys) {
          for (BigInteger j : keys) {
@@ -740,6 +842,63 @@ public class PolynomialZ extends TreeMap<BigInteger, BigInteger> {
       return t;
    }
 
+   /** 
+    * Returns true if the product of the polynomials <i>p</i> and <i>q</i> is
+    * computed from their coefficient arrays by {@link Convolution}, i.e., if both
+    * have at least {@link #DENSE_THRESHOLD} terms and no negative exponents, at least
+    * a quarter of their coefficients do not vanish, and the degree of the product is
+    * less than 2<sup>26</sup>.
+    */
+   private static boolean isDense(SortedMap<BigInteger,BigInteger> p, SortedMap<BigInteger,BigInteger> q) {
+      int sizeP = p.size(), sizeQ = q.size();
+      if (sizeP < DENSE_THRESHOLD || sizeQ < DENSE_THRESHOLD) return false;
+      // the last key is the lowest exponent:
+      if (p.lastKey().signum() < 0 || q.lastKey().signum() < 0) return false;
+      // the keys are sorted in descending order, i.e., the first key is the degree:
+      BigInteger degP = p.firstKey(), degQ = q.firstKey();
+      if (degP.add(degQ).bitLength() > 26) return false;
+      return degP.intValue() < 4 * sizeP && degQ.intValue() < 4 * sizeQ;
+   }
+
+   /** 
+    * Returns the array of the coefficients <i>a</i><sub>0</sub>, ..., <i>a<sub>d</sub></i>
+    * of the polynomial <i>p</i> of degree <i>d</i>, reduced modulo <i>n</i> unless 
+    * <i>n</i> is null.
+    */
+   private static BigInteger[] toArray(SortedMap<BigInteger,BigInteger> p, BigInteger n) {
+      BigInteger[] a = new BigInteger[p.firstKey().intValue() + 1];
+      Arrays.fill(a, ZERO);
+      for (Map.Entry<BigInteger,BigInteger> term : p.entrySet()) {
+         a[term.getKey().intValue()] = (n == null) ? term.getValue() : term.getValue().mod(n);
+      }
+      return a;
+   }
+
+   /** 
+    * Returns the array of the coefficients of <i>c</i> mod (<i>x<sup>r</sup></i> - 1).
+    */
+   private static BigInteger[] fold(BigInteger[] c, int r) {
+      for (int k = r; k < c.length; k++) {
+         c[k - r] = c[k - r].add(c[k]);
+      }
+      return c.length > r ? Arrays.copyOf(c, r) : c;
+   }
+
+   /** 
+    * Returns the polynomial with the nonvanishing coefficients of the array <i>c</i>,
+    * reduced modulo <i>n</i> unless <i>n</i> is null.
+    */
+   private PolynomialZ toPolynomial(BigInteger[] c, BigInteger n) {
+      PolynomialZ p = new PolynomialZ(ec);
+      for (int k = 0; k < c.length; k++) {
+         BigInteger a = (n == null) ? c[k] : c[k].mod(n);
+         if (a.signum() != 0) {
+            p.put(BigInteger.valueOf(k), a);
+         }
+      }
+      return p;
+   }
+
    /** 
     * Evaluates this polynomial at the point <i>x</i>. 
     * The algorithm is naive and does not use the Horner scheme.
@@ -772,121 +931,136 @@ public class PolynomialZ extends TreeMap<BigInteger, BigInteger> {
       return y;
    }
    
-   /** Returns the polynomial index of this polynomial by the specified degree <i>d</i>.
-    *  The algorithm is implemented from R. Crandall &amp; C. Pomerance:
-    *  <i>Prime Numbers. A Computational Perspective.</i> 2<sup>nd</sup> edition.
-    *  Springer, New York 2005.
-    *  @param d the degree of the reversal.
-    *  @return the reversal of this polynomial by degree <i>d</i>
+   /** 
+    * Divides this polynomial by the polynomial given by the divisor, or returns
+    * null if this polynomial has a negative exponent, or if its degree is less 
+    * than the one of the divisor or not less than 2<sup>26</sup>.
     */
-   private BigInteger index(BigInteger d) {
-      if (get(d) != null) return d;
-      
-      SortedMap<BigInteger,BigInteger> p = headMap(d);
-
-      if (p.isEmpty()) return ZERO;
-      return p.lastKey();
+   private PolynomialZ[] divide(Divisor divisor) {
+      if (divisor == null || isEmpty() || lastKey().signum() < 0) return null;
+      BigInteger degree = getDegree();
+      if (degree.bitLength() > 26 || degree.intValue() < divisor.v.length - 1) return null;
+      BigInteger[][] qr = divisor.divide(toArray(this, divisor.m));
+      PolynomialZ[] result = {toPolynomial(qr[0], divisor.m), toPolynomial(qr[1], divisor.m)};
+      return result;
    }
-   
-   /** Returns the reversal of this polynomial by the specified degree <i>d</i>.
-    *  The algorithm is implemented from R. Crandall &amp; C. Pomerance:
-    *  <i>Prime Numbers. A Computational Perspective.</i> 2<sup>nd</sup> edition.
-    *  Springer, New York 2005.
-    *  @param d the degree of the reversal.
-    *  @return the reversal of this polynomial by degree <i>d</i>
+
+   /** 
+    * Returns the divisor for the division by the polynomial <i>v</i> with
+    * coefficients modulo <i>m</i>, or with integer coefficients if <i>m</i> is null.
+    * If the leading coefficient of <i>v</i> is not invertible, i.e., not &#x00B1;1 or
+    * not prime to <i>m</i>, respectively, if <i>v</i> has a negative exponent, or if
+    * the degree of <i>v</i> is not less than 2<sup>26</sup>, null is returned.
     */
-   private PolynomialZ reversal(BigInteger d) {
-      PolynomialZ r = new PolynomialZ(ec);
-      
-      TreeSet<BigInteger> exponents = new TreeSet<BigInteger>(keySet());
-      for (BigInteger j : exponents) {
-         if (d.compareTo(j) < 0 ) continue;
-         // a_{d-j}  <-> a_j
-         r.put(d.subtract(j),get(j));
+   private static Divisor divisor(PolynomialZ v, BigInteger m) {
+      if (v.isEmpty() || v.lastKey().signum() < 0 || v.getDegree().bitLength() > 26) return null;
+      BigInteger lead = v.get(v.getDegree());
+      BigInteger inverse;
+      if (m == null) {
+         if (!lead.abs().equals(ONE)) return null;
+         inverse = lead;
+      } else {
+         if (m.compareTo(ONE) <= 0 || !lead.gcd(m).equals(ONE)) return null;
+         inverse = lead.modInverse(m);
       }
-      return r;
+      return new Divisor(toArray(v, m), m, inverse);
    }
-   
-   /** Returns this polynomial mod x^n,*/
-   private PolynomialZ truncate(BigInteger n) {
-      PolynomialZ p = new PolynomialZ();
-      Set<BigInteger> keys = (new TreeSet<BigInteger>(keySet())).headSet(n);
-      for (BigInteger j : keys) {
-         if (j.compareTo(n) >= 0) break;
-         p.put(j,get(j));
-      }
-      return p;
-   }
-   
-   /** Returns the truncated reciprocal of this polynomial through the specified 
-    *  degree. The method requires that the first coefficient <i>a</i><sub>0</sub>
-    *  of this polynomial satisfies <i>a</i><sub>0</sub> = 1.
-    *  The algorithm is implemented from R. Crandall &amp; C. Pomerance:
-    *  <i>Prime Numbers. A Computational Perspective.</i> 2<sup>nd</sup> edition.
-    *  Springer, New York 2005.
-    *  @param degree the degree to which the reciprocal is truncated
-    *  @return the truncated reciprocal of this polynomial through the specified degree
-    */
-    private PolynomialZ reciprocal(BigInteger degree) {
-       // This method requires that a_0 = 1! This constraint will not be checked ...
-       
-       PolynomialZ h;  // auxiliary polynomial
-       PolynomialZ two = new PolynomialZ(ZERO,numbers.BigNumbers.TWO);
-       
-       // 1. Initialize:
-       PolynomialZ g = new PolynomialZ(ZERO, ONE);
-       BigInteger n = ONE;  // working degree precision
-       BigInteger d = degree.add(ONE);
-       
-       // 2. Newton loop:
-       while (n.compareTo(d) < 0) {
-          n = n.add(n);  // double the working degree precision
-          if (n.compareTo(d) > 0)  n = d;
-          
-          // h(x) = this(x) mod x^n, i.e. simple truncation:
-          h = truncate(n).multiply(g).truncate(n);
-          // g(x) = g(x) (2-h(x)) mod x^n
-          g = g.multiply(two.minus(h)).truncate(n);
-       }
-       
-       return g;
-    }
 
-   /** Returns the truncated reciprocal of this polynomial through the specified 
-    *  degree, with coefficients modulo the number <i>m</i>.
-    *  The method requires that the first coefficient <i>a</i><sub>0</sub> of 
-    *  this polynomial satisfies <i>a</i><sub>0</sub> = 1.
-    *  The algorithm is implemented from R. Crandall &amp; C. Pomerance:
-    *  <i>Prime Numbers. A Computational Perspective.</i> 2<sup>nd</sup> edition.
-    *  Springer, New York 2005.
-    *  @param degree the degree to which the reciprocal is truncated
-    *  @param m the modulus
-    *  @return the truncated reciprocal of this polynomial through the specified degree
+   /** 
+    * This class divides polynomials <i>u</i> of degree <i>n</i> by a fixed
+    * polynomial <i>v</i> of degree <i>d</i> whose leading coefficient is invertible.
+    * With the reversals <i>U</i>(<i>x</i>) = <i>x<sup>n</sup>u</i>(1/<i>x</i>)
+    * and <i>V</i>(<i>x</i>) = <i>x<sup>d</sup>v</i>(1/<i>x</i>), the reversal of
+    * the quotient is <i>Q</i> = <i>U</i>/<i>V</i> mod <i>x</i><sup><i>n</i>-<i>d</i>+1</sup>,
+    * and the remainder is <i>u</i> - <i>qv</i> mod <i>x<sup>d</sup></i>.
+    * The truncated reciprocal 1/<i>V</i> is computed by the Newton iteration 
+    * <i>g</i> &#x2190; <i>g</i>(2 - <i>Vg</i>) mod <i>x</i><sup>2<i>k</i></sup>,
+    * doubling the precision <i>k</i> in each step, and it is kept for subsequent
+    * divisions. Thus a division costs a few multiplications of polynomials by
+    * {@link Convolution}.
+    * The algorithm is implemented after R. Crandall &amp; C. Pomerance:
+    * <i>Prime Numbers. A Computational Perspective.</i> 2<sup>nd</sup> edition.
+    * Springer, New York 2005, &sect;9.6.2
     */
-    private PolynomialZ reciprocal(BigInteger degree, BigInteger m) {
-       // This method requires that a_0 = 1! This constraint will not be checked ...
-       
-       PolynomialZ h;  // auxiliary polynomial
-       PolynomialZ two = new PolynomialZ(ZERO,numbers.BigNumbers.TWO);
-       
-       // 1. Initialize:
-       PolynomialZ g = new PolynomialZ(ZERO, ONE);
-       BigInteger n = ONE;  // working degree precision
-       BigInteger d = degree.add(ONE);
-       
-       // 2. Newton loop:
-       while (n.compareTo(d) < 0) {
-          n = n.add(n);  // double the working degree precision
-          if (n.compareTo(d) > 0)  n = d;
-          
-          // h(x) = this(x) mod x^n, i.e. simple truncation:
-          h = truncate(n).multiplyMod(g,m).truncate(n);
-          // g(x) = g(x) (2-h(x)) mod x^n
-          g = g.multiply(two.minus(h,m)).truncate(n);
-       }
-       
-       return g;
-    }
+   private static class Divisor {
+      /** The modulus of the coefficients, or null for integer coefficients.*/
+      final BigInteger m;
+      /** The coefficients of the divisor <i>v</i>.*/
+      final BigInteger[] v;
+      /** The coefficients of the reversal <i>V</i> of the divisor.*/
+      final BigInteger[] reversal;
+      /** The reciprocal 1/<i>V</i> mod <i>x<sup>k</sup></i>, where <i>k</i> is its length.*/
+      BigInteger[] reciprocal;
+
+      Divisor(BigInteger[] v, BigInteger m, BigInteger inverse) {
+         this.m = m;
+         this.v = v;
+         reversal = reverse(v, v.length);
+         reciprocal = new BigInteger[] {inverse};
+      }
+
+      /** Returns the quotient and the remainder of the division of <i>u</i> by the divisor. */
+      BigInteger[][] divide(BigInteger[] u) {
+         int d = v.length - 1, k = u.length - d;
+         extend(k);
+         BigInteger[] q = reverse(truncate(Convolution.multiply(reverse(u, k), truncate(reciprocal, k)), k), k);
+         reduce(q);
+         // r = u - qv mod x^d:
+         BigInteger[] r = truncate(Convolution.multiply(truncate(q, d), truncate(v, d)), d);
+         for (int i = 0; i < d; i++) {
+            r[i] = u[i].subtract(r[i]);
+         }
+         reduce(r);
+         BigInteger[][] result = {q, r};
+         return result;
+      }
+
+      /** Extends the reciprocal to the precision <i>k</i> by Newton iteration. */
+      private void extend(int k) {
+         int n = reciprocal.length;
+         while (n < k) {
+            n = Math.min(2 * n, k);
+            // h = 2 - Vg mod x^n:
+            BigInteger[] h = truncate(Convolution.multiply(truncate(reversal, n), reciprocal), n);
+            h[0] = numbers.BigNumbers.TWO.subtract(h[0]);
+            for (int i = 1; i < n; i++) {
+               h[i] = h[i].negate();
+            }
+            reduce(h);
+            reciprocal = reduce(truncate(Convolution.multiply(reciprocal, h), n));
+         }
+      }
+
+      /** Reduces the coefficients of <i>a</i> modulo <i>m</i> unless <i>m</i> is null. */
+      private BigInteger[] reduce(BigInteger[] a) {
+         if (m != null) {
+            for (int i = 0; i < a.length; i++) {
+               a[i] = a[i].mod(m);
+            }
+         }
+         return a;
+      }
+
+      /** Returns the first <i>n</i> coefficients of <i>a</i>, padded with zeros. */
+      private static BigInteger[] truncate(BigInteger[] a, int n) {
+         BigInteger[] b = Arrays.copyOf(a, n);
+         for (int i = a.length; i < n; i++) {
+            b[i] = ZERO;
+         }
+         return b;
+      }
+
+      /** Returns the reversal <i>x<sup>d</sup>a</i>(1/<i>x</i>) mod <i>x<sup>n</sup></i> of the
+       *  polynomial <i>a</i> of degree <i>d</i>, i.e., the first <i>n</i> of the coefficients
+       *  <i>a<sub>d</sub></i>, ..., <i>a</i><sub>0</sub>, padded with zeros. */
+      private static BigInteger[] reverse(BigInteger[] a, int n) {
+         BigInteger[] b = new BigInteger[n];
+         for (int i = 0; i < n; i++) {
+            b[i] = i < a.length ? a[a.length - 1 - i] : ZERO;
+         }
+         return b;
+      }
+   }
 
    /** Returns the degree of this polynomial.
     *  The degree is defined as the maximum exponent of the polynomial.
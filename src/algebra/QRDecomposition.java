@@ -0,0 +1,387 @@
+/*
+ * QRDecomposition.java - QR decomposition of a matrix by Householder reflections
+ *
+ * Copyright (C) 1997-2016 JAMA and Andreas de Vries
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package algebra;
+
+import numbers.Numbers;
+
+/**
+ * QR Decomposition. <p> For an <i>m</i>&times;<i>n</i> matrix <i>A</i> with
+ * <i>m</i> &ge; <i>n</i>, the QR decomposition is an <i>m</i>&times;<i>n</i>
+ * orthogonal matrix <i>Q</i> and an <i>n</i>&times;<i>n</i> upper triangular
+ * matrix <i>R</i> so that <i>A = QR</i>. It is computed once by Householder
+ * reflections, as {@link Matrix#decomposeQR()} does, and stored in the compact
+ * form of the reflection vectors. Thus it can be applied to any number of
+ * right hand sides without refactoring the matrix, e.g., to solve the least
+ * squares problems min ||<i>Ax - b</i>||.
+ * <p>
+ * For matrices with at least {@link #BLOCKED_THRESHOLD} columns, the reflections
+ * are computed in panels of {@link #PANEL} columns. The product of the reflections of a
+ * panel is accumulated in the compact WY representation <i>I - YTY<sup>T</sup></i>,
+ * where the columns of <i>Y</i> are the Householder vectors and <i>T</i> is upper
+ * triangular, and it is applied to the trailing columns by matrix products, which
+ * run in parallel as set by {@link Matrix#setParallelism(int)}. The result equals
+ * the one of the column by column reduction up to rounding errors.
+ * </p>
+ * <p>
+ * This class follows the QR decomposition of the JAMA Java Matrix Package by NIST,
+ * see <a href="http://math.nist.gov/javanumerics/jama/" target="_new">http://math.nist.gov/javanumerics/jama/</a>
+ * </p>
+ * @author JAMA, Andreas de Vries, agent
+ * @version 1.0
+ */
+public class QRDecomposition {
+   /** Array for internal storage of the Householder vectors and of the strict upper part of R.*/
+   private final double[][] QR;
+   /** Array for internal storage of the diagonal of R.*/
+   private final double[] Rdiag;
+   /** Row and column dimensions.*/
+   private final int m, n;
+   /** Number of columns of a panel of the blocked decomposition.*/
+   static final int PANEL = 32;
+   /** Minimum number of columns for the blocked decomposition.*/
+   static final int BLOCKED_THRESHOLD = 128;
+
+   /**
+    * Constructs the QR decomposition of the specified matrix.
+    * @param A a rectangular matrix with numbers of rows &ge; numbers of columns
+    * @throws IllegalArgumentException if number of rows &lt; number of columns
+    */
+   public QRDecomposition(Matrix A) {
+      if (A.rows < A.columns) {
+         throw new IllegalArgumentException(
+           "This matrix is not decomposable: "+A.rows+" rows < "+A.columns+" columns"
+         );
+      }
+      m = A.rows;
+      n = A.columns;
+      QR = A.getMatrix();
+      Rdiag = new double[n];
+      if (n < BLOCKED_THRESHOLD) {
+         decompose(0, n, n);
+      } else {
+         for (int k = 0; k < n; k += PANEL) {
+            int l = Math.min(k + PANEL, n);
+            decompose(k, l, l);
+            if (l < n) {
+               applyPanel(k, l);
+            }
+         }
+      }
+   }
+
+   /**
+    * Computes the Householder reflections of the columns <i>from</i>, ..., <i>to</i> - 1
+    * and applies each of them to the following columns up to column <i>end</i> - 1.
+    */
+   private void decompose(int from, int to, int end) {
+      int i, j, k;
+      double norm, s;
+
+      for (k = from; k < to; k++) {
+         // Compute 2-norm of k-th column without under/overflow.
+         norm = 0;
+         for (i = k; i < m; i++) {
+            norm = Numbers.hypotenuse(norm, QR[i][k]);
+         }
+
+         if (norm != 0.0) {
+            // Form k-th Householder vector.
+            if (QR[k][k] < 0) {
+               norm = -norm;
+            }
+            for (i = k; i < m; i++) {
+               QR[i][k] /= norm;
+            }
+            QR[k][k] += 1.0;
+
+            // Apply transformation to remaining columns.
+            for (j = k+1; j < end; j++) {
+               s = 0.0;
+               for (i = k; i < m; i++) {
+                  s += QR[i][k] * QR[i][j];
+               }
+               s = -s / QR[k][k];
+               for (i = k; i < m; i++) {
+                  QR[i][j] += s * QR[i][k];
+               }
+            }
+         }
+         Rdiag[k] = norm;
+      }
+   }
+
+   /**
+    * Applies the product H<sub>from</sub> ... H<sub>to-1</sub> = <i>I - YTY<sup>T</sup></i>
+    * of the reflections of a panel to the trailing columns <i>to</i>, ..., <i>n</i> - 1,
+    * i.e., replaces them by (<i>I - YT<sup>T</sup>Y<sup>T</sup></i>) times themselves.
+    * The reflection of column <i>k</i> is <i>I</i> - &tau;<i>vv<sup>T</sup></i> with
+    * the stored Householder vector <i>v</i> and &tau; = 1/<i>v<sub>k</sub></i>.
+    */
+   private void applyPanel(final int from, final int to) {
+      final int nb = to - from;
+      // T is built column by column: T(0:p, p) = -tau_p T(0:p, 0:p) Y(:, 0:p)^T y_p
+      final double[][] T = new double[nb][nb];
+      double[] z = new double[nb];
+      for (int p = 0; p < nb; p++) {
+         int kp = from + p;
+         double tau = QR[kp][kp] != 0 ? 1 / QR[kp][kp] : 0;
+         T[p][p] = tau;
+         java.util.Arrays.fill(z, 0.0);
+         for (int i = kp; i < m; i++) {
+            double yip = QR[i][kp];
+            for (int q = 0; q < p; q++) {
+               z[q] += QR[i][from + q] * yip;
+            }
+         }
+         for (int q = 0; q < p; q++) {
+            double sum = 0;
+            for (int r = q; r < p; r++) {
+               sum += T[q][r] * z[r];
+            }
+            T[q][p] = -tau * sum;
+         }
+      }
+
+      // The trailing columns are updated independently in chunks, by W = Y^T A,
+      // W = T^T W and A = A - Y W, where the loops scan rows of A sequentially:
+      new Matrix.ParallelLoop() {
+         void run(int j0, int j1) {
+            int width = j1 - j0;
+            double[][] W = new double[nb][width];
+            double[] row, w;
+            double y;
+            for (int i = from; i < m; i++) {
+               row = QR[i];
+               for (int p = 0, pMax = Math.min(nb, i - from + 1); p < pMax; p++) {
+                  y = row[from + p];
+                  if (y != 0) {
+                     w = W[p];
+                     for (int j = 0; j < width; j++) {
+                        w[j] += y * row[j0 + j];
+                     }
+                  }
+               }
+            }
+            for (int p = nb - 1; p >= 0; p--) {
+               w = W[p];
+               for (int j = 0; j < width; j++) {
+                  w[j] *= T[p][p];
+               }
+               for (int q = 0; q < p; q++) {
+                  double t = T[q][p];
+                  if (t != 0) {
+                     double[] wq = W[q];
+                     for (int j = 0; j < width; j++) {
+                        w[j] += t * wq[j];
+                     }
+                  }
+               }
+            }
+            for (int i = from; i < m; i++) {
+               row = QR[i];
+               for (int p = 0, pMax = Math.min(nb, i - from + 1); p < pMax; p++) {
+                  y = row[from + p];
+                  if (y != 0) {
+                     w = W[p];
+                     for (int j = 0; j < width; j++) {
+                        row[j0 + j] -= y * w[j];
+                     }
+                  }
+               }
+            }
+         }
+      }.invoke(to, n, 4.0 * (m - from) * nb * (n - to));
+   }
+
+   /**
+    * Returns whether the decomposed matrix has full rank, i.e., whether no
+    * diagonal entry of <i>R</i> is smaller than {@link Matrix#EPSILON} in absolute value.
+    * @return true if <i>R</i>, and hence <i>A</i>, has full rank
+    */
+   public boolean isFullRank() {
+      for (int j = 0; j < n; j++) {
+         if (Math.abs(Rdiag[j]) < Matrix.EPSILON) return false;
+      }
+      return true;
+   }
+
+   /**
+    * Returns the orthogonal factor <i>Q</i>.
+    * @return <i>Q</i>
+    */
+   public Matrix getQ() {
+      Matrix Q = new Matrix(m, n);
+      double s;
+      for (int k = n-1; k >= 0; k--) {
+         Q.matrix[k][k] = -1.0;
+         for (int j = k; j < n; j++) {
+            if (QR[k][k] != 0) {
+               s = 0.0;
+               for (int i = k; i < m; i++) {
+                  s -= QR[i][k]*Q.matrix[i][j];
+               }
+               s = -s/QR[k][k];
+               for (int i = k; i < m; i++) {
+                  Q.matrix[i][j] -= s*QR[i][k];
+               }
+            }
+         }
+      }
+      return Q;
+   }
+
+   /**
+    * Returns the upper triangular factor <i>R</i>.
+    * @return <i>R</i>
+    */
+   public Matrix getR() {
+      Matrix R = new Matrix(n, n);
+      for (int i = 0; i < n; i++) {
+         for (int j = i+1; j < n; j++) {
+            R.matrix[i][j] = -QR[i][j];
+         }
+         R.matrix[i][i] = Rdiag[i];
+      }
+      return R;
+   }
+
+   /**
+    * Returns the determinant of the decomposed matrix, which must be square.
+    * @return the determinant
+    * @throws IllegalArgumentException if the matrix is not square
+    */
+   public double det() {
+      if (m != n) {
+         throw new IllegalArgumentException("Not a square matrix: ("+m+"x"+n+")");
+      }
+      // det A = (-1)^n det R for the n reflections, and R has the diagonal -Rdiag:
+      double d = 1;
+      for (int j = 0; j < n; j++) {
+         d *= Rdiag[j];
+      }
+      return d;
+   }
+
+   /**
+    * Returns the least squares solution <i>x</i> of <i>Ax = b</i>, i.e., the vector
+    * <i>x</i> minimizing ||<i>Ax - b</i>||.
+    * @param b a vector with <i>m</i> entries
+    * @return the least squares solution <i>x</i> with <i>n</i> entries
+    * @throws IllegalArgumentException if the dimension of <i>b</i> does not fit
+    * or the matrix is rank deficient
+    */
+   public double[] solve(double[] b) {
+      if (b.length != m) {
+         throw new IllegalArgumentException("b is not an m-dimensional vector: length="+b.length);
+      }
+      double[][] B = new double[m][1];
+      for (int i = 0; i < m; i++) {
+         B[i][0] = b[i];
+      }
+      double[][] X = solve(B, 1);
+      double[] x = new double[n];
+      for (int i = 0; i < n; i++) {
+         x[i] = X[i][0];
+      }
+      return x;
+   }
+
+   /**
+    * Returns the least squares solution <i>X</i> of <i>AX = B</i> for all
+    * columns of <i>B</i> at once, i.e., the matrix <i>X</i> minimizing ||<i>AX - B</i>||.
+    * @param B a matrix with <i>m</i> rows
+    * @return the least squares solution <i>X</i> with <i>n</i> rows
+    * @throws IllegalArgumentException if the number of rows of <i>B</i> does not fit
+    * or the matrix is rank deficient
+    */
+   public Matrix solve(Matrix B) {
+      if (B.rows != m) {
+         throw new IllegalArgumentException("B has not m rows: rows="+B.rows);
+      }
+      double[][] X = solve(B.getMatrix(), B.columns);
+      double[][] x = new double[n][];
+      System.arraycopy(X, 0, x, 0, n);
+      return new Matrix(x, n, B.columns);
+   }
+
+   /**
+    * Returns the inverse of the decomposed matrix, which must be square.
+    * @return the inverse
+    * @throws IllegalArgumentException if the matrix is not square or singular
+    */
+   public Matrix inverse() {
+      if (m != n) {
+         throw new IllegalArgumentException("Not a square matrix: ("+m+"x"+n+")");
+      }
+      return solve(Matrix.createIdentity(n));
+   }
+
+   /**
+    * Overwrites the m &times; p array X by Q<sup>T</sup>X, solves RX = Q<sup>T</sup>X
+    * and returns X. All loops over the right hand sides are innermost, such that
+    * they scan the rows of X sequentially.
+    */
+   private double[][] solve(double[][] X, int p) {
+      if (!isFullRank()) {
+         throw new IllegalArgumentException("Matrix is rank deficient.");
+      }
+      double[] s = new double[p];
+      double[] xi, xk;
+      double q;
+      // Compute Q^T X:
+      for (int k = 0; k < n; k++) {
+         java.util.Arrays.fill(s, 0.0);
+         for (int i = k; i < m; i++) {
+            q = QR[i][k];
+            xi = X[i];
+            for (int j = 0; j < p; j++) {
+               s[j] += q * xi[j];
+            }
+         }
+         for (int j = 0; j < p; j++) {
+            s[j] = -s[j] / QR[k][k];
+         }
+         for (int i = k; i < m; i++) {
+            q = QR[i][k];
+            xi = X[i];
+            for (int j = 0; j < p; j++) {
+               xi[j] += s[j] * q;
+            }
+         }
+      }
+      // Solve R X = Q^T X, where the Householder vectors yield -R:
+      for (int k = n-1; k >= 0; k--) {
+         xk = X[k];
+         for (int j = 0; j < p; j++) {
+            xk[j] /= -Rdiag[k];
+         }
+         for (int i = 0; i < k; i++) {
+            q = QR[i][k];
+            xi = X[i];
+            for (int j = 0; j < p; j++) {
+               xi[j] -= xk[j] * q;
+            }
+         }
+      }
+      return X;
+   }
+}
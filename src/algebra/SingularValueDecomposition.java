@@ -46,6 +46,14 @@ import numbers.Numbers;
  * exists, so the constructor will never fail. The matrix condition number and
  * the effective numerical rank can be computed from this decomposition.
  * </p>
+ * <p> If only the singular values are needed, e.g., for the norm, the condition
+ * number or the rank, the constructor {@link #SingularValueDecomposition(Matrix, boolean)}
+ * skips the accumulation of <i>U</i> and <i>V</i>, which saves the <i>m</i>&times;<i>n</i>
+ * and <i>n</i>&times;<i>n</i> arrays and roughly half of the running time.
+ * The constructor {@link #SingularValueDecomposition(Matrix, int)} computes the
+ * truncated decomposition of rank <i>k</i>, i.e., only the <i>k</i> largest
+ * singular values with their singular vectors.
+ * </p>
  * 
  * This class is a slight modification of the Java class by the JAMA Java Matrix Package
  * by NIST, 
@@ -79,6 +87,11 @@ public class SingularValueDecomposition { // implements java.io.Serializable {
     * @serial column dimension.
     */
    private int m, n;
+   /**
+    * Flags whether the singular vectors are computed, and whether only the
+    * largest singular values are computed.
+    */
+   private boolean wantVectors, truncated;
 
    /* ------------------------
     Constructor
@@ -89,6 +102,19 @@ public class SingularValueDecomposition { // implements java.io.Serializable {
     * @throws IllegalArgumentException if number of rows &lt; number of columns
     */
    public SingularValueDecomposition(Matrix A) {
+      this(A, true);
+   }
+
+   /**
+    * Construct the singular value decomposition, or only the singular values
+    * if <code>wantVectors</code> is false. In the latter case, U and V are
+    * neither accumulated nor stored, and {@link #getU()} and {@link #getV()}
+    * cannot be invoked.
+    * @param A a rectangular matrix with numbers of rows &ge; numbers of columns
+    * @param wantVectors flag whether the singular vectors U and V are computed
+    * @throws IllegalArgumentException if number of rows &lt; number of columns
+    */
+   public SingularValueDecomposition(Matrix A, boolean wantVectors) {
       // Derived from LINPACK code.
       m = A.getRows();
       n = A.getColumns();
@@ -100,12 +126,15 @@ public class SingularValueDecomposition { // implements java.io.Serializable {
 
       int nu = Math.min(m, n);
       s = new double[Math.min(m + 1, n)];
-      U = new double[m][nu];
-      V = new double[n][n];
+      if (wantVectors) {
+         U = new double[m][nu];
+         V = new double[n][n];
+      }
       double[] e = new double[n];
       double[] work = new double[m];
-      boolean wantu = true;
-      boolean wantv = true;
+      boolean wantu = wantVectors;
+      boolean wantv = wantVectors;
+      this.wantVectors = wantVectors;
 
       // Reduce A to bidiagonal form, storing the diagonal elements
       // in s and the super-diagonal elements in e.
@@ -486,23 +515,132 @@ public class SingularValueDecomposition { // implements java.io.Serializable {
       }
    }
 
+   /**
+    * Construct the truncated singular value decomposition of rank <i>k</i>,
+    * consisting of the <i>k</i> largest singular values, the <i>m</i>&times;<i>k</i>
+    * matrix U and the <i>n</i>&times;<i>k</i> matrix V of the corresponding
+    * singular vectors. For large matrices, the right singular vectors are computed as
+    * eigenvectors of <i>A<sup>T</sup>A</i> by the {@link KrylovEigenSolver}, which
+    * needs only products with <i>A</i> and <i>A<sup>T</sup></i> and storage of the
+    * order <i>nk</i>, and the left singular vectors as <i>u</i> = <i>Av</i>/&sigma;.
+    * Since the squares of the singular values are computed, the relative accuracy
+    * of a singular value &sigma; is of the order &sigma;<sub>1</sub><sup>2</sup>/&sigma;<sup>2</sup>
+    * times the tolerance of the eigen solver. Small matrices are decomposed completely,
+    * and so is every matrix for which the eigen solver does not converge within its
+    * maximum number of restarts; thus the result is always accurate, at the cost of
+    * the full decomposition in the rare case of nonconvergence.
+    * The methods {@link #cond()} and {@link #rank()} cannot be invoked for a truncated
+    * decomposition.
+    * @param A a rectangular matrix with numbers of rows &ge; numbers of columns
+    * @param k the number of singular values
+    * @throws IllegalArgumentException if number of rows &lt; number of columns
+    * or k is not between 1 and the number of columns
+    */
+   public SingularValueDecomposition(Matrix A, int k) {
+      m = A.getRows();
+      n = A.getColumns();
+      if (m < n) {
+         throw new IllegalArgumentException("Number of rows "+m+" < number of columns "+n);
+      }
+      if (k < 1 || k > n) {
+         throw new IllegalArgumentException("Rank not in [1, "+n+"]: "+k);
+      }
+      wantVectors = true;
+      truncated = true;
+      s = new double[k];
+      U = new double[m][k];
+      V = new double[n][k];
+
+      if (n <= Math.max(2 * k + 1, 20)) {
+         truncate(new SingularValueDecomposition(A, true), k);
+         return;
+      }
+
+      final double[][] a = A.matrix;
+      KrylovSolver.Operator ata = new KrylovSolver.Operator() {
+         public int getDimension() {
+            return n;
+         }
+
+         public void apply(double[] x, double[] y) {
+            java.util.Arrays.fill(y, 0.0);
+            for (int i = 0; i < m; i++) {
+               double[] ai = a[i];
+               double t = 0;
+               for (int j = 0; j < n; j++) {
+                  t += ai[j] * x[j];
+               }
+               for (int j = 0; j < n; j++) {
+                  y[j] += t * ai[j];
+               }
+            }
+         }
+      };
+      KrylovEigenSolver solver = new KrylovEigenSolver(ata, k).setSymmetric(true).solve();
+      if (!solver.isConverged()) {
+         truncate(new SingularValueDecomposition(A, true), k);
+         return;
+      }
+      double[] lambda = solver.getRealEigenvalues();
+      double[][] v = solver.getV().matrix;
+      for (int l = 0; l < k; l++) {
+         s[l] = Math.sqrt(Math.max(lambda[l], 0.0));
+      }
+      for (int i = 0; i < n; i++) {
+         System.arraycopy(v[i], 0, V[i], 0, k);
+      }
+      // u = A v / sigma:
+      for (int i = 0; i < m; i++) {
+         double[] ai = a[i];
+         for (int l = 0; l < k; l++) {
+            if (s[l] != 0.0) {
+               double t = 0;
+               for (int j = 0; j < n; j++) {
+                  t += ai[j] * V[j][l];
+               }
+               U[i][l] = t / s[l];
+            }
+         }
+      }
+   }
+
+   /**
+    * Copies the <i>k</i> largest singular values and the corresponding singular
+    * vectors of the complete decomposition <code>svd</code>.
+    * @param svd a complete singular value decomposition
+    * @param k the number of singular values
+    */
+   private void truncate(SingularValueDecomposition svd, int k) {
+      System.arraycopy(svd.s, 0, s, 0, k);
+      for (int i = 0; i < m; i++) {
+         System.arraycopy(svd.U[i], 0, U[i], 0, k);
+      }
+      for (int i = 0; i < n; i++) {
+         System.arraycopy(svd.V[i], 0, V[i], 0, k);
+      }
+   }
+
    /* ------------------------
     Public Methods
     * ------------------------ */
    /**
     * Returns the left singular vectors U
     * @return the left singular vectors U
+    * @throws UnsupportedOperationException if only the singular values have been computed
     */
    public Matrix getU() {
-      return new Matrix(U, m, Math.min(m + 1, n));
+      checkVectors();
+      return new Matrix(U, m, s.length);
    }
 
    /**
     * Returns the right singular vectors V
     * @return the right singular vectors V
+    * @throws UnsupportedOperationException if only the singular values have been computed
     */
    public Matrix getV() {
-      return new Matrix(V, n, n);
+      checkVectors();
+      return new Matrix(V, n, s.length);
    }
 
    /**
@@ -518,8 +656,8 @@ public class SingularValueDecomposition { // implements java.io.Serializable {
     * @return the diagonal matrix S of singular values
     */
    public Matrix getS() {
-      double[][] S = new double[n][n];
-      for (int i = 0; i < n; i++) {
+      double[][] S = new double[s.length][s.length];
+      for (int i = 0; i < s.length; i++) {
           /*
           for (int j = 0; j < n; j++) {
           S[i][j] = 0.0;
@@ -549,16 +687,20 @@ public class SingularValueDecomposition { // implements java.io.Serializable {
     * Two norm condition number defined as  the ratio max(S)/min(S) of the
     * maximum and the minimum singular value of this matrix.
     * @return max(S)/min(S)
+    * @throws UnsupportedOperationException if the decomposition is truncated
     */
    public double cond() {
+      checkComplete();
       return s[0] / s[Math.min(m, n) - 1];
    }
 
    /**
     * Effective numerical matrix rank
     * @return Number of nonnegligible singular values.
+    * @throws UnsupportedOperationException if the decomposition is truncated
     */
    public int rank() {
+      checkComplete();
       double eps = Math.pow(2.0, -52.0);
       double tol = Math.max(m, n) * s[0] * eps;
       int r = 0;
@@ -570,6 +712,18 @@ public class SingularValueDecomposition { // implements java.io.Serializable {
       return r;
    }
 
+   private void checkVectors() {
+      if (!wantVectors) {
+         throw new UnsupportedOperationException("Singular vectors have not been computed.");
+      }
+   }
+
+   private void checkComplete() {
+      if (truncated) {
+         throw new UnsupportedOperationException("Decomposition is truncated.");
+      }
+   }
+
    /** For test purposes...*/
    /*
    public static void main(String[] args) {
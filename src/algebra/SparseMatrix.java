@@ -0,0 +1,497 @@
+/*
+ * SparseMatrix.java - Matrix in compressed sparse row format
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package algebra;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a sparse real matrix in the compressed sparse row (CSR)
+ * format. Only the nonzero entries are stored, row by row, in the arrays
+ * <code>values</code> and <code>columnIndices</code>, where the nonzero entries
+ * of row <i>i</i> occupy the positions <code>rowPointers[i]</code>, ...,
+ * <code>rowPointers[i+1] - 1</code>. Thus the memory and the running time of the
+ * product with a vector are proportional to the number <i>nnz</i> of nonzero
+ * entries, instead of rows &times; columns as for a {@link Matrix}.
+ * <p>
+ * The entries of large matrices such as the adjacency matrices of graphs are
+ * conveniently collected by a {@link Builder}:
+ * <pre>
+ *    SparseMatrix.Builder builder = new SparseMatrix.Builder(n, n);
+ *    for (int[] edge : edges) {
+ *       builder.add(edge[0], edge[1], 1.0);
+ *    }
+ *    SparseMatrix a = builder.build();
+ *    double lambda = a.getDominantEigenvalue();
+ * </pre>
+ * The methods mirror those of {@link Matrix} of the same name.
+ * @author agent
+ * @version 1.0
+ */
+public class SparseMatrix {
+   /** Default maximum number of steps of the power iteration.*/
+   private static final int MAX_POWER_ITERATIONS = 1000;
+   /** Number of rows of this matrix.*/
+   private final int rows;
+   /** Number of columns of this matrix.*/
+   private final int columns;
+   /** Positions of the first nonzero entry of each row, and the number of nonzero entries at the end.*/
+   private final int[] rowPointers;
+   /** Column index of each nonzero entry.*/
+   private final int[] columnIndices;
+   /** Value of each nonzero entry.*/
+   private final double[] values;
+   /** The dominant eigenvalue of this matrix. It is computed in the method {@link #getDominantEigenvalue()}. */
+   private double dominantEigenvalue;
+   /** An eigenvector associated to the dominant eigenvalue of this matrix.
+    * It is computed in the method {@link #getDominantEigenvalue()}.*/
+   private double[] dominantEigenvector;
+
+   /** Collects the entries of a sparse matrix in arbitrary order. Entries added
+    *  several times for the same position are summed up.
+    */
+   public static class Builder {
+      private final int rows, columns;
+      private int size;
+      private int[] rowIndices = new int[16];
+      private int[] columnIndices = new int[16];
+      private double[] values = new double[16];
+
+      /** Creates a builder of a matrix with the given rows and columns.
+       *  @param rows the number of rows of the matrix
+       *  @param columns the number of columns of the matrix
+       */
+      public Builder(int rows, int columns) {
+         this.rows = rows;
+         this.columns = columns;
+      }
+
+      /** Adds the value to the entry <i>a<sub>ij</sub></i>, where the indices are counted from 0.
+       *  @param i the row index
+       *  @param j the column index
+       *  @param value the value to be added
+       *  @return this builder
+       *  @throws IndexOutOfBoundsException if an index is out of bounds
+       */
+      public Builder add(int i, int j, double value) {
+         if (i < 0 || i >= rows || j < 0 || j >= columns) {
+            throw new IndexOutOfBoundsException("(" + i + "," + j + ") not in " + rows + "x" + columns);
+         }
+         if (size == values.length) {
+            int capacity = 2 * size;
+            rowIndices = Arrays.copyOf(rowIndices, capacity);
+            columnIndices = Arrays.copyOf(columnIndices, capacity);
+            values = Arrays.copyOf(values, capacity);
+         }
+         rowIndices[size] = i;
+         columnIndices[size] = j;
+         values[size] = value;
+         size++;
+         return this;
+      }
+
+      /** Returns the sparse matrix of the added entries.
+       *  @return the sparse matrix
+       */
+      public SparseMatrix build() {
+         // sort the entries by rows (counting sort) ...
+         int[] pointers = new int[rows + 1];
+         for (int k = 0; k < size; k++) {
+            pointers[rowIndices[k] + 1]++;
+         }
+         for (int i = 0; i < rows; i++) {
+            pointers[i + 1] += pointers[i];
+         }
+         int[] next = Arrays.copyOf(pointers, rows);
+         int[] cols = new int[size];
+         double[] vals = new double[size];
+         for (int k = 0; k < size; k++) {
+            int p = next[rowIndices[k]]++;
+            cols[p] = columnIndices[k];
+            vals[p] = values[k];
+         }
+         // ... and within each row by columns, summing up duplicates:
+         return compress(rows, columns, pointers, cols, vals);
+      }
+   }
+
+   /** Constructs a sparse matrix from its CSR arrays, which are not copied.
+    *  The column indices of each row must be strictly increasing.
+    *  @param rows the number of rows of this matrix
+    *  @param columns the number of columns of this matrix
+    *  @param rowPointers the positions of the first nonzero entry of each row,
+    *  followed by the number of nonzero entries
+    *  @param columnIndices the column index of each nonzero entry
+    *  @param values the value of each nonzero entry
+    *  @throws IllegalArgumentException if the array lengths do not fit
+    */
+   public SparseMatrix(int rows, int columns, int[] rowPointers, int[] columnIndices, double[] values) {
+      if (rowPointers.length != rows + 1 || columnIndices.length < rowPointers[rows] || values.length < rowPointers[rows]) {
+         throw new IllegalArgumentException("Inconsistent CSR arrays");
+      }
+      this.rows = rows;
+      this.columns = columns;
+      this.rowPointers = rowPointers;
+      this.columnIndices = columnIndices;
+      this.values = values;
+      dominantEigenvalue = Double.NaN;
+      dominantEigenvector = null;
+   }
+
+   /** Constructs a sparse matrix with the nonzero entries of the given matrix.
+    *  @param a a matrix
+    */
+   public SparseMatrix(Matrix a) {
+      this(a, count(a));
+   }
+
+   private SparseMatrix(Matrix a, int nnz) {
+      this(a.rows, a.columns, new int[a.rows + 1], new int[nnz], new double[nnz]);
+      int p = 0;
+      for (int i = 0; i < rows; i++) {
+         for (int j = 0; j < columns; j++) {
+            if (a.matrix[i][j] != 0) {
+               columnIndices[p] = j;
+               values[p] = a.matrix[i][j];
+               p++;
+            }
+         }
+         rowPointers[i + 1] = p;
+      }
+   }
+
+   private static int count(Matrix a) {
+      int nnz = 0;
+      for (int i = 0; i < a.rows; i++) {
+         for (int j = 0; j < a.columns; j++) {
+            if (a.matrix[i][j] != 0) nnz++;
+         }
+      }
+      return nnz;
+   }
+
+   /** Sorts each row of the row-wise grouped entries by columns and sums up duplicates. */
+   private static SparseMatrix compress(int rows, int columns, int[] pointers, int[] cols, double[] vals) {
+      int p = 0;
+      int start = 0;
+      for (int i = 0; i < rows; i++) {
+         int end = pointers[i + 1];
+         sort(cols, vals, start, end);
+         for (int k = start; k < end; k++) {
+            if (p > pointers[i] && cols[p - 1] == cols[k]) {
+               vals[p - 1] += vals[k];
+            } else {
+               cols[p] = cols[k];
+               vals[p] = vals[k];
+               p++;
+            }
+         }
+         start = end;
+         pointers[i + 1] = p;
+      }
+      return new SparseMatrix(rows, columns, pointers, Arrays.copyOf(cols, p), Arrays.copyOf(vals, p));
+   }
+
+   /** Sorts the range [from, to) of cols, and of vals accordingly, by insertion sort
+    *  for short rows and by sorting packed (column, position) keys otherwise. */
+   private static void sort(int[] cols, double[] vals, int from, int to) {
+      boolean sorted = true;
+      for (int k = from + 1; k < to && sorted; k++) {
+         sorted = cols[k - 1] < cols[k];
+      }
+      if (sorted) return;
+      if (to - from <= 16) {
+         for (int k = from + 1; k < to; k++) {
+            int c = cols[k];
+            double v = vals[k];
+            int l = k - 1;
+            while (l >= from && cols[l] > c) {
+               cols[l + 1] = cols[l];
+               vals[l + 1] = vals[l];
+               l--;
+            }
+            cols[l + 1] = c;
+            vals[l + 1] = v;
+         }
+      } else {
+         long[] keys = new long[to - from];
+         for (int k = from; k < to; k++) {
+            keys[k - from] = ((long) cols[k] << 32) | (k - from);
+         }
+         Arrays.sort(keys);
+         double[] v = Arrays.copyOfRange(vals, from, to);
+         for (int k = from; k < to; k++) {
+            cols[k] = (int) (keys[k - from] >>> 32);
+            vals[k] = v[(int) keys[k - from]];
+         }
+      }
+   }
+
+   /** Returns the number of rows of this matrix.
+    *  @return the number of rows of this matrix
+    */
+   public int getRows() {
+      return rows;
+   }
+
+   /** Returns the number of columns of this matrix.
+    *  @return the number of columns of this matrix
+    */
+   public int getColumns() {
+      return columns;
+   }
+
+   /** Returns the number of stored nonzero entries of this matrix.
+    *  @return the number of nonzero entries
+    */
+   public int getNonZeros() {
+      return rowPointers[rows];
+   }
+
+   /** Returns the array of row pointers, which is not copied. */
+   int[] getRowPointers() {
+      return rowPointers;
+   }
+
+   /** Returns the array of column indices, which is not copied. */
+   int[] getColumnIndices() {
+      return columnIndices;
+   }
+
+   /** Returns the array of nonzero values, which is not copied. */
+   double[] getValues() {
+      return values;
+   }
+
+   /** Returns whether this matrix is square.
+    *  @return true if and only if this matrix is square
+    */
+   public boolean isSquare() {
+      return rows == columns;
+   }
+
+   /** Returns the value of the matrix position given by the parameters row and col
+    *  in the usual mathematical convention, that is, both indices are
+    *  counted from 1, like {@link Matrix#getValue(int, int)}.
+    *  @param row the row index (counting from 1)
+    *  @param col the column index (counting from 1)
+    *  @return the value <i>A<sub>ij</sub></i> with <i>i</i> = row, <i>j</i> = column
+    */
+   public double getValue(int row, int col) {
+      int p = Arrays.binarySearch(columnIndices, rowPointers[row - 1], rowPointers[row], col - 1);
+      return p >= 0 ? values[p] : 0;
+   }
+
+   /** Returns the specified row of this matrix as a dense array.
+    *  @param i row number, counted from 0
+    *  @return the i-th row of this matrix
+    *  @throws ArrayIndexOutOfBoundsException if the index is out of bounds
+    */
+   public double[] getRow(int i) {
+      double[] row = new double[columns];
+      for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+         row[columnIndices[p]] = values[p];
+      }
+      return row;
+   }
+
+   /** Returns the (right) product of this matrix with the given column vector v.
+    *  @param v the column vector to multiply this matrix from right
+    *  @return the right product of this matrix and the input vector v
+    *  @throws IllegalArgumentException if number of columns of this matrix is
+    *  different from the number of rows of <i>v</i>
+    */
+   public double[] times(double[] v) {
+      if (columns != v.length) {
+         throw new IllegalArgumentException(
+            "Column and row numbers not appropriate for multiplication: " +
+            columns + "!=" + v.length
+         );
+      }
+      double[] y = new double[rows];
+      times(v, y);
+      return y;
+   }
+
+   /** Stores the product of this matrix with v into y. */
+   void times(double[] v, double[] y) {
+      for (int i = 0; i < rows; i++) {
+         double sum = 0;
+         for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+            sum += values[p] * v[columnIndices[p]];
+         }
+         y[i] = sum;
+      }
+   }
+
+   /** Returns the (right) product of this matrix with the given dense matrix b.
+    *  @param b the matrix to multiply this matrix from right
+    *  @return the right product of this matrix and the input matrix b
+    *  @throws IllegalArgumentException if number of columns of this matrix is
+    *  different from the number of rows of <i>b</i>
+    */
+   public Matrix times(Matrix b) {
+      if (columns != b.rows) {
+         throw new IllegalArgumentException(
+            "Column and row numbers not appropriate for multiplication: " +
+            columns + "!=" + b.rows
+         );
+      }
+      Matrix c = new Matrix(rows, b.columns);
+      for (int i = 0; i < rows; i++) {
+         double[] ci = c.matrix[i];
+         for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+            double aik = values[p];
+            double[] bk = b.matrix[columnIndices[p]];
+            for (int j = 0; j < b.columns; j++) {
+               ci[j] += aik * bk[j];
+            }
+         }
+      }
+      return c;
+   }
+
+   /** Returns the transpose of this matrix.
+    *  @return the transpose this matrix
+    */
+   public SparseMatrix transpose() {
+      int nnz = getNonZeros();
+      int[] pointers = new int[columns + 1];
+      for (int p = 0; p < nnz; p++) {
+         pointers[columnIndices[p] + 1]++;
+      }
+      for (int j = 0; j < columns; j++) {
+         pointers[j + 1] += pointers[j];
+      }
+      int[] next = Arrays.copyOf(pointers, columns);
+      int[] rowIndices = new int[nnz];
+      double[] vals = new double[nnz];
+      for (int i = 0; i < rows; i++) { // rows ascending, so each column stays sorted
+         for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+            int q = next[columnIndices[p]]++;
+            rowIndices[q] = i;
+            vals[q] = values[p];
+         }
+      }
+      return new SparseMatrix(columns, rows, pointers, rowIndices, vals);
+   }
+
+   /** Returns this matrix as a dense matrix.
+    *  @return a dense copy of this matrix
+    */
+   public Matrix toMatrix() {
+      Matrix a = new Matrix(rows, columns);
+      for (int i = 0; i < rows; i++) {
+         for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+            a.matrix[i][columnIndices[p]] = values[p];
+         }
+      }
+      return a;
+   }
+
+   /**
+    * Returns the dominant eigenvalue of this matrix with an error {@link Matrix#EPSILON}.
+    * It invokes the method {@link #getDominantEigenvalue(double, int)}, for more details see there.
+    * @return the dominant eigenvalue of this matrix with an error {@link Matrix#EPSILON}
+    */
+   public double getDominantEigenvalue() {
+      return getDominantEigenvalue(Matrix.EPSILON, MAX_POWER_ITERATIONS);
+   }
+
+   /**
+    * Returns the dominant eigenvalue of this matrix by the
+    * <a href="https://en.wikipedia.org/wiki/Power_iteration" target="_new">power iteration</a>,
+    * as {@link Matrix#getDominantEigenvalue(double)} does. Each step costs a single
+    * product with a vector, i.e., time proportional to the number of nonzero entries,
+    * and besides the matrix the iteration only stores two vectors.
+    * The iteration is considered as converged if two consecutive approximations differ
+    * by at most the specified error. Since a full eigenvalue decomposition of a large
+    * sparse matrix is not an option, the last approximation is returned if the
+    * iteration does not converge within the specified number of steps.
+    * @param error maximum error of approximation
+    * @param maxIterations maximum number of steps of the power iteration
+    * @return the dominant eigenvalue of this matrix with the specified error of approximation
+    * @throws IllegalArgumentException if this matrix is not square
+    */
+   public double getDominantEigenvalue(double error, int maxIterations) {
+      if (dominantEigenvector != null) return this.dominantEigenvalue;
+
+      if (!isSquare()) throw new IllegalArgumentException("Matrix is not square!");
+
+      int loop = 0;
+      double lambda = 0, lambda_sq, lambda_old;
+      double[] b = new double[rows], tmp = new double[rows], swap;
+
+      // Start with a unit vector b_0 in the direction (1, ..., 1):
+      Arrays.fill(b, 1. / Math.sqrt(rows));
+
+      do {
+         lambda_old = lambda;
+         times(b, tmp);
+         lambda_sq = 0;
+         for (int i = 0; i < rows; i++) {
+            lambda_sq += tmp[i]*tmp[i];
+         }
+         if (lambda_sq == 0.) {
+            dominantEigenvector = tmp; // this is the zero vector ...
+            dominantEigenvalue = 0;
+            return 0.;
+         }
+         lambda = Math.sqrt(lambda_sq);
+         for (int i = 0; i < rows; i++) {
+            tmp[i] /= lambda;
+         }
+         swap = b; b = tmp; tmp = swap;
+      } while(Math.abs(lambda - lambda_old) > error && ++loop < maxIterations);
+
+      dominantEigenvector = b;
+      dominantEigenvalue = lambda;
+      return lambda;
+   }
+
+   /**
+    * Returns an eigenvector associated to the dominant eigenvalue of this
+    * matrix with the error {@link Matrix#EPSILON} of approximation.
+    * It invokes the method {@link #getDominantEigenvalue()}, for more details see there.
+    * @return an eigenvector of unit length associated to the dominant eigenvalue of this matrix
+    */
+   public double[] getDominantEigenvector() {
+      if (dominantEigenvector != null) return dominantEigenvector;
+
+      this.getDominantEigenvalue();
+      return dominantEigenvector;
+   }
+
+   /** Returns a String representation of this matrix as the list of its nonzero
+    *  entries, each given as (row, column) = value with indices counted from 0.
+    * @return a string representation of this matrix
+    */
+   @Override
+   public String toString() {
+      StringBuilder output = new StringBuilder();
+      output.append(rows).append("x").append(columns).append(", ").append(getNonZeros()).append(" nonzeros");
+      for (int i = 0; i < rows; i++) {
+         for (int p = rowPointers[i]; p < rowPointers[i + 1]; p++) {
+            output.append("\n (").append(i).append(", ").append(columnIndices[p]).append(") = ").append(values[p]);
+         }
+      }
+      return output.toString();
+   }
+}
@@ -0,0 +1,79 @@
+/*
+ * CompiledExpressionBenchmark.java
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package bench;
+
+import java.math.BigDecimal;
+
+import util.CompiledExpression;
+import util.Expression;
+
+/**
+ * Compares the repeated evaluation of formulas by {@link Expression#eval()}
+ * with the evaluation of the compiled expression, whose constant
+ * sub-expressions are folded and whose repeated sub-expressions are
+ * evaluated once.
+ * <p>
+ * Usage: <code>java bench.CompiledExpressionBenchmark [evaluations]</code>
+ * @author agent
+ * @version 1.0
+ */
+public class CompiledExpressionBenchmark {
+   /** Formulas with constant and repeated sub-expressions. */
+   private static final String[] FORMULAS = {
+      "2*PI*sqrt(2)*x + PI/180",
+      "sin(x*PI/180)*sin(x*PI/180) + cos(x*PI/180)*cos(x*PI/180)",
+      "(x^2 + 1)/(x^2 + 2) + (x^2 + 1)*3^4",
+   };
+
+   private CompiledExpressionBenchmark() {
+   }
+
+   public static void main( String[] args ) {
+      int evaluations = args.length > 0 ? Integer.parseInt( args[0] ) : 20000;
+      System.out.println( "eval() [us]   compiled [us]   evalDouble [us]   formula" );
+      for ( String formula : FORMULAS ) {
+         Expression expression = new Expression( formula );
+         CompiledExpression compiled = expression.compile( "x" );
+         double[] time = new double[3];
+         BigDecimal sink = BigDecimal.ZERO;
+         double doubleSink = 0;
+         for ( int round = 0; round < 2; round++ ) { // the first round warms up
+            long start = System.nanoTime();
+            for ( int i = 0; i < evaluations; i++ ) {
+               sink = sink.add( expression.setVariable( "x", BigDecimal.valueOf( i % 360 ) ).eval() );
+            }
+            time[0] = ( System.nanoTime() - start ) / 1e3 / evaluations;
+            start = System.nanoTime();
+            for ( int i = 0; i < evaluations; i++ ) {
+               sink = sink.add( compiled.eval( BigDecimal.valueOf( i % 360 ) ) );
+            }
+            time[1] = ( System.nanoTime() - start ) / 1e3 / evaluations;
+            start = System.nanoTime();
+            for ( int i = 0; i < evaluations; i++ ) {
+               doubleSink += compiled.evalDouble( i % 360 );
+            }
+            time[2] = ( System.nanoTime() - start ) / 1e3 / evaluations;
+         }
+         System.out.printf( "%11.3f %15.3f %17.3f   %s%s%n", time[0], time[1], time[2], formula,
+            sink.signum() == 0 && doubleSink == 0 ? " " : "" );
+      }
+   }
+}
@@ -0,0 +1,198 @@
+/*
+ * EvaluatorBenchmarks.java
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package bench;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import util.Expression;
+import util.FunctionParser;
+import util.ParseCache;
+import util.TermParser;
+
+/**
+ * Benchmarks of the hot paths of the evaluators {@link Expression},
+ * {@link FunctionParser} and {@link TermParser}, run by the {@link Harness}.
+ * Each front end is measured on a corpus of short, long, function-heavy and
+ * variable-heavy formulas in three modes:
+ * <ul>
+ *   <li><i>parse</i>: parsing only, with the {@link ParseCache} disabled;</li>
+ *   <li><i>eval</i>: repeated evaluation of an already parsed formula;</li>
+ *   <li><i>parseEval</i>: parsing and evaluation of a fresh instance, with
+ *       the {@link ParseCache} enabled, as a calculator does it.</li>
+ * </ul>
+ * As {@link Expression} has no public entry point parsing for
+ * {@link Expression#eval16()} only, the latter is measured in the modes
+ * <i>eval</i> and <i>parseEval</i>.
+ * The benchmark names have the form <code>frontEnd.mode.corpus</code>, e.g.
+ * <code>Expression.eval.functions</code>, so that a subset can be selected
+ * by a regular expression:
+ * <pre>
+ *   java bench.EvaluatorBenchmarks -wi 3 -i 5 -r 500 "eval16|FunctionParser"
+ * </pre>
+ * @author agent
+ * @version 1.0
+ */
+public class EvaluatorBenchmarks {
+   /** The corpora, indexed like the formula arrays below. */
+   static final String[] CORPUS = { "short", "long", "functions", "variables" };
+
+   /** Formulas for {@link Expression#eval()}. */
+   static final String[] EXPRESSION = {
+      "1+2*3",
+      ExpressionParseBenchmark.expression( 40 ),
+      "sqrt(abs(sin(x)*cos(x))) + max(log(x+1), log10(x+1), tan(x)) - round(sinh(x/100), 5) + fac(5)",
+      "a*x^2 + b*x + c - (x-a)*(x-b)*(x-c)/(a+b+c) + a*b*c*x*y - y^2/(a*a+b*b+1)",
+   };
+
+   /** Formulas for {@link Expression#eval16()}. */
+   static final String[] HEX = {
+      "FF*2",
+      "ABCDEF*12+FF/3-1A2B*3+7*7*7-100+C0FFEE/10+DEAD*BEEF-F00D+ABC*DEF/12-34+56*78/9A",
+      "(A+B)*(C+D)*(E+F)/(1A+2B)*(3C-4D)+(5E*6F)",
+      "-A*2+(1F-2E)*3D/(4C+5B)",
+   };
+
+   /** Formulas for {@link FunctionParser#evaluate(int, double, double)}. */
+   static final String[] FUNCTION = {
+      "x^2+1",
+      "1+x+x^2/2+x^3/6+x^4/24+x^5/120+x^6/720+x^7/5040+x^8/40320+x^9/362880+x^10/3628800-y*x+y^2/2-y^3/6",
+      "sqrt(sin(x)^2 + cos(y)^2) + ln(x+2) + atan(x*y) - tanh(x-y) + log(x^2+1)",
+      "x*y + x^2*y - y/(x+3) + (x-y)^2*(x+y)/(x*x+y*y+1) + x*y*x*y",
+   };
+
+   /** Formulas for {@link TermParser#evaluate(MathContext)}, without variables. */
+   static final String[] TERM = {
+      "1+2*3",
+      "1+1/2+1/6+1/24+1/120+1/720+1/5040+1/40320+1/362880+1/3628800+1/39916800+1/479001600",
+      "sqrt(sin(1)^2 + cos(2)^2) + ln(5) + sinh(0.5) - cos(3)",
+      "2^64 mod 97 + 3^40 mod 101 + 17*19*23 - 12345/67",
+   };
+
+   /** The values of the variables. */
+   private static final BigDecimal X = new BigDecimal( "1.5" );
+   private static final MathContext MC = MathContext.DECIMAL64;
+
+   private EvaluatorBenchmarks() {
+   }
+
+   /** Returns an expression with the benchmark variables set. */
+   static Expression expression( String formula ) {
+      return new Expression( formula ).with( "x", X ).and( "y", new BigDecimal( "0.25" ) )
+         .and( "a", new BigDecimal( 2 ) ).and( "b", new BigDecimal( 3 ) ).and( "c", new BigDecimal( 5 ) );
+   }
+
+   /** Disables the shared parse cache for the parse-only benchmarks. */
+   private abstract static class Uncached extends Harness.Operation {
+      Uncached( String name ) {
+         super( name );
+      }
+
+      @Override
+      public Object run() {
+         ParseCache cache = ParseCache.getShared();
+         int capacity = cache.getCapacity();
+         cache.setCapacity( 0 );
+         try {
+            return parse();
+         } finally {
+            cache.setCapacity( capacity );
+         }
+      }
+
+      abstract Object parse();
+   }
+
+   public static void main( String[] args ) {
+      Harness harness = Harness.fromArgs( args );
+      harness.printHeader();
+      for ( int k = 0; k < CORPUS.length; k++ ) {
+         final String expression = EXPRESSION[k];
+         final String hex = HEX[k];
+         final String function = FUNCTION[k];
+         final String term = TERM[k];
+         final Expression parsedExpression = expression( expression );
+         final Expression parsedHex = new Expression( hex );
+         final FunctionParser parsedFunction = new FunctionParser( function );
+         final TermParser parsedTerm = new TermParser( term );
+         String corpus = CORPUS[k];
+
+         harness.run( new Uncached( "Expression.parse." + corpus ) {
+            Object parse() {
+               return expression( expression ).toRPN();
+            }
+         } );
+         harness.run( new Harness.Operation( "Expression.eval." + corpus ) {
+            public Object run() {
+               return parsedExpression.eval();
+            }
+         } );
+         harness.run( new Harness.Operation( "Expression.parseEval." + corpus ) {
+            public Object run() {
+               return expression( expression ).eval();
+            }
+         } );
+
+         harness.run( new Harness.Operation( "Expression.eval16.eval." + corpus ) {
+            public Object run() {
+               return parsedHex.eval16();
+            }
+         } );
+         harness.run( new Harness.Operation( "Expression.eval16.parseEval." + corpus ) {
+            public Object run() {
+               return new Expression( hex ).eval16();
+            }
+         } );
+
+         harness.run( new Uncached( "FunctionParser.parse." + corpus ) {
+            Object parse() {
+               return new FunctionParser( function );
+            }
+         } );
+         harness.run( new Harness.Operation( "FunctionParser.eval." + corpus ) {
+            public Object run() {
+               return parsedFunction.evaluate( 0, 1.5, 0.25 );
+            }
+         } );
+         harness.run( new Harness.Operation( "FunctionParser.parseEval." + corpus ) {
+            public Object run() {
+               return new FunctionParser( function ).evaluate( 0, 1.5, 0.25 );
+            }
+         } );
+
+         harness.run( new Uncached( "TermParser.parse." + corpus ) {
+            Object parse() {
+               return new TermParser( term );
+            }
+         } );
+         harness.run( new Harness.Operation( "TermParser.eval." + corpus ) {
+            public Object run() {
+               return parsedTerm.evaluate( MC );
+            }
+         } );
+         harness.run( new Harness.Operation( "TermParser.parseEval." + corpus ) {
+            public Object run() {
+               return TermParser.evaluate( term, MC );
+            }
+         } );
+      }
+   }
+}
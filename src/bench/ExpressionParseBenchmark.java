@@ -0,0 +1,113 @@
+/*
+ * ExpressionParseBenchmark.java
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package bench;
+
+import java.util.Iterator;
+
+import util.Expression;
+import util.ParseCache;
+
+/**
+ * Measures the time to tokenize and to parse expressions of growing length
+ * by {@link Expression}. For each length the time per input character is
+ * printed, which should stay roughly constant since parsing is linear in
+ * the length of the expression.
+ * The shared {@link ParseCache} is disabled, so that every expression is
+ * actually parsed.
+ * <p>
+ * Usage: <code>java bench.ExpressionParseBenchmark [repetitions]</code>
+ * @author agent
+ * @version 1.0
+ */
+public class ExpressionParseBenchmark {
+   /** The terms the benchmark expressions are built from. */
+   private static final String[] TERMS = {
+      "2.5*x", "sin(30)", "max(1, x, 3)", "-1.5e-3", "(x + 4)^2", "sqrt(2) / 7", "if(x > 1, 2, 3)"
+   };
+
+   private ExpressionParseBenchmark() {
+   }
+
+   /** Returns an expression consisting of <code>terms</code> terms.
+    *  @param terms the number of terms
+    *  @return an expression of the given number of terms
+    */
+   static String expression( int terms ) {
+      StringBuilder sb = new StringBuilder();
+      for ( int i = 0; i < terms; i++ ) {
+         if ( i > 0 ) {
+            sb.append( i % 2 == 0 ? " + " : " - " );
+         }
+         sb.append( TERMS[ i % TERMS.length ] );
+      }
+      return sb.toString();
+   }
+
+   /** Tokenizes the expression and returns the number of tokens. */
+   static int tokenize( Expression e ) {
+      int count = 0;
+      Iterator<String> tokens = e.getExpressionTokenizer();
+      while ( tokens.hasNext() ) {
+         tokens.next();
+         count++;
+      }
+      return count;
+   }
+
+   /** Parses the expression into RPN and returns the length of the RPN string. */
+   static int parse( Expression e ) {
+      return e.toRPN().length();
+   }
+
+   public static void main( String[] args ) {
+      int repetitions = args.length > 0 ? Integer.parseInt( args[0] ) : 200;
+      int capacity = ParseCache.getShared().getCapacity();
+      ParseCache.getShared().setCapacity( 0 );
+      try {
+         System.out.println( "   terms    chars   tokenize [ns/char]   parse [ns/char]" );
+         for ( int terms = 10; terms <= 10000; terms *= 10 ) {
+            Expression e = new Expression( expression( terms ) );
+            e.setVariable( "x", "2" );
+            int length = e.getExpression().length();
+            int reps = Math.max( 1, repetitions * 1000 / ( terms * 10 ) );
+            long sink = 0;
+            // warm up:
+            for ( int r = 0; r < reps; r++ ) {
+               sink += tokenize( e ) + parse( e );
+            }
+            long time = System.nanoTime();
+            for ( int r = 0; r < reps; r++ ) {
+               sink += tokenize( e );
+            }
+            double tokenize = (double) ( System.nanoTime() - time ) / reps / length;
+            time = System.nanoTime();
+            for ( int r = 0; r < reps; r++ ) {
+               sink += parse( e );
+            }
+            double parse = (double) ( System.nanoTime() - time ) / reps / length;
+            System.out.printf( "%8d %8d %20.2f %17.2f%s%n", terms, length, tokenize, parse,
+               sink == 0 ? " " : "" );
+         }
+      } finally {
+         ParseCache.getShared().setCapacity( capacity );
+      }
+   }
+}
@@ -0,0 +1,157 @@
+/*
+ * Harness.java
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package bench;
+
+/**
+ * A small benchmark harness measuring the average time of an operation, in
+ * the manner of JMH in its average time mode: each benchmark runs a number
+ * of warmup iterations, whose results are discarded, and then a number of
+ * measurement iterations of fixed duration. The results of the operations
+ * are consumed, such that the JIT compiler cannot eliminate them.
+ * <p>
+ * The command line options are those of JMH:
+ * <pre>
+ *   -wi &lt;n&gt;   number of warmup iterations (default 3)
+ *   -i &lt;n&gt;    number of measurement iterations (default 5)
+ *   -r &lt;ms&gt;   duration of each iteration in milliseconds (default 500)
+ *   &lt;regex&gt;   run only the benchmarks whose name contains a match
+ * </pre>
+ * @author agent
+ * @version 1.0
+ */
+public final class Harness {
+   /** An operation to be benchmarked. */
+   public abstract static class Operation {
+      private final String name;
+
+      /** Creates an operation.
+       *  @param name the name of the benchmark
+       */
+      public Operation( String name ) {
+         this.name = name;
+      }
+
+      /** Returns the name of the benchmark.
+       *  @return the name of the benchmark
+       */
+      public String getName() {
+         return name;
+      }
+
+      /** Runs the operation once.
+       *  @return the result of the operation, which is consumed by the harness
+       */
+      public abstract Object run();
+   }
+
+   private final int warmupIterations;
+   private final int iterations;
+   private final long iterationNanos;
+   private final java.util.regex.Pattern filter;
+   /** Consumes the results of the operations. */
+   private volatile int sink;
+
+   /** Creates a harness.
+    *  @param warmupIterations the number of warmup iterations
+    *  @param iterations the number of measurement iterations
+    *  @param iterationMillis the duration of each iteration in milliseconds
+    *  @param filter a regular expression selecting the benchmarks by name, or null for all
+    */
+   public Harness( int warmupIterations, int iterations, long iterationMillis, String filter ) {
+      this.warmupIterations = warmupIterations;
+      this.iterations = iterations;
+      this.iterationNanos = iterationMillis * 1000000L;
+      this.filter = filter == null ? null : java.util.regex.Pattern.compile( filter );
+   }
+
+   /** Creates a harness from command line options.
+    *  @param args the command line options
+    *  @return the harness
+    *  @throws IllegalArgumentException if an option is unknown
+    */
+   public static Harness fromArgs( String[] args ) {
+      int warmupIterations = 3, iterations = 5;
+      long iterationMillis = 500;
+      String filter = null;
+      for ( int i = 0; i < args.length; i++ ) {
+         if ( "-wi".equals( args[i] ) && i + 1 < args.length ) {
+            warmupIterations = Integer.parseInt( args[++i] );
+         } else if ( "-i".equals( args[i] ) && i + 1 < args.length ) {
+            iterations = Integer.parseInt( args[++i] );
+         } else if ( "-r".equals( args[i] ) && i + 1 < args.length ) {
+            iterationMillis = Long.parseLong( args[++i] );
+         } else if ( args[i].startsWith( "-" ) ) {
+            throw new IllegalArgumentException( "Unknown option " + args[i] );
+         } else {
+            filter = args[i];
+         }
+      }
+      return new Harness( warmupIterations, iterations, iterationMillis, filter );
+   }
+
+   /** Prints the header of the result table. */
+   public void printHeader() {
+      System.out.printf( "%-48s %6s %14s %12s%n", "Benchmark", "Cnt", "Score", "Error" );
+   }
+
+   /** Runs an operation and prints its average time per call in microseconds,
+    *  with the standard deviation over the measurement iterations as error.
+    *  Operations not selected by the filter are skipped.
+    *  @param operation the operation
+    */
+   public void run( Operation operation ) {
+      if ( filter != null && !filter.matcher( operation.getName() ).find() ) {
+         return;
+      }
+      for ( int i = 0; i < warmupIterations; i++ ) {
+         iterate( operation );
+      }
+      double[] score = new double[ iterations ];
+      double mean = 0;
+      for ( int i = 0; i < iterations; i++ ) {
+         score[i] = iterate( operation );
+         mean += score[i];
+      }
+      mean /= iterations;
+      double variance = 0;
+      for ( int i = 0; i < iterations; i++ ) {
+         variance += ( score[i] - mean ) * ( score[i] - mean );
+      }
+      double error = iterations > 1 ? Math.sqrt( variance / ( iterations - 1 ) ) : Double.NaN;
+      System.out.printf( "%-48s %6d %14.3f %12.3f  us/op%n", operation.getName(), iterations, mean, error );
+   }
+
+   /** Runs the operation for one iteration and returns the average time per call in microseconds. */
+   private double iterate( Operation operation ) {
+      long calls = 0;
+      int hash = 0;
+      long start = System.nanoTime();
+      long elapsed;
+      do {
+         Object result = operation.run();
+         hash += result == null ? 0 : result.hashCode();
+         calls++;
+         elapsed = System.nanoTime() - start;
+      } while ( elapsed < iterationNanos );
+      sink += hash;
+      return elapsed / 1e3 / calls;
+   }
+}
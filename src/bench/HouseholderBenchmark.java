@@ -0,0 +1,104 @@
+/*
+ * HouseholderBenchmark.java
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package bench;
+
+import java.util.Random;
+
+import algebra.EigenvalueDecomposition;
+import algebra.Matrix;
+import algebra.QRDecomposition;
+
+/**
+ * Measures the scaling of the blocked Householder algorithms with the number
+ * of threads set by {@link Matrix#setParallelism(int)}, namely of the
+ * {@link QRDecomposition} of a random square matrix and of the
+ * {@link EigenvalueDecomposition} of a random symmetric matrix, whose
+ * tridiagonalization runs in parallel. The thread counts are 1, 2, 4, ... up to
+ * the number of available processors. Since the parallel loops do not change the
+ * order of the operations on any entry, the largest deviation from the results of
+ * a single thread is printed as well, which should be zero.
+ * <p>
+ * Usage: <code>java bench.HouseholderBenchmark [maxSize [maxThreads]]</code>
+ * @author agent
+ * @version 1.0
+ */
+public class HouseholderBenchmark {
+   private HouseholderBenchmark() {
+   }
+
+   /** Returns a symmetric <i>n</i> &times; <i>n</i> matrix with random entries. */
+   static Matrix randomSymmetric( int n, Random random ) {
+      double[][] a = new double[n][n];
+      for ( int i = 0; i < n; i++ ) {
+         for ( int j = 0; j <= i; j++ ) {
+            a[i][j] = a[j][i] = random.nextDouble() - .5;
+         }
+      }
+      return new Matrix( a );
+   }
+
+   /** Returns the largest absolute difference of the entries of x and y. */
+   private static double deviation( double[][] x, double[][] y ) {
+      double max = 0;
+      for ( int i = 0; i < x.length; i++ ) {
+         for ( int j = 0; j < x[i].length; j++ ) {
+            max = Math.max( max, Math.abs( x[i][j] - y[i][j] ) );
+         }
+      }
+      return max;
+   }
+
+   public static void main( String[] args ) {
+      int maxSize = args.length > 0 ? Integer.parseInt( args[0] ) : 2000;
+      int maxThreads = args.length > 1
+         ? Integer.parseInt( args[1] ) : Runtime.getRuntime().availableProcessors();
+      int initial = Matrix.getParallelism();
+      Random random = new Random( 42 );
+      System.out.println( "     n  threads      QR [ms]  speedup    eigen [ms]  speedup   max deviation" );
+      for ( int n = 250; n <= maxSize; n *= 2 ) {
+         Matrix a = MatrixMultiplyBenchmark.random( n, random );
+         Matrix s = randomSymmetric( n, random );
+         double qr1 = 0, eigen1 = 0;
+         double[][] r1 = null, v1 = null;
+         for ( int threads = 1; ; threads = Math.min( 2 * threads, maxThreads ) ) {
+            Matrix.setParallelism( threads );
+            new QRDecomposition( a ); // warm up
+            long start = System.nanoTime();
+            double[][] r = new QRDecomposition( a ).getR().getMatrix();
+            double qr = ( System.nanoTime() - start ) / 1e6;
+            start = System.nanoTime();
+            double[][] v = new EigenvalueDecomposition( s ).getV().getMatrix();
+            double eigen = ( System.nanoTime() - start ) / 1e6;
+            if ( threads == 1 ) {
+               qr1 = qr;
+               eigen1 = eigen;
+               r1 = r;
+               v1 = v;
+            }
+            double deviation = Math.max( deviation( r, r1 ), deviation( v, v1 ) );
+            System.out.printf( "%6d %8d %12.1f %8.2f %13.1f %8.2f %15s%n",
+               n, threads, qr, qr1 / qr, eigen, eigen1 / eigen, deviation );
+            if ( threads >= maxThreads ) break;
+         }
+      }
+      Matrix.setParallelism( initial );
+   }
+}
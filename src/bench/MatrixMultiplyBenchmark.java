@@ -0,0 +1,113 @@
+/*
+ * MatrixMultiplyBenchmark.java
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package bench;
+
+import java.util.Random;
+
+import algebra.Matrix;
+
+/**
+ * Measures the throughput of {@link Matrix#times(Matrix)} for square matrices
+ * of growing size in GFLOPS, counting 2<i>n</i>&sup3; floating-point operations
+ * per product. For comparison, the plain <i>i-j-k</i> triple loop is timed as
+ * well up to a moderate size, and the largest deviation of the two products is
+ * printed, which should be zero.
+ * <p>
+ * Usage: <code>java bench.MatrixMultiplyBenchmark [maxSize]</code>
+ * @author agent
+ * @version 1.0
+ */
+public class MatrixMultiplyBenchmark {
+   /** Largest size for which the plain triple loop is timed. */
+   private static final int NAIVE_LIMIT = 1000;
+
+   private MatrixMultiplyBenchmark() {
+   }
+
+   /** Returns an <i>n</i> &times; <i>n</i> matrix with random entries. */
+   static Matrix random( int n, Random random ) {
+      double[][] a = new double[n][n];
+      for ( int i = 0; i < n; i++ ) {
+         for ( int j = 0; j < n; j++ ) {
+            a[i][j] = random.nextDouble() - .5;
+         }
+      }
+      return new Matrix( a );
+   }
+
+   /** Returns the product of the plain triple loop. */
+   static double[][] naive( double[][] a, double[][] b ) {
+      int n = a.length, m = b.length, p = b[0].length;
+      double[][] c = new double[n][p];
+      for ( int i = 0; i < n; i++ ) {
+         for ( int j = 0; j < p; j++ ) {
+            double s = 0;
+            for ( int k = 0; k < m; k++ ) {
+               s += a[i][k] * b[k][j];
+            }
+            c[i][j] = s;
+         }
+      }
+      return c;
+   }
+
+   /** Returns the time of the fastest of the given number of products in seconds. */
+   private static double time( Matrix a, Matrix b, int repetitions ) {
+      double best = Double.MAX_VALUE;
+      for ( int r = 0; r < repetitions; r++ ) {
+         long start = System.nanoTime();
+         a.times( b );
+         best = Math.min( best, ( System.nanoTime() - start ) / 1e9 );
+      }
+      return best;
+   }
+
+   public static void main( String[] args ) {
+      int maxSize = args.length > 0 ? Integer.parseInt( args[0] ) : 2000;
+      Random random = new Random( 42 );
+      System.out.println( "     n   times [ms]  times [GFLOPS]   naive [GFLOPS]   max deviation" );
+      for ( int n = 100; n <= maxSize; n *= 2 ) {
+         Matrix a = random( n, random );
+         Matrix b = random( n, random );
+         double flops = 2.0 * n * n * n;
+         int repetitions = Math.max( 3, (int) ( 2e9 / flops ) );
+         time( a, b, repetitions ); // warm up
+         double t = time( a, b, repetitions );
+         String naive = "-", deviation = "-";
+         if ( n <= NAIVE_LIMIT ) {
+            double[][] x = a.getMatrix(), y = b.getMatrix();
+            naive( x, y ); // warm up
+            long start = System.nanoTime();
+            double[][] c = naive( x, y );
+            naive = String.format( "%.3f", flops / ( System.nanoTime() - start ) );
+            double[][] d = a.times( b ).getMatrix();
+            double max = 0;
+            for ( int i = 0; i < n; i++ ) {
+               for ( int j = 0; j < n; j++ ) {
+                  max = Math.max( max, Math.abs( c[i][j] - d[i][j] ) );
+               }
+            }
+            deviation = String.valueOf( max );
+         }
+         System.out.printf( "%6d %12.2f %15.3f %16s %15s%n", n, t * 1e3, flops / t / 1e9, naive, deviation );
+      }
+   }
+}
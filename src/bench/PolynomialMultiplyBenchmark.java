@@ -0,0 +1,127 @@
+/*
+ * PolynomialMultiplyBenchmark.java
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package bench;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import algebra.Convolution;
+
+/**
+ * Measures the crossovers between the multiplication algorithms of
+ * {@link Convolution}, from which its thresholds are taken. For two random
+ * polynomials of the same length <i>n</i>, the schoolbook method, the Karatsuba
+ * method and the number-theoretic transform are timed for integer coefficients
+ * of the given bit length, and the schoolbook method and the fast Fourier
+ * transform for real coefficients. The integer products are checked to be equal,
+ * and the largest deviation of the real products is printed.
+ * <p>
+ * Usage: <code>java bench.PolynomialMultiplyBenchmark [maxLength [bits]]</code>
+ * @author agent
+ * @version 1.0
+ */
+public class PolynomialMultiplyBenchmark {
+   /** Largest length for which the schoolbook methods are timed. */
+   private static final int SCHOOLBOOK_LIMIT = 4096;
+
+   private PolynomialMultiplyBenchmark() {
+   }
+
+   /** Returns the time of the fastest of the given number of runs in milliseconds. */
+   private static double time( Runnable task, int repetitions ) {
+      double best = Double.MAX_VALUE;
+      for ( int r = 0; r < repetitions; r++ ) {
+         long start = System.nanoTime();
+         task.run();
+         best = Math.min( best, ( System.nanoTime() - start ) / 1e6 );
+      }
+      return best;
+   }
+
+   public static void main( String[] args ) {
+      int maxLength = args.length > 0 ? Integer.parseInt( args[0] ) : 16384;
+      int bits = args.length > 1 ? Integer.parseInt( args[1] ) : 64;
+      Random random = new Random( 42 );
+      System.out.println( "     n   schoolbook [ms]  Karatsuba [ms]    NTT [ms]"
+         + "   schoolbook double [ms]   FFT [ms]   max deviation" );
+      for ( int n = 8; n <= maxLength; n *= 2 ) {
+         final BigInteger[] a = new BigInteger[n], b = new BigInteger[n];
+         final double[] x = new double[n], y = new double[n];
+         for ( int i = 0; i < n; i++ ) {
+            a[i] = new BigInteger( bits, random ).subtract( BigInteger.ONE.shiftLeft( bits - 1 ) );
+            b[i] = new BigInteger( bits, random ).subtract( BigInteger.ONE.shiftLeft( bits - 1 ) );
+            x[i] = random.nextDouble() - .5;
+            y[i] = random.nextDouble() - .5;
+         }
+         int repetitions = Math.max( 3, 1000000 / ( n * n ) );
+         Runnable karatsuba = new Runnable() {
+            public void run() {
+               Convolution.karatsuba( a, b );
+            }
+         };
+         Runnable ntt = new Runnable() {
+            public void run() {
+               Convolution.ntt( a, b );
+            }
+         };
+         Runnable fft = new Runnable() {
+            public void run() {
+               Convolution.fft( x, y );
+            }
+         };
+         time( karatsuba, repetitions ); // warm up
+         time( ntt, repetitions );
+         time( fft, repetitions );
+         String schoolbook = "-", schoolbookDouble = "-", deviation = "-";
+         if ( n <= SCHOOLBOOK_LIMIT ) {
+            Runnable naive = new Runnable() {
+               public void run() {
+                  Convolution.schoolbook( a, b );
+               }
+            };
+            Runnable naiveDouble = new Runnable() {
+               public void run() {
+                  Convolution.schoolbook( x, y );
+               }
+            };
+            time( naive, repetitions );
+            time( naiveDouble, repetitions );
+            schoolbook = String.format( "%.3f", time( naive, repetitions ) );
+            schoolbookDouble = String.format( "%.3f", time( naiveDouble, repetitions ) );
+            BigInteger[] c = Convolution.schoolbook( a, b );
+            if ( !Arrays.equals( c, Convolution.karatsuba( a, b ) )
+                  || !Arrays.equals( c, Convolution.ntt( a, b ) ) ) {
+               throw new AssertionError( "Different integer products for n = " + n );
+            }
+            double[] z = Convolution.schoolbook( x, y ), w = Convolution.fft( x, y );
+            double max = 0;
+            for ( int i = 0; i < z.length; i++ ) {
+               max = Math.max( max, Math.abs( z[i] - w[i] ) );
+            }
+            deviation = String.valueOf( max );
+         }
+         System.out.printf( "%6d %17s %15.3f %11.3f %24s %10.3f %15s%n", n, schoolbook,
+            time( karatsuba, repetitions ), time( ntt, repetitions ),
+            schoolbookDouble, time( fft, repetitions ), deviation );
+      }
+   }
+}
@@ -0,0 +1,331 @@
+/*
+ * AKS.java - The full AKS primality test with a parallel witness loop
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package numbers;
+
+import java.math.BigInteger;
+import static java.math.BigInteger.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import algebra.PolynomialZ;
+
+/**
+ * This class performs the complete AKS primality test of an integer <i>n</i>,
+ * which proves whether <i>n</i> is prime. After M. Agrawal, N. Kayal &amp; N. Saxena,
+ * with the bounds of H.W. Lenstra, the test consists of the following steps,
+ * where lg <i>n</i> denotes the bit length of <i>n</i>:
+ * <ol>
+ * <li>If <i>n</i> is a perfect power, then <i>n</i> is composite.</li>
+ * <li>Find the smallest <i>r</i> such that the order of <i>n</i> modulo <i>r</i>
+ * exceeds (lg <i>n</i>)<sup>2</sup>. If 1 &lt; gcd(<i>a</i>, <i>n</i>) &lt; <i>n</i>
+ * for some <i>a</i> &le; <i>r</i>, then <i>n</i> is composite, and if <i>n</i> &le; <i>r</i>,
+ * then <i>n</i> is prime.</li>
+ * <li>If for some witness <i>a</i> = 1, ...,
+ * &lfloor;&radic;&phi;(<i>r</i>) lg <i>n</i>&rfloor;
+ * <p style="text-align:center">
+ *   (<i>x</i> + <i>a</i>)<sup><i>n</i></sup> &ne; <i>x<sup>n</sup></i> + <i>a</i>
+ *   &nbsp; mod (<i>x<sup>r</sup></i> - 1, <i>n</i>),
+ * </p>
+ * then <i>n</i> is composite, otherwise it is prime.</li>
+ * </ol>
+ * The witnesses of step 3, which dominate the running time, are checked independently
+ * of each other by {@link PolynomialZ#modPow(BigInteger, int, BigInteger)}. If an
+ * {@link Executor} is specified, each witness is a task of its own, and the first
+ * failing witness cancels all tasks which have not yet started. While {@link #test()}
+ * is running, its progress can be queried from other threads by
+ * {@link #getCheckedWitnesses()} and {@link #getProgress()}:
+ * <pre>
+ *    ExecutorService executor = Executors.newFixedThreadPool(4);
+ *    AKS aks = new AKS(n, executor);
+ *    boolean prime = aks.test();
+ *    System.out.println(aks); // r, witnesses and running times
+ *    executor.shutdown();
+ * </pre>
+ * Note that the number of witnesses and the degree <i>r</i> grow as
+ * (lg <i>n</i>)<sup>3</sup> and (lg <i>n</i>)<sup>2</sup>, respectively, so the
+ * complete test is expensive even for moderate sizes of <i>n</i>.
+ * For a fast test checking only the witness <i>a</i> = 1, see
+ * {@link BigNumbers#primalityTestAKS(BigInteger)}.
+ * @author agent
+ * @version 1.0
+ */
+public class AKS {
+   /** The number to be tested.*/
+   private final BigInteger n;
+   /** The executor running the witness checks, or null for the current thread.*/
+   private final Executor executor;
+   /** The polynomial degree <i>r</i>, read by the progress getters from other threads.*/
+   private volatile int r;
+   /** The number of witnesses, i.e., the largest witness to be checked.*/
+   private volatile int witnesses;
+   /** The number of witnesses checked so far.*/
+   private final AtomicInteger checked = new AtomicInteger();
+   /** The first failing witness found, or 0.*/
+   private volatile int failingWitness;
+   /** The result of the test, or null if it has not yet been completed.*/
+   private volatile Boolean prime;
+   /** The running times of steps 1 and 2 and of step 3, in nanoseconds.*/
+   private volatile long setupTime, witnessTime;
+
+   /** Creates the AKS test of <i>n</i>, checking the witnesses in the current thread.
+    *  @param n the number to be tested
+    */
+   public AKS(BigInteger n) {
+      this(n, null);
+   }
+
+   /** Creates the AKS test of <i>n</i>, checking the witnesses in parallel by the
+    *  specified executor. The executor is not shut down by this class.
+    *  @param n the number to be tested
+    *  @param executor the executor for the witness checks, or null for the current thread
+    */
+   public AKS(BigInteger n, Executor executor) {
+      this.n = n;
+      this.executor = executor;
+   }
+
+   /** Performs the test, or returns its result if it has already been performed.
+    *  @return true if and only if <i>n</i> is prime
+    *  @throws IllegalStateException if the current thread is interrupted while
+    *  waiting for the witness checks, which then are cancelled
+    */
+   public synchronized boolean test() {
+      if (prime != null) return prime;
+      long start = System.nanoTime();
+      boolean candidate = setup();
+      setupTime = System.nanoTime() - start;
+      if (candidate && witnesses > 0) {
+         start = System.nanoTime();
+         try {
+            failingWitness = executor == null ? checkSequentially() : checkInParallel();
+         } finally {
+            witnessTime = System.nanoTime() - start;
+         }
+         candidate = failingWitness == 0;
+      }
+      prime = candidate;
+      return candidate;
+   }
+
+   /** Performs steps 1 and 2 and sets <i>r</i> and the number of witnesses.
+    *  Returns false if <i>n</i> is composite, and true if <i>n</i> is prime or if
+    *  the witnesses have to be checked. */
+   private boolean setup() {
+      if (n.compareTo(BigNumbers.TWO) <= 0) return n.equals(BigNumbers.TWO);
+      if (!n.testBit(0) || BigNumbers.isPower(n)) return false;
+
+      int lgn = n.bitLength();
+      long minOrder = (long) lgn * lgn;
+      int q;
+      for (q = 2; ; q++) {
+         long m = n.mod(BigInteger.valueOf(q)).longValue();
+         if (Numbers.gcd(m, q) > 1) {
+            // 1 < gcd(q, n) < n, unless n = q:
+            return n.equals(BigInteger.valueOf(q));
+         }
+         if (q > minOrder && order(m, q) > minOrder) break;
+      }
+      r = q;
+      // floor(sqrt(phi(r)) lg n) < r < n, since phi(r) < r and r > (lg n)^2:
+      witnesses = (int) (Math.sqrt(phi(q)) * lgn);
+      return true;
+   }
+
+   /** Returns the first failing witness, or 0 if all witnesses are passed. */
+   private int checkSequentially() {
+      for (int a = 1; a <= witnesses; a++) {
+         if (!isPassed(a)) return a;
+         checked.incrementAndGet();
+      }
+      return 0;
+   }
+
+   /** Returns the first failing witness found by the executor, or 0 if all witnesses are passed. */
+   private int checkInParallel() {
+      CompletionService<Integer> service = new ExecutorCompletionService<Integer>(executor);
+      List<Future<Integer>> tasks = new ArrayList<Future<Integer>>(witnesses);
+      try {
+         for (int a = 1; a <= witnesses; a++) {
+            final int witness = a;
+            tasks.add(service.submit(new Callable<Integer>() {
+               public Integer call() {
+                  if (failingWitness != 0) return 0; // cancelled
+                  if (!isPassed(witness)) {
+                     failingWitness = witness;
+                     return witness;
+                  }
+                  checked.incrementAndGet();
+                  return 0;
+               }
+            }));
+         }
+         for (int i = 0; i < witnesses; i++) {
+            int witness = service.take().get();
+            if (witness != 0) return witness;
+         }
+         return 0;
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException("AKS test of " + n + " interrupted", e);
+      } catch (ExecutionException e) {
+         throw new IllegalStateException("AKS test of " + n + " failed", e.getCause());
+      } finally {
+         for (Future<Integer> task : tasks) {
+            task.cancel(true);
+         }
+      }
+   }
+
+   /** Returns true if (x + a)^n = x^n + a mod (x^r - 1, n). */
+   private boolean isPassed(int a) {
+      PolynomialZ p = new PolynomialZ();
+      p.put(ONE, ONE);
+      p.put(ZERO, BigInteger.valueOf(a));
+      p = p.modPow(n, r, n);
+      PolynomialZ q = new PolynomialZ();
+      q.put(n.mod(BigInteger.valueOf(r)), ONE);
+      q.put(ZERO, BigInteger.valueOf(a)); // a < n
+      return p.equals(q);
+   }
+
+   /** Returns the multiplicative order of m modulo r, for gcd(m, r) = 1, as the
+    *  least divisor k of phi(r) with m^k = 1 mod r. */
+   private static long order(long m, int r) {
+      long k = phi(r);
+      long rest = k;
+      for (long p = 2; p * p <= rest; p++) {
+         if (rest % p == 0) {
+            while (rest % p == 0) rest /= p;
+            while (k % p == 0 && modPow(m, k / p, r) == 1) k /= p;
+         }
+      }
+      if (rest > 1 && modPow(m, k / rest, r) == 1) k /= rest;
+      return k;
+   }
+
+   /** Returns Euler's totient of r. */
+   private static long phi(int r) {
+      long phi = r;
+      int rest = r;
+      for (int p = 2; p * p <= rest; p++) {
+         if (rest % p == 0) {
+            while (rest % p == 0) rest /= p;
+            phi -= phi / p;
+         }
+      }
+      if (rest > 1) phi -= phi / rest;
+      return phi;
+   }
+
+   /** Returns m^e mod r for r &lt; 2^31. */
+   private static long modPow(long m, long e, int r) {
+      long y = 1;
+      m %= r;
+      while (e > 0) {
+         if ((e & 1) == 1) y = y * m % r;
+         m = m * m % r;
+         e >>= 1;
+      }
+      return y;
+   }
+
+   /** Returns the number tested.
+    *  @return <i>n</i>
+    */
+   public BigInteger getNumber() {
+      return n;
+   }
+
+   /** Returns the polynomial degree <i>r</i>, which is known after the test has started
+    *  and is 0 if <i>n</i> has turned out to be composite before.
+    *  @return <i>r</i>
+    */
+   public int getR() {
+      return witnesses > 0 ? r : 0;
+   }
+
+   /** Returns the number of witnesses <i>a</i> to be checked, i.e.,
+    *  &lfloor;&radic;&phi;(<i>r</i>) lg <i>n</i>&rfloor;, which is known after
+    *  the test has started and is 0 if no witness has to be checked.
+    *  @return the number of witnesses
+    */
+   public int getWitnesses() {
+      return witnesses;
+   }
+
+   /** Returns the number of witnesses passed so far.
+    *  @return the number of witnesses checked and passed
+    */
+   public int getCheckedWitnesses() {
+      return checked.get();
+   }
+
+   /** Returns the fraction of witnesses passed so far, between 0 and 1.
+    *  @return the progress of step 3
+    */
+   public double getProgress() {
+      return witnesses == 0 ? (prime == null ? 0 : 1) : (double) checked.get() / witnesses;
+   }
+
+   /** Returns the witness <i>a</i> proving <i>n</i> to be composite, or 0 if there is
+    *  none. If the witnesses are checked in parallel, it is not necessarily the least one.
+    *  @return the failing witness, or 0
+    */
+   public int getFailingWitness() {
+      return failingWitness;
+   }
+
+   /** Returns the running time of the perfect power test and of the search for
+    *  <i>r</i> in milliseconds.
+    *  @return the running time of steps 1 and 2 in ms
+    */
+   public double getSetupTime() {
+      return setupTime / 1e6;
+   }
+
+   /** Returns the running time of the witness checks in milliseconds.
+    *  @return the running time of step 3 in ms
+    */
+   public double getWitnessTime() {
+      return witnessTime / 1e6;
+   }
+
+   /** Returns a summary of the test, with its result, <i>r</i>, the witnesses and
+    *  the running times.
+    *  @return a string representation of this test
+    */
+   @Override
+   public String toString() {
+      String result = prime == null ? "untested" : prime ? "prime" : "composite";
+      return "AKS(" + n + "): " + result + ", r=" + getR() + ", witnesses "
+         + getCheckedWitnesses() + "/" + witnesses
+         + (failingWitness != 0 ? ", failing a=" + failingWitness : "")
+         + ", setup " + String.format("%.1f", getSetupTime()) + " ms"
+         + ", witness checks " + String.format("%.1f", getWitnessTime()) + " ms";
+   }
+}
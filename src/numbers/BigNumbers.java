@@ -643,38 +643,159 @@ public class BigNumbers {
       return m.multiply(n).divide(m.gcd(n));
    }
 
-   /** Tests deterministically whether the given integer <i>n</i> is prime.
-    *  This algorithm first uses the method
-    *  {@link java.math.BigInteger#isProbablePrime(int) isProbablePrime}
-    *  of the class {@link java.math.BigInteger} which yields false if
-    *  the given number is not prime with certainty.
+   /** The product of the primes below 1000, whose multiples are sorted out by a single gcd.*/
+   private static final BigInteger SMALL_PRIMES_PRODUCT = primesProduct(1000);
+
+   /** Returns the product of all primes below the given bound. */
+   private static BigInteger primesProduct(int bound) {
+      BigInteger product = ONE;
+      for (int p = 2; p < bound; p++) {
+         if (Numbers.isPrime(p)) {
+            product = product.multiply(BigInteger.valueOf(p));
+         }
+      }
+      return product;
+   }
+
+   /** Tests whether the given integer <i>n</i> is prime.
+    *  For <i>n</i> &lt; 2<sup>63</sup> the deterministic Miller-Rabin test
+    *  {@link Numbers#isPrime(long)} is applied. A greater number is tested by the 
+    *  Baillie-PSW test: after its multiples of the primes below 1000 are sorted out, 
+    *  <i>n</i> has to be both a strong probable prime to base 2 and a strong Lucas 
+    *  probable prime, cf. R. Crandall &amp; C. Pomerance:
+    *  <i>Prime Numbers. A Computational Perspective.</i> 2<sup>nd</sup> edition.
+    *  Springer, New York 2005, &sect;3.6.
+    *  No composite number passing both tests is known, and there is none below 2<sup>64</sup>.
+    *  The running time is that of a few modular exponentiations, i.e., polynomial
+    *  in log <i>n</i>; a primality proof is given by {@link AKS}.
     *  @param n the integer to test
-    *  @return true if and only if <i>n</i> is prime.
+    *  @return true if <i>n</i> is prime, and false if <i>n</i> is not prime.
+    *  @see #isStrongProbablePrime(BigInteger,BigInteger)
+    *  @see #isStrongLucasProbablePrime(BigInteger)
     */
    public static boolean isPrime(BigInteger n) {
-      if (n.equals(TWO))   return true;
-      if (n.equals(THREE)) return true;
-      if (n.signum() < 0 || n.mod(TWO).equals(ZERO) || n.mod(THREE).equals(ZERO)) {
+      if (n.signum() <= 0) return false;
+      if (n.bitLength() < 64) {
+         return Numbers.isPrime(n.longValue());
+      }
+      if (!n.gcd(SMALL_PRIMES_PRODUCT).equals(ONE)) {
          return false;
       }
+      return isStrongProbablePrime(n, TWO) && isStrongLucasProbablePrime(n);
+   }
 
-      if (!n.isProbablePrime(1000)) return false; // definitely not prime!
-      //System.out.println(n + " is probably prime!");
-
-      BigInteger FOUR = BigInteger.valueOf(4);
-      boolean bigstep = false;  // flag for wheel 2-4-2-4-2-...
-      BigInteger i = BigInteger.valueOf(5);
-      BigInteger iMax = sqrt(n).toBigInteger();
+   /** Returns the Jacobi symbol (<i>a</i>/<i>n</i>) for an odd number <i>n</i> &gt; 0.
+    *  It is computed by the law of quadratic reciprocity without factoring <i>n</i>,
+    *  cf. R. Crandall &amp; C. Pomerance:
+    *  <i>Prime Numbers. A Computational Perspective.</i> 2<sup>nd</sup> edition.
+    *  Springer, New York 2005, Algorithm 2.3.5.
+    *  @param a an integer
+    *  @param n an odd positive integer
+    *  @return the Jacobi symbol (<i>a</i>/<i>n</i>), being 0, 1, or -1
+    *  @throws IllegalArgumentException if <i>n</i> is even or not positive
+    */
+   public static int jacobi(BigInteger a, BigInteger n) {
+      if (n.signum() <= 0 || !n.testBit(0)) {
+         throw new IllegalArgumentException("n="+n+" is not an odd positive number");
+      }
+      a = a.mod(n);
+      int symbol = 1;
+      while (a.signum() != 0) {
+         int z = a.getLowestSetBit();
+         a = a.shiftRight(z);
+         int n8 = n.intValue() & 7; // = n mod 8
+         if ((z & 1) == 1 && (n8 == 3 || n8 == 5)) {
+            symbol = -symbol;
+         }
+         // reciprocity for the odd numbers a and n:
+         if ((a.intValue() & 3) == 3 && (n8 & 3) == 3) {
+            symbol = -symbol;
+         }
+         BigInteger tmp = a;
+         a = n.mod(a);
+         n = tmp;
+      }
+      return n.equals(ONE) ? symbol : 0;
+   }
 
-      while (i.compareTo(iMax) <= 0) {
-         if (n.mod(i).equals(ZERO)) {
+   /** Returns true if <i>n</i> is a strong Lucas probable prime, and false if
+    *  <i>n</i> is not prime. The parameters of the Lucas sequences are chosen by 
+    *  the method of Selfridge: <i>D</i> is the first of the numbers 5, -7, 9, -11, ...
+    *  with the Jacobi symbol (<i>D</i>/<i>n</i>) = -1, <i>P</i> = 1, and 
+    *  <i>Q</i> = (1 - <i>D</i>)/4. Then with <i>n</i> + 1 = <i>t</i> 2<sup><i>s</i></sup>
+    *  for odd <i>t</i>, the number <i>n</i> is a strong Lucas probable prime if 
+    *  <i>U<sub>t</sub></i> &equiv; 0 or <i>V</i><sub><i>t</i> 2<sup><i>r</i></sup></sub> &equiv; 0
+    *  mod <i>n</i> for some 0 &le; <i>r</i> &lt; <i>s</i>, 
+    *  cf. R. Crandall &amp; C. Pomerance:
+    *  <i>Prime Numbers. A Computational Perspective.</i> 2<sup>nd</sup> edition.
+    *  Springer, New York 2005, &sect;3.6.
+    *  @param n an odd number &gt; 3
+    *  @return true if <i>n</i> is a strong Lucas probable prime,
+    *  and false if <i>n</i> is not prime
+    *  @throws IllegalArgumentException if <i>n</i> &le; 3 or <i>n</i> is even
+    *  @see #isPrime(BigInteger)
+    */
+   public static boolean isStrongLucasProbablePrime(BigInteger n) {
+      if (n.compareTo(THREE) <= 0 || !n.testBit(0)) {
+         throw new IllegalArgumentException("n="+n);
+      }
+
+      // Determine D by Selfridge's method; if n is a square, there is none:
+      long d = 5;
+      for (int trials = 1; ; trials++) {
+         BigInteger dd = BigInteger.valueOf(d);
+         int symbol = jacobi(dd, n);
+         if (symbol == -1) break;
+         if (symbol == 0 && n.compareTo(dd.abs()) > 0) {
+            return false; // |D| and n have a common factor
+         }
+         if (trials == 5 && rootFloor(2, n).pow(2).equals(n)) {
             return false;
          }
-         //<=>  flag = !(n.mod(i).equals(ZERO));
-         i = bigstep ? i.add(FOUR) : i.add(TWO);
-         bigstep = !bigstep;
+         d = d > 0 ? -d - 2 : -d + 2;
+      }
+      BigInteger D = BigInteger.valueOf(d);
+      BigInteger Q = BigInteger.valueOf((1 - d) / 4);
+
+      // Determine s and t such that n+1 = t*2^s:
+      int s = n.add(ONE).getLowestSetBit();
+      BigInteger t = n.add(ONE).shiftRight(s);
+
+      // Compute U_t, V_t and Q^t mod n by the binary expansion of t, starting from
+      // U_1 = 1, V_1 = P = 1:
+      BigInteger u = ONE, v = ONE, qk = Q.mod(n);
+      for (int i = t.bitLength() - 2; i >= 0; i--) {
+         // U_2k = U_k V_k, V_2k = V_k^2 - 2Q^k:
+         u = u.multiply(v).mod(n);
+         v = v.multiply(v).subtract(qk.shiftLeft(1)).mod(n);
+         qk = qk.multiply(qk).mod(n);
+         if (t.testBit(i)) {
+            // U_k+1 = (P U_k + V_k)/2, V_k+1 = (D U_k + P V_k)/2:
+            BigInteger tmp = half(u.add(v), n);
+            v = half(D.multiply(u).add(v), n);
+            u = tmp;
+            qk = qk.multiply(Q).mod(n);
+         }
       }
-      return true;
+      if (u.signum() == 0 || v.signum() == 0) {
+         return true;
+      }
+
+      // Test V_t2^r for the powers of 2 in n+1:
+      for (int r = 1; r < s; r++) {
+         v = v.multiply(v).subtract(qk.shiftLeft(1)).mod(n);
+         if (v.signum() == 0) {
+            return true;
+         }
+         qk = qk.multiply(qk).mod(n);
+      }
+      return false;
+   }
+
+   /** Returns <i>x</i>/2 mod <i>n</i> for an odd modulus <i>n</i>. */
+   private static BigInteger half(BigInteger x, BigInteger n) {
+      x = x.mod(n);
+      return (x.testBit(0) ? x.add(n) : x).shiftRight(1);
    }
 
    /** Returns true if <i>n</i> is a strong probable prime to base <i>a</i>,
@@ -726,6 +847,8 @@ public class BigNumbers {
     *  This test has a polynomial time complexity with respect to log <i>n</i>,
     *  proving that the decision problem whether a given integer is prime, is
     *  in the complexity class <b>P</b>.
+    *  For speed, only the witness <i>a</i> = 1 is checked; the complete test is 
+    *  performed by {@link #primalityTestAKS(BigInteger, java.util.concurrent.Executor)}.
     *  @param n an integer &gt; 1
     *  @return true if and only if <i>n</i> is prime
     */
@@ -758,10 +881,12 @@ public class BigNumbers {
 
          k = 0;
          rDivides = false;
+         long nModR = n.mod(r_).longValue(), power = 1; // power = n^k mod r
          while (k <= minOrder && !rDivides) {
             k++;
             // r divides n^k - 1?
-            rDivides = n.pow(k).subtract(ONE).mod(r_).equals(ZERO);
+            power = power * nModR % r;
+            rDivides = power == 1;
          }
       }
 
@@ -809,6 +934,20 @@ public class BigNumbers {
       // */
    }
 
+   /**
+    *  The complete AKS primality test, returns true if and only if the integer
+    *  <i>n</i> is prime. The witnesses are checked in parallel by the specified
+    *  executor, and the first failing witness cancels the remaining checks.
+    *  For the progress and the running times of the test, see {@link AKS}.
+    *  @param n an integer
+    *  @param executor the executor for the witness checks, or null for the current thread
+    *  @return true if and only if <i>n</i> is prime
+    *  @see AKS
+    */
+   public static boolean primalityTestAKS(BigInteger n, java.util.concurrent.Executor executor) {
+      return new AKS(n, executor).test();
+   }
+
    /**
     * Test for reduced AKS algorithm (probably wrong!)
     * @param n the integer to be analyzed
@@ -877,14 +1016,12 @@ public class BigNumbers {
     *  <i>n = m<sup>k</sup></i>
     */
    public static boolean isPower(BigInteger n) {
-      BigDecimal temp;
-      BigDecimal nBD = new BigDecimal(n);
+      if (n.signum() <= 0) return false;
       int greatexp = n.bitLength();  // = [log_2(n)]
       int k = 2;
 
       while (k <= greatexp) {
-         temp = pow(root(k, n).setScale(0,BigDecimal.ROUND_HALF_UP), k);
-         if (nBD.compareTo(temp.setScale(0, BigDecimal.ROUND_HALF_UP)) == 0) {
+         if (rootFloor(k, n).pow(k).equals(n)) {
             return true;
          }
          k++;
@@ -892,6 +1029,20 @@ public class BigNumbers {
       return false;
    }
 
+   /** Returns the integer <i>k</i>th root [<i>n</i><sup>1/<i>k</i></sup>] of <i>n</i> &gt; 0
+    *  by Newton's iteration in integer arithmetic, which decreases monotonically
+    *  from the initial value 2<sup>&#x2308;log<sub>2</sub> <i>n</i>/<i>k</i>&#x2309;</sup>. */
+   private static BigInteger rootFloor(int k, BigInteger n) {
+      BigInteger x = ONE.shiftLeft((n.bitLength() + k - 1) / k);
+      BigInteger k_ = BigInteger.valueOf(k), k1 = BigInteger.valueOf(k - 1);
+      while (true) {
+         // y = ((k-1) x + n / x^(k-1)) / k:
+         BigInteger y = k1.multiply(x).add(n.divide(x.pow(k - 1))).divide(k_);
+         if (y.compareTo(x) >= 0) return x;
+         x = y;
+      }
+   }
+
 
    /** Returns an array containing coefficients of the continued fraction of
     *  the number <i>x</i>, with at most <code>limit</code> coefficients.
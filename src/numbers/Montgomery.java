@@ -0,0 +1,178 @@
+/*
+ * Montgomery.java - Modular arithmetic for odd 63 bit moduli by Montgomery multiplication
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package numbers;
+
+/**
+ * This class provides the arithmetic modulo an odd number <i>n</i> &lt; 2<sup>63</sup>
+ * by Montgomery multiplication, avoiding both the division of the 128 bit products
+ * and any overflow. A residue <i>x</i> is represented by its Montgomery form
+ * <i>xR</i> mod <i>n</i> with <i>R</i> = 2<sup>64</sup>, such that the product of
+ * two representations only needs the reduction
+ * <i>T</i> &#x21A6; <i>TR</i><sup>-1</sup> mod <i>n</i>, which consists of
+ * multiplications and shifts:
+ * <pre>
+ *    Montgomery m = new Montgomery(n);
+ *    long x = m.toMontgomery(a), y = m.toMontgomery(b);
+ *    long ab = m.fromMontgomery(m.multiply(x, y)); // = a*b mod n
+ * </pre>
+ * All representations are in the range 0 &le; <i>x</i> &lt; <i>n</i>, hence sums and
+ * differences are computed by {@link #add(long, long)} and {@link #subtract(long, long)}
+ * as usual. Since Java 8 lacks an intrinsic for the high word of a 64 &times; 64 bit
+ * product, it is computed by {@link #multiplyHigh(long, long)} from four 32 bit products.
+ * @author agent
+ * @version 1.0
+ */
+public class Montgomery {
+   /** The modulus.*/
+   private final long n;
+   /** The number -<i>n</i><sup>-1</sup> mod 2<sup>64</sup>.*/
+   private final long nPrime;
+   /** The Montgomery form <i>R</i> mod <i>n</i> of 1.*/
+   private final long one;
+   /** The number <i>R</i><sup>2</sup> mod <i>n</i>, converting into the Montgomery form.*/
+   private final long r2;
+
+   /** Creates the arithmetic modulo the specified odd number.
+    *  @param n the modulus
+    *  @throws IllegalArgumentException if <i>n</i> is even or not positive
+    */
+   public Montgomery(long n) {
+      if (n <= 0 || (n & 1) == 0) {
+         throw new IllegalArgumentException("Modulus is not an odd positive number: " + n);
+      }
+      this.n = n;
+      // Newton iteration for the inverse of n mod 2^64, doubling the correct bits from 3:
+      long inverse = n;
+      for (int i = 0; i < 5; i++) {
+         inverse *= 2 - n * inverse;
+      }
+      nPrime = -inverse;
+      one = Long.remainderUnsigned(-n, n); // 2^64 - n = R mod n
+      long x = one;
+      for (int i = 0; i < 64; i++) {
+         x = add(x, x);
+      }
+      r2 = x;
+   }
+
+   /** Returns the modulus <i>n</i>.
+    *  @return the modulus
+    */
+   public long getModulus() {
+      return n;
+   }
+
+   /** Returns the Montgomery form of 1.
+    *  @return <i>R</i> mod <i>n</i>
+    */
+   public long one() {
+      return one;
+   }
+
+   /** Returns the Montgomery form <i>xR</i> mod <i>n</i> of <i>x</i>.
+    *  @param x a number
+    *  @return <i>xR</i> mod <i>n</i>
+    */
+   public long toMontgomery(long x) {
+      x %= n;
+      if (x < 0) x += n;
+      return multiply(x, r2);
+   }
+
+   /** Returns the residue <i>x</i> mod <i>n</i> represented by the Montgomery form <i>x</i>.
+    *  @param x a Montgomery form
+    *  @return <i>xR</i><sup>-1</sup> mod <i>n</i>
+    */
+   public long fromMontgomery(long x) {
+      return reduce(0, x);
+   }
+
+   /** Returns the Montgomery form of the product of the residues represented by
+    *  <i>x</i> and <i>y</i>, i.e., <i>xyR</i><sup>-1</sup> mod <i>n</i>.
+    *  @param x a Montgomery form
+    *  @param y a Montgomery form
+    *  @return <i>xyR</i><sup>-1</sup> mod <i>n</i>
+    */
+   public long multiply(long x, long y) {
+      return reduce(multiplyHigh(x, y), x * y);
+   }
+
+   /** Returns (<i>x</i> + <i>y</i>) mod <i>n</i> for 0 &le; <i>x</i>, <i>y</i> &lt; <i>n</i>.
+    *  @param x a Montgomery form
+    *  @param y a Montgomery form
+    *  @return (<i>x</i> + <i>y</i>) mod <i>n</i>
+    */
+   public long add(long x, long y) {
+      long z = x - (n - y); // no overflow, both terms are in [0, n]
+      return z < 0 ? z + n : z;
+   }
+
+   /** Returns (<i>x</i> - <i>y</i>) mod <i>n</i> for 0 &le; <i>x</i>, <i>y</i> &lt; <i>n</i>.
+    *  @param x a Montgomery form
+    *  @param y a Montgomery form
+    *  @return (<i>x</i> - <i>y</i>) mod <i>n</i>
+    */
+   public long subtract(long x, long y) {
+      long z = x - y;
+      return z < 0 ? z + n : z;
+   }
+
+   /** Returns the Montgomery form of <i>a<sup>e</sup></i> mod <i>n</i>, where
+    *  <i>x</i> is the Montgomery form of <i>a</i>.
+    *  @param x a Montgomery form
+    *  @param e a nonnegative exponent
+    *  @return the Montgomery form of the power
+    */
+   public long pow(long x, long e) {
+      long y = one;
+      while (e > 0) {
+         if ((e & 1L) == 1) {
+            y = multiply(y, x);
+         }
+         x = multiply(x, x);
+         e >>= 1;
+      }
+      return y;
+   }
+
+   /** Returns <i>TR</i><sup>-1</sup> mod <i>n</i> for the 128 bit number
+    *  <i>T</i> = <i>hi</i> 2<sup>64</sup> + <i>lo</i> &lt; <i>n</i>&middot;2<sup>64</sup>. */
+   private long reduce(long hi, long lo) {
+      long m = lo * nPrime;
+      // T + mn is divisible by 2^64, and its lower word lo + mn overflows iff lo != 0:
+      long t = hi + multiplyHigh(m, n) + (lo != 0 ? 1 : 0);
+      // t < 2n < 2^64, hence t is negative as a signed number only if t >= n:
+      return (t < 0 || t >= n) ? t - n : t;
+   }
+
+   /** Returns the upper 64 bits of the unsigned 128 bit product of <i>x</i> and <i>y</i>.
+    *  @param x an unsigned 64 bit number
+    *  @param y an unsigned 64 bit number
+    *  @return the high word of <i>xy</i>
+    */
+   public static long multiplyHigh(long x, long y) {
+      long x0 = x & 0xFFFFFFFFL, x1 = x >>> 32;
+      long y0 = y & 0xFFFFFFFFL, y1 = y >>> 32;
+      long p00 = x0 * y0, p01 = x0 * y1, p10 = x1 * y0, p11 = x1 * y1;
+      long middle = (p00 >>> 32) + (p01 & 0xFFFFFFFFL) + (p10 & 0xFFFFFFFFL);
+      return p11 + (p01 >>> 32) + (p10 >>> 32) + (middle >>> 32);
+   }
+}
@@ -0,0 +1,888 @@
+package util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import util.Expression.ExpressionException;
+import util.Expression.Function;
+import util.Expression.LazyFunction;
+import util.Expression.LazyNumber;
+import util.Expression.Operator;
+
+/**
+ * An {@link Expression} compiled into an immutable tree of nodes. All
+ * operators, functions and constants are resolved once by
+ * {@link Expression#compile(String...)}, and the variables named there are
+ * replaced by indexed slots. Repeated evaluation with different variable
+ * values therefore needs neither map lookups nor string comparisons, and
+ * allocates no closures per token.
+ * <p>
+ * The tree is optimized while it is built: sub-expressions of built-in
+ * operators and functions on constants, such as <code>PI*2</code>, are
+ * evaluated once with the configured {@link java.math.MathContext}, and
+ * equal sub-expressions are shared and evaluated only once per evaluation.
+ * The non-deterministic <code>RANDOM</code> and user-defined operators and
+ * functions are neither folded nor shared.
+ * <p>
+ * Instances are immutable and the variable values are passed in with each
+ * call, so a compiled expression can be shared by any number of threads.
+ * <p>
+ * Besides the exact {@link BigDecimal} evaluation, {@link #evalDouble(double...)}
+ * runs the same tree on primitive <code>double</code> values, for plotting
+ * and simulations where 15 significant digits suffice.
+ */
+public class CompiledExpression {
+
+	/**
+	 * Code of operators and functions without a <code>double</code>
+	 * implementation; these are evaluated through their {@link BigDecimal}
+	 * implementation.
+	 */
+	private static final int BRIDGE = -1;
+
+	private static final int ADD = 0, SUBTRACT = 1, MULTIPLY = 2, DIVIDE = 3, REMAINDER = 4, POWER = 5, AND = 6,
+			OR = 7, GREATER = 8, GREATER_EQUAL = 9, LESS = 10, LESS_EQUAL = 11, EQUAL = 12, NOT_EQUAL = 13;
+
+	private static final int NOT = 0, IF = 1, RANDOM = 2, SIN = 3, COS = 4, TAN = 5, ASIN = 6, ACOS = 7, ATAN = 8,
+			SINH = 9, COSH = 10, TANH = 11, RAD = 12, DEG = 13, CBRT = 14, POW = 15, MAX = 16, MIN = 17, ABS = 18,
+			LOG = 19, LOG10 = 20, ROUND = 21, FLOOR = 22, CEILING = 23, SQRT = 24, FAC = 25;
+
+	/**
+	 * Codes of the built-in operators of {@link Expression}.
+	 */
+	private static final Map<String, Integer> operatorCodes = new HashMap<String, Integer>();
+
+	/**
+	 * Codes of the built-in functions of {@link Expression}.
+	 */
+	private static final Map<String, Integer> functionCodes = new HashMap<String, Integer>();
+
+	static {
+		String[] operators = { "+", "-", "*", "/", "%", "^", "&&", "||", ">", ">=", "<", "<=", "=", "!=" };
+		for (int i = 0; i < operators.length; i++) {
+			operatorCodes.put(operators[i], i);
+		}
+		operatorCodes.put("==", EQUAL);
+		operatorCodes.put("<>", NOT_EQUAL);
+
+		String[] functions = { "NOT", "IF", "RANDOM", "SIN", "COS", "TAN", "ASIN", "ACOS", "ATAN", "SINH", "COSH",
+				"TANH", "RAD", "DEG", "CBRT", "POW", "MAX", "MIN", "ABS", "LOG", "LOG10", "ROUND", "FLOOR", "CEILING",
+				"SQRT", "FAC" };
+		for (int i = 0; i < functions.length; i++) {
+			functionCodes.put(functions[i], i);
+		}
+	}
+
+	/**
+	 * Marker for the start of a function parameter list while building the
+	 * tree, the counterpart of the <code>PARAMS_START</code> lazy number in
+	 * {@link Expression}.
+	 */
+	static final Node PARAMS_START = new Constant(null);
+
+	/**
+	 * The names of the variable slots, in the order their values are passed
+	 * to {@link #eval(BigDecimal...)}.
+	 */
+	private final String[] variableNames;
+
+	/**
+	 * The root of the expression tree.
+	 */
+	private final Node root;
+
+	/**
+	 * The sub-expressions occurring more than once in the tree, evaluated
+	 * before the root in this order. The tree reads the value of the i-th
+	 * one from the slot <code>variableNames.length + i</code>.
+	 */
+	private final Node[] shared;
+
+	CompiledExpression(Node root, Node[] shared, String[] variableNames) {
+		this.root = root;
+		this.shared = shared;
+		this.variableNames = variableNames;
+	}
+
+	/**
+	 * Evaluates the compiled expression.
+	 *
+	 * @param values
+	 *            The values of the variables, in the order the variable names
+	 *            were given to {@link Expression#compile(String...)}.
+	 * @return The result of the expression.
+	 */
+	public BigDecimal eval(BigDecimal... values) {
+		if (values.length != variableNames.length) {
+			throw new ExpressionException(
+					"Expected " + variableNames.length + " variable values, got " + values.length);
+		}
+		return evalTree(values).stripTrailingZeros();
+	}
+
+	/**
+	 * Evaluates the compiled expression with the variable values looked up by
+	 * name.
+	 *
+	 * @param bindings
+	 *            The values of the variables, keyed by variable name.
+	 * @return The result of the expression.
+	 */
+	public BigDecimal eval(Map<String, BigDecimal> bindings) {
+		Map<String, BigDecimal> values = new TreeMap<String, BigDecimal>(String.CASE_INSENSITIVE_ORDER);
+		values.putAll(bindings);
+		BigDecimal[] slots = new BigDecimal[variableNames.length];
+		for (int i = 0; i < slots.length; i++) {
+			slots[i] = values.get(variableNames[i]);
+			if (slots[i] == null) {
+				throw new ExpressionException("No value for variable " + variableNames[i]);
+			}
+		}
+		return evalTree(slots).stripTrailingZeros();
+	}
+
+	/**
+	 * Evaluates the shared sub-expressions into the slots following the
+	 * variables, then the root.
+	 */
+	private BigDecimal evalTree(BigDecimal[] values) {
+		if (shared.length > 0) {
+			values = Arrays.copyOf(values, variableNames.length + shared.length);
+			for (int i = 0; i < shared.length; i++) {
+				values[variableNames.length + i] = shared[i].eval(values);
+			}
+		}
+		return root.eval(values);
+	}
+
+	/**
+	 * Evaluates the compiled expression on primitive <code>double</code>
+	 * values, without any {@link BigDecimal} allocation for the built-in
+	 * operators and functions. The result agrees with
+	 * {@link #eval(BigDecimal...)} within double precision; where the exact
+	 * evaluation fails because an intermediate result is not a finite number,
+	 * e.g. on division by zero, this method returns NaN or an infinity
+	 * instead.
+	 *
+	 * @param values
+	 *            The values of the variables, in the order the variable names
+	 *            were given to {@link Expression#compile(String...)}.
+	 * @return The result of the expression.
+	 */
+	public double evalDouble(double... values) {
+		if (values.length != variableNames.length) {
+			throw new ExpressionException(
+					"Expected " + variableNames.length + " variable values, got " + values.length);
+		}
+		if (shared.length > 0) {
+			values = Arrays.copyOf(values, variableNames.length + shared.length);
+			for (int i = 0; i < shared.length; i++) {
+				values[variableNames.length + i] = shared[i].evalDouble(values);
+			}
+		}
+		return root.evalDouble(values);
+	}
+
+	/**
+	 * Returns the slot index of a variable, ignoring case as
+	 * {@link Expression} does.
+	 *
+	 * @param variable
+	 *            The variable name.
+	 * @return The index of the value in {@link #eval(BigDecimal...)}, or
+	 *         <code>-1</code> if the variable is no slot of this expression.
+	 */
+	public int getVariableIndex(String variable) {
+		for (int i = 0; i < variableNames.length; i++) {
+			if (variableNames[i].equalsIgnoreCase(variable)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return The names of the variable slots, in evaluation order.
+	 */
+	public List<String> getVariableNames() {
+		return Collections.unmodifiableList(Arrays.asList(variableNames));
+	}
+
+	/**
+	 * A node of the compiled expression tree.
+	 */
+	abstract static class Node {
+		/**
+		 * Evaluates this node.
+		 *
+		 * @param slots
+		 *            The current values of the variable slots.
+		 * @return The value of the sub-expression rooted at this node.
+		 */
+		abstract BigDecimal eval(BigDecimal[] slots);
+
+		/**
+		 * Evaluates this node in <code>double</code> precision.
+		 *
+		 * @param slots
+		 *            The current values of the variable slots.
+		 * @return The value of the sub-expression rooted at this node.
+		 */
+		abstract double evalDouble(double[] slots);
+
+		/**
+		 * @return The operator, function, value or slot index of this node,
+		 *         which together with the sub-expressions identifies equal
+		 *         nodes.
+		 */
+		abstract Object operation();
+
+		/**
+		 * @return The sub-expressions of this node.
+		 */
+		Node[] children() {
+			return NO_CHILDREN;
+		}
+
+		/**
+		 * Creates a node applying the operation of this node to other
+		 * sub-expressions.
+		 *
+		 * @param children
+		 *            The new sub-expressions.
+		 * @return The new node.
+		 */
+		Node withChildren(Node[] children) {
+			return this;
+		}
+
+		/**
+		 * @return <code>true</code> if the operation of this node yields the
+		 *         same value whenever its sub-expressions do, i.e., it is a
+		 *         built-in one other than <code>RANDOM</code>.
+		 */
+		boolean isDeterministic() {
+			return true;
+		}
+
+		/**
+		 * @return <code>true</code> if the sub-expressions are only
+		 *         evaluated on demand.
+		 */
+		boolean isLazy() {
+			return false;
+		}
+	}
+
+	private static final Node[] NO_CHILDREN = new Node[0];
+
+	/**
+	 * Builds the tree of a compiled expression bottom-up, optimizing it on
+	 * the way. Each node is folded into a constant if it is deterministic and
+	 * all its sub-expressions are constants, and it is replaced by an equal
+	 * node added before, if any. Finally the shared nodes which are evaluated
+	 * anyway, i.e., which are not only reached through the lazy parameters of
+	 * a function like <code>IF</code>, are moved out of the tree to be
+	 * evaluated once per evaluation.
+	 */
+	static final class Builder {
+		private final Map<NodeKey, Node> nodes = new HashMap<NodeKey, Node>();
+
+		/**
+		 * Adds a node whose sub-expressions have been added before.
+		 *
+		 * @param node
+		 *            The node.
+		 * @return The node to use in its place.
+		 */
+		Node add(Node node) {
+			if (node.children().length > 0 && node.isDeterministic() && isConstant(node.children())) {
+				try {
+					BigDecimal value = node.eval(new BigDecimal[0]);
+					if (value != null) {
+						node = new Constant(value);
+					}
+				} catch (RuntimeException e) {
+					// not folded, the error occurs on evaluation
+				}
+			}
+			if (!node.isDeterministic()) {
+				return node;
+			}
+			NodeKey key = new NodeKey(node);
+			Node equal = nodes.get(key);
+			if (equal != null) {
+				return equal;
+			}
+			nodes.put(key, node);
+			return node;
+		}
+
+		/**
+		 * Creates the compiled expression.
+		 *
+		 * @param root
+		 *            The root of the tree, as returned by
+		 *            {@link #add(Node)}.
+		 * @param variableNames
+		 *            The names of the variable slots.
+		 * @return The compiled expression.
+		 */
+		CompiledExpression build(Node root, String[] variableNames) {
+			Map<Node, Integer> references = new IdentityHashMap<Node, Integer>();
+			countReferences(root, references);
+			Set<Node> eager = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+			markEager(root, eager);
+			List<Node> shared = new ArrayList<Node>();
+			root = share(root, references, eager, variableNames.length, shared, new IdentityHashMap<Node, Node>());
+			return new CompiledExpression(root, shared.toArray(new Node[shared.size()]), variableNames);
+		}
+
+		private static boolean isConstant(Node[] nodes) {
+			for (Node node : nodes) {
+				if (!(node instanceof Constant)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static void countReferences(Node node, Map<Node, Integer> references) {
+			Integer count = references.get(node);
+			references.put(node, count == null ? 1 : count + 1);
+			if (count == null) {
+				for (Node child : node.children()) {
+					countReferences(child, references);
+				}
+			}
+		}
+
+		private static void markEager(Node node, Set<Node> eager) {
+			if (eager.add(node) && !node.isLazy()) {
+				for (Node child : node.children()) {
+					markEager(child, eager);
+				}
+			}
+		}
+
+		/**
+		 * Returns the node with the shared sub-expressions replaced by slots,
+		 * adding them to <code>shared</code> in the order they have to be
+		 * evaluated.
+		 */
+		private static Node share(Node node, Map<Node, Integer> references, Set<Node> eager, int offset,
+				List<Node> shared, Map<Node, Node> replaced) {
+			Node result = replaced.get(node);
+			if (result != null) {
+				return result;
+			}
+			Node[] children = node.children();
+			result = node;
+			if (children.length > 0) {
+				Node[] replacedChildren = new Node[children.length];
+				boolean changed = false;
+				for (int i = 0; i < children.length; i++) {
+					replacedChildren[i] = share(children[i], references, eager, offset, shared, replaced);
+					changed |= replacedChildren[i] != children[i];
+				}
+				if (changed) {
+					result = node.withChildren(replacedChildren);
+				}
+				if (references.get(node) > 1 && eager.contains(node)) {
+					shared.add(result);
+					result = new Slot(offset + shared.size() - 1);
+				}
+			}
+			replaced.put(node, result);
+			return result;
+		}
+	}
+
+	/**
+	 * Identifies equal nodes: nodes of the same type and operation on the
+	 * same, already shared, sub-expressions.
+	 */
+	private static final class NodeKey {
+		private final Class<?> type;
+		private final Object operation;
+		private final Node[] children;
+		private final int hash;
+
+		NodeKey(Node node) {
+			this.type = node.getClass();
+			this.operation = node.operation();
+			this.children = node.children();
+			int h = 31 * type.hashCode() + operation.hashCode();
+			for (Node child : children) {
+				h = 31 * h + System.identityHashCode(child);
+			}
+			this.hash = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof NodeKey)) {
+				return false;
+			}
+			NodeKey other = (NodeKey) o;
+			if (hash != other.hash || type != other.type || !operation.equals(other.operation)
+					|| children.length != other.children.length) {
+				return false;
+			}
+			for (int i = 0; i < children.length; i++) {
+				if (children[i] != other.children[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * A number literal or a variable whose value was fixed at compile time.
+	 */
+	static final class Constant extends Node {
+		private final BigDecimal value;
+		private final double doubleValue;
+
+		Constant(BigDecimal value) {
+			this.value = value;
+			this.doubleValue = value == null ? Double.NaN : value.doubleValue();
+		}
+
+		@Override
+		BigDecimal eval(BigDecimal[] slots) {
+			return value;
+		}
+
+		@Override
+		double evalDouble(double[] slots) {
+			return doubleValue;
+		}
+
+		@Override
+		Object operation() {
+			return value;
+		}
+	}
+
+	/**
+	 * A variable whose value is passed in at evaluation time.
+	 */
+	static final class Slot extends Node {
+		private final int index;
+
+		Slot(int index) {
+			this.index = index;
+		}
+
+		@Override
+		BigDecimal eval(BigDecimal[] slots) {
+			return slots[index];
+		}
+
+		@Override
+		double evalDouble(double[] slots) {
+			return slots[index];
+		}
+
+		@Override
+		Object operation() {
+			return index;
+		}
+	}
+
+	/**
+	 * An infix operator applied to two sub-expressions.
+	 */
+	static final class BinaryOperation extends Node {
+		private final Operator operator;
+		private final Node left;
+		private final Node right;
+		private final boolean builtIn;
+		private final int code;
+
+		BinaryOperation(Operator operator, Node left, Node right, boolean builtIn) {
+			this.operator = operator;
+			this.left = left;
+			this.right = right;
+			this.builtIn = builtIn;
+			Integer code = builtIn ? operatorCodes.get(operator.getOper()) : null;
+			this.code = code == null ? BRIDGE : code;
+		}
+
+		@Override
+		Object operation() {
+			return operator;
+		}
+
+		@Override
+		Node[] children() {
+			return new Node[] { left, right };
+		}
+
+		@Override
+		Node withChildren(Node[] children) {
+			return new BinaryOperation(operator, children[0], children[1], builtIn);
+		}
+
+		@Override
+		boolean isDeterministic() {
+			return builtIn;
+		}
+
+		@Override
+		BigDecimal eval(BigDecimal[] slots) {
+			return operator.eval(left.eval(slots), right.eval(slots));
+		}
+
+		@Override
+		double evalDouble(double[] slots) {
+			double a = left.evalDouble(slots);
+			double b = right.evalDouble(slots);
+			switch (code) {
+			case ADD:
+				return a + b;
+			case SUBTRACT:
+				return a - b;
+			case MULTIPLY:
+				return a * b;
+			case DIVIDE:
+				return a / b;
+			case REMAINDER:
+				return a % b;
+			case POWER:
+				return Math.pow(a, b);
+			case AND:
+				return a != 0 && b != 0 ? 1 : 0;
+			case OR:
+				return a != 0 || b != 0 ? 1 : 0;
+			case GREATER:
+				return a > b ? 1 : 0;
+			case GREATER_EQUAL:
+				return a >= b ? 1 : 0;
+			case LESS:
+				return a < b ? 1 : 0;
+			case LESS_EQUAL:
+				return a <= b ? 1 : 0;
+			case EQUAL:
+				return a == b ? 1 : 0;
+			case NOT_EQUAL:
+				return a != b ? 1 : 0;
+			default:
+				if (!isFinite(a) || !isFinite(b)) {
+					return Double.NaN;
+				}
+				return operator.eval(BigDecimal.valueOf(a), BigDecimal.valueOf(b)).doubleValue();
+			}
+		}
+	}
+
+	/**
+	 * A call of an eagerly evaluated {@link Function}.
+	 */
+	static final class FunctionCall extends Node {
+		private final Function function;
+		private final Node[] params;
+		private final boolean builtIn;
+		private final int code;
+		private final AngleMode angleMode;
+		private final RoundingMode roundingMode;
+
+		FunctionCall(Function function, Node[] params, boolean builtIn, AngleMode angleMode,
+				RoundingMode roundingMode) {
+			this.function = function;
+			this.params = params;
+			this.builtIn = builtIn;
+			Integer code = builtIn ? functionCodes.get(function.getName()) : null;
+			this.code = code == null ? BRIDGE : code;
+			this.angleMode = angleMode;
+			this.roundingMode = roundingMode;
+		}
+
+		@Override
+		Object operation() {
+			return function;
+		}
+
+		@Override
+		Node[] children() {
+			return params;
+		}
+
+		@Override
+		Node withChildren(Node[] children) {
+			return new FunctionCall(function, children, builtIn, angleMode, roundingMode);
+		}
+
+		@Override
+		boolean isDeterministic() {
+			return builtIn && code != RANDOM;
+		}
+
+		@Override
+		BigDecimal eval(BigDecimal[] slots) {
+			List<BigDecimal> values = new ArrayList<BigDecimal>(params.length);
+			for (Node param : params) {
+				values.add(param.eval(slots));
+			}
+			return function.eval(values);
+		}
+
+		@Override
+		double evalDouble(double[] slots) {
+			switch (code) {
+			case RANDOM:
+				return Math.random();
+			case MAX:
+			case MIN:
+				if (params.length == 0) {
+					throw new ExpressionException(function.getName() + " requires at least one parameter");
+				}
+				double extremum = params[0].evalDouble(slots);
+				for (int i = 1; i < params.length; i++) {
+					double x = params[i].evalDouble(slots);
+					extremum = code == MAX ? Math.max(extremum, x) : Math.min(extremum, x);
+				}
+				return extremum;
+			case POW:
+				return Math.pow(params[0].evalDouble(slots), params[1].evalDouble(slots));
+			case ROUND:
+				return round(params[0].evalDouble(slots), (int) params[1].evalDouble(slots));
+			case BRIDGE:
+				List<BigDecimal> values = new ArrayList<BigDecimal>(params.length);
+				for (Node param : params) {
+					double x = param.evalDouble(slots);
+					if (!isFinite(x)) {
+						return Double.NaN;
+					}
+					values.add(BigDecimal.valueOf(x));
+				}
+				return function.eval(values).doubleValue();
+			default:
+				return evalUnary(params[0].evalDouble(slots));
+			}
+		}
+
+		/**
+		 * Evaluates the built-in functions of one parameter.
+		 */
+		private double evalUnary(double x) {
+			switch (code) {
+			case NOT:
+				return x == 0 ? 1 : 0;
+			case SIN:
+				switch (angleMode) {
+				case DEGREE:
+					return Math.sin(Math.toRadians(x % 360));
+				case RADIAN:
+					return Math.sin(x % (2 * Math.PI));
+				default:
+					return 0;
+				}
+			case COS:
+				switch (angleMode) {
+				case DEGREE:
+					return Math.cos(Math.toRadians(x % 360));
+				case RADIAN:
+					return Math.cos(x % (2 * Math.PI));
+				default:
+					return 0;
+				}
+			case TAN:
+				switch (angleMode) {
+				case DEGREE:
+					x %= 360;
+					if (x == 90.0 || x == 180.0) {
+						return Double.NaN;
+					}
+					return Math.tan(Math.toRadians(x));
+				case RADIAN:
+					x = Math.tan(x % (2 * Math.PI));
+					return x > 10000000 ? Double.NaN : x;
+				default:
+					return 0;
+				}
+			case ASIN:
+				return angleMode == AngleMode.RADIAN ? Math.asin(x) : Math.toDegrees(Math.asin(x));
+			case ACOS:
+				if (Math.IEEEremainder(x, 0.5d) == 0.0d) {
+					return 60;
+				}
+				return angleMode == AngleMode.RADIAN ? Math.acos(x) : Math.toDegrees(Math.acos(x));
+			case ATAN:
+				switch (angleMode) {
+				case DEGREE:
+					return Math.toDegrees(Math.atan(x));
+				case RADIAN:
+					return Math.atan(x);
+				default:
+					return 0;
+				}
+			case SINH:
+				return Math.sinh(x);
+			case COSH:
+				return Math.cosh(x);
+			case TANH:
+				return Math.tanh(x);
+			case RAD:
+				return Math.toRadians(x);
+			case DEG:
+				return Math.toDegrees(x);
+			case CBRT:
+				return Math.cbrt(x);
+			case ABS:
+				return Math.abs(x);
+			case LOG:
+				return Math.log(x);
+			case LOG10:
+				return Math.log10(x);
+			case FLOOR:
+				return Math.floor(x);
+			case CEILING:
+				return Math.ceil(x);
+			case SQRT:
+				if (x < 0) {
+					throw new ExpressionException("Argument to SQRT() function must not be negative");
+				}
+				return Math.sqrt(x);
+			case FAC:
+				int n = (int) x;
+				if (n < 0) {
+					throw new ExpressionException("-ve Number");
+				}
+				double factorial = 1;
+				for (int i = 2; i <= n; i++) {
+					factorial *= i;
+				}
+				return factorial;
+			default:
+				throw new ExpressionException("No double implementation for " + function.getName());
+			}
+		}
+
+		/**
+		 * Rounds to the given number of decimal places like
+		 * {@link BigDecimal#setScale(int, RoundingMode)}.
+		 */
+		private double round(double x, int scale) {
+			double factor = Math.pow(10, scale);
+			double y = Math.abs(x) * factor;
+			switch (roundingMode) {
+			case UP:
+				y = Math.ceil(y);
+				break;
+			case DOWN:
+				y = Math.floor(y);
+				break;
+			case CEILING:
+				return Math.ceil(x * factor) / factor;
+			case FLOOR:
+				return Math.floor(x * factor) / factor;
+			case HALF_UP:
+				y = Math.floor(y + 0.5);
+				break;
+			case HALF_DOWN:
+				y = Math.ceil(y - 0.5);
+				break;
+			case HALF_EVEN:
+				y = Math.rint(y);
+				break;
+			default:
+				return x;
+			}
+			return Math.copySign(y, x) / factor;
+		}
+	}
+
+	/**
+	 * A call of a {@link LazyFunction} such as <code>IF</code>, whose
+	 * parameters are only evaluated on demand.
+	 */
+	static final class LazyFunctionCall extends Node {
+		private final LazyFunction function;
+		private final Node[] params;
+		private final boolean builtIn;
+		private final int code;
+
+		LazyFunctionCall(LazyFunction function, Node[] params, boolean builtIn) {
+			this.function = function;
+			this.params = params;
+			this.builtIn = builtIn;
+			Integer code = builtIn ? functionCodes.get(function.getName()) : null;
+			this.code = code == null ? BRIDGE : code;
+		}
+
+		@Override
+		Object operation() {
+			return function;
+		}
+
+		@Override
+		Node[] children() {
+			return params;
+		}
+
+		@Override
+		Node withChildren(Node[] children) {
+			return new LazyFunctionCall(function, children, builtIn);
+		}
+
+		@Override
+		boolean isDeterministic() {
+			return builtIn;
+		}
+
+		@Override
+		boolean isLazy() {
+			return true;
+		}
+
+		@Override
+		BigDecimal eval(final BigDecimal[] slots) {
+			List<LazyNumber> lazyParams = new ArrayList<LazyNumber>(params.length);
+			for (final Node param : params) {
+				lazyParams.add(new LazyNumber() {
+					public BigDecimal eval() {
+						return param.eval(slots);
+					}
+				});
+			}
+			return function.lazyEval(lazyParams).eval();
+		}
+
+		@Override
+		double evalDouble(final double[] slots) {
+			if (code == IF) {
+				return params[0].evalDouble(slots) != 0 ? params[1].evalDouble(slots) : params[2].evalDouble(slots);
+			}
+			List<LazyNumber> lazyParams = new ArrayList<LazyNumber>(params.length);
+			for (final Node param : params) {
+				lazyParams.add(new LazyNumber() {
+					public BigDecimal eval() {
+						return BigDecimal.valueOf(param.evalDouble(slots));
+					}
+				});
+			}
+			return function.lazyEval(lazyParams).eval().doubleValue();
+		}
+	}
+
+	private static boolean isFinite(double x) {
+		return !Double.isNaN(x) && !Double.isInfinite(x);
+	}
+}
@@ -60,6 +60,13 @@ public class Expression {
 	 */
 	private List<String> rpn = null;
 
+	/**
+	 * Whether operators or functions have been added besides the built-in
+	 * ones. The RPN of such an expression depends on this instance and is not
+	 * shared via the {@link ParseCache}.
+	 */
+	private boolean customSyntax = false;
+
 	/**
 	 * All defined operators with name and implementation.
 	 */
@@ -156,6 +163,13 @@ public class Expression {
 			return numParams < 0;
 		}
 
+		/**
+		 * @return The expression instance this function was created for.
+		 */
+		Expression owner() {
+			return Expression.this;
+		}
+
 		public abstract LazyNumber lazyEval(List<LazyNumber> lazyParams);
 	}
 
@@ -241,6 +255,13 @@ public class Expression {
 			return leftAssoc;
 		}
 
+		/**
+		 * @return The expression instance this operator was created for.
+		 */
+		Expression owner() {
+			return Expression.this;
+		}
+
 		/**
 		 * Implementation for this operator.
 		 * 
@@ -254,163 +275,313 @@ public class Expression {
 	}
 
 	/**
-	 * Expression tokenizer that allows to iterate over a {@link String}
-	 * expression token by token. Blank characters will be skipped.
+	 * The kinds of tokens of an expression.
 	 */
-	private class Tokenizer implements Iterator<String> {
+	private enum TokenKind {
+		NUMBER, IDENTIFIER, OPERATOR, OPEN_PARENTHESIS, CLOSE_PARENTHESIS, COMMA
+	}
+
+	/**
+	 * Scanner that splits an expression into tokens without copying them. Each
+	 * call of {@link #next()} advances to the next token and returns its kind;
+	 * the token itself is the range of the input between {@link #start()} and
+	 * {@link #end()}. Blank characters will be skipped. Scanning needs no
+	 * allocation per token, the text of a token is only created on request by
+	 * {@link #text()}.
+	 */
+	private class TokenScanner {
 
 		/**
-		 * Actual position in expression string.
+		 * The input expression.
 		 */
-		private int pos = 0;
+		private final CharSequence input;
 
 		/**
-		 * The original input expression.
+		 * Position of the first non-blank character of the input.
 		 */
-		private String input;
+		private final int offset;
+
 		/**
-		 * The previous token or <code>null</code> if none.
+		 * Position after the last non-blank character of the input.
 		 */
-		private String previousToken;
+		private final int limit;
 
 		/**
-		 * Creates a new tokenizer for an expression.
+		 * Whether numbers are hexadecimal, i.e., consist of the digits and the
+		 * capital letters A to F.
+		 */
+		private final boolean hex;
+
+		/**
+		 * The names of the defined operators.
+		 */
+		private final String[] operatorNames;
+
+		/**
+		 * Actual position in the input.
+		 */
+		private int pos;
+
+		/**
+		 * Start and end position of the current token.
+		 */
+		private int start, end;
+
+		/**
+		 * Kind of the current token, or <code>null</code> if none.
+		 */
+		private TokenKind kind;
+
+		/**
+		 * Index of the current token in {@link #operatorNames}, if it is an
+		 * operator.
+		 */
+		private int operator;
+
+		/**
+		 * Creates a new scanner for an expression.
 		 * 
 		 * @param input
-		 *            The expression string.
+		 *            The expression.
+		 * @param hex
+		 *            Whether to scan hexadecimal numbers.
 		 */
-		public Tokenizer(String input) {
-			this.input = input.trim();
+		public TokenScanner(CharSequence input, boolean hex) {
+			int from = 0, to = input.length();
+			while (from < to && input.charAt(from) <= ' ') {
+				from++;
+			}
+			while (to > from && input.charAt(to - 1) <= ' ') {
+				to--;
+			}
+			this.input = input;
+			this.offset = from;
+			this.limit = to;
+			this.pos = from;
+			this.hex = hex;
+			this.operatorNames = operators.keySet().toArray(new String[operators.size()]);
 		}
 
-		@Override
 		public boolean hasNext() {
-			return (pos < input.length());
+			return pos < limit;
 		}
 
 		/**
-		 * Peek at the next character, without advancing the iterator.
+		 * Advances to the next token.
 		 * 
-		 * @return The next character or character 0, if at end of string.
+		 * @return The kind of the token, or <code>null</code> at the end of the
+		 *         input.
 		 */
-		private char peekNextChar() {
-			if (pos < (input.length() - 1)) {
-				return input.charAt(pos + 1);
-			} else {
-				return 0;
-			}
-		}
-
-		@Override
-		public String next() {
-			StringBuilder token = new StringBuilder();
-			if (pos >= input.length()) {
-				return previousToken = null;
+		public TokenKind next() {
+			TokenKind previous = kind;
+			if (pos >= limit) {
+				return kind = null;
 			}
 			char ch = input.charAt(pos);
-			while (Character.isWhitespace(ch) && pos < input.length()) {
-				ch = input.charAt(++pos);
-			}
-			if (Character.isDigit(ch)) {
-				while ((Character.isDigit(ch) || ch == decimalSeparator || ch == 'e' || ch == 'E'
-						|| (ch == minusSign && token.length() > 0
-								&& ('e' == token.charAt(token.length() - 1) || 'E' == token.charAt(token.length() - 1)))
-						|| (ch == '+' && token.length() > 0 && ('e' == token.charAt(token.length() - 1)
-								|| 'E' == token.charAt(token.length() - 1))))
-						&& (pos < input.length())) {
-					token.append(input.charAt(pos++));
-					ch = pos == input.length() ? 0 : input.charAt(pos);
-				}
-			} else if (ch == minusSign && Character.isDigit(peekNextChar()) && ("(".equals(previousToken)
-					|| ",".equals(previousToken) || previousToken == null || operators.containsKey(previousToken))) {
-				token.append(minusSign);
+			while (Character.isWhitespace(ch)) {
+				if (++pos >= limit) {
+					return kind = null;
+				}
+				ch = input.charAt(pos);
+			}
+			start = pos;
+			if (isDigit(ch)) {
+				scanNumber();
+				kind = TokenKind.NUMBER;
+			} else if (ch == minusSign && pos + 1 < limit && isDigit(input.charAt(pos + 1))
+					&& (previous == null || previous == TokenKind.OPEN_PARENTHESIS || previous == TokenKind.COMMA
+							|| previous == TokenKind.OPERATOR)) {
 				pos++;
-				token.append(next());
+				scanNumber();
+				kind = TokenKind.NUMBER;
 			} else if (Character.isLetter(ch) || (ch == '_')) {
-				while ((Character.isLetter(ch) || Character.isDigit(ch) || (ch == '_')) && (pos < input.length())) {
-					token.append(input.charAt(pos++));
-					ch = pos == input.length() ? 0 : input.charAt(pos);
+				while (pos < limit && (Character.isLetter(ch) || Character.isDigit(ch) || (ch == '_'))) {
+					ch = ++pos == limit ? 0 : input.charAt(pos);
 				}
-			} else if (ch == '(' || ch == ')' || ch == ',') {
-				token.append(ch);
+				kind = TokenKind.IDENTIFIER;
+			} else if (ch == '(') {
+				pos++;
+				kind = TokenKind.OPEN_PARENTHESIS;
+			} else if (ch == ')') {
 				pos++;
+				kind = TokenKind.CLOSE_PARENTHESIS;
+			} else if (ch == ',') {
+				pos++;
+				kind = TokenKind.COMMA;
 			} else {
-				while (!Character.isLetter(ch) && !Character.isDigit(ch) && ch != '_' && !Character.isWhitespace(ch)
-						&& ch != '(' && ch != ')' && ch != ',' && (pos < input.length())) {
-					token.append(input.charAt(pos));
-					pos++;
-					ch = pos == input.length() ? 0 : input.charAt(pos);
+				while (pos < limit && !Character.isLetter(ch) && !Character.isDigit(ch) && ch != '_'
+						&& !Character.isWhitespace(ch) && ch != '(' && ch != ')' && ch != ',') {
+					ch = ++pos == limit ? 0 : input.charAt(pos);
 					if (ch == minusSign) {
 						break;
 					}
 				}
-				if (!operators.containsKey(token.toString())) {
-					throw new ExpressionException(
-							"Unknown operator '" + token + "' at position " + (pos - token.length() + 1));
+				end = pos;
+				operator = indexOfOperator();
+				if (operator < 0) {
+					throw new ExpressionException("Unknown operator '" + input.subSequence(start, end)
+							+ "' at position " + (start - offset + 1));
 				}
+				return kind = TokenKind.OPERATOR;
 			}
-			return previousToken = token.toString();
+			end = pos;
+			return kind;
 		}
 
-		// Tayyeb
-		private boolean validhexa(Character ch) {
-			if (ch == 'A' || ch == 'B' || ch == 'C' || ch == 'D' || ch == 'E' || ch == 'F' || Character.isDigit(ch)) {
-				return true;
+		/**
+		 * Is the character a digit of a number in the scanned radix?
+		 */
+		private boolean isDigit(char ch) {
+			// Tayyeb
+			if (hex) {
+				return ch == 'A' || ch == 'B' || ch == 'C' || ch == 'D' || ch == 'E' || ch == 'F'
+						|| Character.isDigit(ch);
 			}
-			return false;
+			return Character.isDigit(ch);
 		}
 
-		public String next16() {
-			StringBuilder token = new StringBuilder();
-			if (pos >= input.length()) {
-				return previousToken = null;
-			}
-			char ch = input.charAt(pos);
-			while (Character.isWhitespace(ch) && pos < input.length()) {
-				ch = input.charAt(++pos);
-			}
-			if (validhexa(ch)) {
-				while (validhexa(ch) || ch == decimalSeparator 
-						|| (ch == minusSign && token.length() > 0
-						|| (ch == '+' && token.length() > 0 ))
-						&& (pos < input.length())) {
-					token.append(input.charAt(pos++));
-					ch = pos == input.length() ? 0 : input.charAt(pos);
-				}
-			} else if (ch == minusSign && (Character.isDigit(peekNextChar()) || validhexa(peekNextChar()))
-					&& ("(".equals(previousToken) || ",".equals(previousToken) || previousToken == null
-							|| operators.containsKey(previousToken))) {
-				token.append(minusSign);
-				pos++;
-				token.append(next16());
-			} else if (Character.isLetter(ch) || (ch == '_')) {
-				while ((Character.isLetter(ch) || Character.isDigit(ch) || (ch == '_')) && (pos < input.length())) {
-					token.append(input.charAt(pos++));
-					ch = pos == input.length() ? 0 : input.charAt(pos);
-				}
-			} else if (ch == '(' || ch == ')' || ch == ',') {
-				token.append(ch);
-				pos++;
-			} else {
-				while (!Character.isLetter(ch) && !Character.isDigit(ch) && ch != '_' && !Character.isWhitespace(ch)
-						&& ch != '(' && ch != ')' && ch != ',' && (pos < input.length())) {
-					token.append(input.charAt(pos));
+		/**
+		 * Advances the position to the end of the number starting at it. A
+		 * decimal number may have an exponent with a sign.
+		 */
+		private void scanNumber() {
+			while (pos < limit) {
+				char ch = input.charAt(pos);
+				if (isDigit(ch) || ch == decimalSeparator) {
 					pos++;
-					ch = pos == input.length() ? 0 : input.charAt(pos);
-					if (ch == minusSign) {
-						break;
-					}
+				} else if (hex) {
+					break;
+				} else if (ch == 'e' || ch == 'E') {
+					pos++;
+				} else if ((ch == minusSign || ch == '+')
+						&& (input.charAt(pos - 1) == 'e' || input.charAt(pos - 1) == 'E')) {
+					pos++;
+				} else {
+					break;
 				}
-				if (!operators.containsKey(token.toString())) {
-					throw new ExpressionException(
-							"Unknown operator '" + token + "' at position " + (pos - token.length() + 1));
+			}
+		}
+
+		/**
+		 * Returns the index of the operator between {@link #start} and
+		 * {@link #end}, or -1 if there is none.
+		 */
+		private int indexOfOperator() {
+			int length = end - start;
+			search: for (int i = 0; i < operatorNames.length; i++) {
+				String name = operatorNames[i];
+				if (name.length() != length) {
+					continue;
+				}
+				for (int j = 0; j < length; j++) {
+					if (name.charAt(j) != input.charAt(start + j)) {
+						continue search;
+					}
 				}
+				return i;
 			}
-			
-			return previousToken = token.toString();
+			return -1;
+		}
+
+		/**
+		 * @return The kind of the current token.
+		 */
+		public TokenKind kind() {
+			return kind;
+		}
+
+		/**
+		 * @return The position of the first character of the current token.
+		 */
+		public int start() {
+			return start;
+		}
+
+		/**
+		 * @return The position after the last character of the current token.
+		 */
+		public int end() {
+			return end;
+		}
+
+		/**
+		 * Returns the current token as a string. Operators, parentheses and
+		 * commas are not copied.
+		 * 
+		 * @return The current token, or <code>null</code> if none.
+		 */
+		public String text() {
+			if (kind == null) {
+				return null;
+			}
+			switch (kind) {
+			case OPERATOR:
+				return operatorNames[operator];
+			case OPEN_PARENTHESIS:
+				return "(";
+			case CLOSE_PARENTHESIS:
+				return ")";
+			case COMMA:
+				return ",";
+			default:
+				return input.subSequence(start, end).toString();
+			}
+		}
+
+		/**
+		 * Is the current token a single hexadecimal letter, i.e., one of the
+		 * capital letters A to F?
+		 */
+		public boolean isHexLetter() {
+			if (end - start != 1) {
+				return false;
+			}
+			char ch = input.charAt(start);
+			return ch >= 'A' && ch <= 'F';
+		}
+
+		/**
+		 * Get the actual character position in the trimmed expression.
+		 * 
+		 * @return The actual character position.
+		 */
+		public int getPos() {
+			return pos - offset;
+		}
+	}
+
+	/**
+	 * Expression tokenizer that allows to iterate over a {@link String}
+	 * expression token by token. Blank characters will be skipped.
+	 */
+	private class Tokenizer implements Iterator<String> {
+
+		/**
+		 * The scanner of the input expression.
+		 */
+		private final TokenScanner scanner;
+
+		/**
+		 * Creates a new tokenizer for an expression.
+		 * 
+		 * @param input
+		 *            The expression string.
+		 */
+		public Tokenizer(String input) {
+			this.scanner = new TokenScanner(input, false);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return scanner.hasNext();
+		}
+
+		@Override
+		public String next() {
+			scanner.next();
+			return scanner.text();
 		}
 
-		// end-Tayyeb
 		@Override
 		public void remove() {
 			throw new ExpressionException("remove() not supported");
@@ -422,7 +593,7 @@ public class Expression {
 		 * @return The actual character position.
 		 */
 		public int getPos() {
-			return pos;
+			return scanner.getPos();
 		}
 
 	}
@@ -456,6 +627,7 @@ public class Expression {
 	 *            The {@link MathContext} to use by default.
 	 */
 	public void setOperators(MathContext defaultMathContext) {
+		boolean custom = customSyntax;
 		this.mc = MathContext.DECIMAL128;
 		addOperator(new Operator("+", 20, true) {
 			@Override
@@ -960,7 +1132,7 @@ public class Expression {
 		variables.put("PI", PI);
 		variables.put("TRUE", BigDecimal.ONE);
 		variables.put("FALSE", BigDecimal.ZERO);
-
+		customSyntax = custom;
 	}
 
 	/**
@@ -977,7 +1149,8 @@ public class Expression {
 			return false;
 		if (st.charAt(0) == 'e' || st.charAt(0) == 'E')
 			return false;
-		for (char ch : st.toCharArray()) {
+		for (int i = 0; i < st.length(); i++) {
+			char ch = st.charAt(i);
 			if (!Character.isDigit(ch) && ch != minusSign && ch != decimalSeparator && ch != 'e' && ch != 'E'
 					&& ch != '+')
 				return false;
@@ -998,26 +1171,32 @@ public class Expression {
 		List<String> outputQueue = new ArrayList<String>();
 		Stack<String> stack = new Stack<String>();
 
-		Tokenizer tokenizer = new Tokenizer(expression);
+		TokenScanner scanner = new TokenScanner(expression, false);
 
 		String lastFunction = null;
 		String previousToken = null;
-		while (tokenizer.hasNext()) {
-			String token = tokenizer.next();
-			if (isNumber(token) || token.equals("A") || token.equals("B") || token.equals("C") || token.equals("D")
-					|| token.equals("E") || token.equals("F")) {
+		TokenKind previousKind = null;
+		TokenKind kind;
+		while ((kind = scanner.next()) != null) {
+			String token = scanner.text();
+			switch (kind) {
+			case NUMBER:
 				outputQueue.add(token);
-			} else if (variables.containsKey(token)) {
-				outputQueue.add(token);
-			} else if (functions.containsKey(token.toUpperCase(Locale.ROOT))) {
-				stack.push(token);
-				lastFunction = token;
-			} else if (Character.isLetter(token.charAt(0))) {
-				stack.push(token);
-			} else if (",".equals(token)) {
-				if (operators.containsKey(previousToken)) {
+				break;
+			case IDENTIFIER:
+				if (scanner.isHexLetter() || variables.containsKey(token)) {
+					outputQueue.add(token);
+				} else if (functions.containsKey(token)) {
+					stack.push(token);
+					lastFunction = token;
+				} else if (Character.isLetter(token.charAt(0))) {
+					stack.push(token);
+				}
+				break;
+			case COMMA:
+				if (previousKind == TokenKind.OPERATOR) {
 					throw new ExpressionException("Missing parameter(s) for operator " + previousToken
-							+ " at character position " + (tokenizer.getPos() - 1 - previousToken.length()));
+							+ " at character position " + (scanner.getPos() - 1 - previousToken.length()));
 				}
 				while (!stack.isEmpty() && !"(".equals(stack.peek())) {
 					outputQueue.add(stack.pop());
@@ -1025,50 +1204,78 @@ public class Expression {
 				if (stack.isEmpty()) {
 					throw new ExpressionException("Parse error for function '" + lastFunction + "'");
 				}
-			} else if (operators.containsKey(token)) {
-				if (",".equals(previousToken) || "(".equals(previousToken)) {
+				break;
+			case OPERATOR:
+				if (previousKind == TokenKind.COMMA || previousKind == TokenKind.OPEN_PARENTHESIS) {
 					throw new ExpressionException("Missing parameter(s) for operator " + token
-							+ " at character position " + (tokenizer.getPos() - token.length()));
+							+ " at character position " + (scanner.getPos() - token.length()));
 				}
-				Operator o1 = operators.get(token);
-				String token2 = stack.isEmpty() ? null : stack.peek();
-				while (token2 != null && operators.containsKey(token2)
-						&& ((o1.isLeftAssoc() && o1.getPrecedence() <= operators.get(token2).getPrecedence())
-								|| (o1.getPrecedence() < operators.get(token2).getPrecedence()))) {
-					outputQueue.add(stack.pop());
-					token2 = stack.isEmpty() ? null : stack.peek();
+				pushOperator(token, stack, outputQueue);
+				break;
+			case OPEN_PARENTHESIS:
+				if (previousKind == TokenKind.NUMBER) {
+					throw new ExpressionException("Missing operator at character position " + scanner.getPos());
 				}
-				stack.push(token);
-			} else if ("(".equals(token)) {
-				if (previousToken != null) {
-					if (isNumber(previousToken)) {
-						throw new ExpressionException("Missing operator at character position " + tokenizer.getPos());
-					}
-					// if the ( is preceded by a valid function, then it
-					// denotes the start of a parameter list
-					if (functions.containsKey(previousToken.toUpperCase(Locale.ROOT))) {
-						outputQueue.add(token);
-					}
+				// if the ( is preceded by a valid function, then it
+				// denotes the start of a parameter list
+				if (previousKind == TokenKind.IDENTIFIER && functions.containsKey(previousToken)) {
+					outputQueue.add(token);
 				}
 				stack.push(token);
-			} else if (")".equals(token)) {
-				if (operators.containsKey(previousToken)) {
+				break;
+			case CLOSE_PARENTHESIS:
+				if (previousKind == TokenKind.OPERATOR) {
 					throw new ExpressionException("Missing parameter(s) for operator " + previousToken
-							+ " at character position " + (tokenizer.getPos() - 1 - previousToken.length()));
-				}
-				while (!stack.isEmpty() && !"(".equals(stack.peek())) {
-					outputQueue.add(stack.pop());
-				}
-				if (stack.isEmpty()) {
-					throw new ExpressionException("Mismatched parentheses");
-				}
-				stack.pop();
-				if (!stack.isEmpty() && functions.containsKey(stack.peek().toUpperCase(Locale.ROOT))) {
-					outputQueue.add(stack.pop());
+							+ " at character position " + (scanner.getPos() - 1 - previousToken.length()));
 				}
+				closeParenthesis(stack, outputQueue);
+				break;
 			}
 			previousToken = token;
+			previousKind = kind;
+		}
+		flushStack(stack, outputQueue);
+		return outputQueue;
+	}
+
+	/**
+	 * Pops the operators binding at least as strong as the given one to the
+	 * output queue, then pushes the operator.
+	 */
+	private void pushOperator(String token, Stack<String> stack, List<String> outputQueue) {
+		Operator o1 = operators.get(token);
+		String token2 = stack.isEmpty() ? null : stack.peek();
+		while (token2 != null && operators.containsKey(token2)
+				&& ((o1.isLeftAssoc() && o1.getPrecedence() <= operators.get(token2).getPrecedence())
+						|| (o1.getPrecedence() < operators.get(token2).getPrecedence()))) {
+			outputQueue.add(stack.pop());
+			token2 = stack.isEmpty() ? null : stack.peek();
+		}
+		stack.push(token);
+	}
+
+	/**
+	 * Pops the stack to the output queue up to the matching opening
+	 * parenthesis, followed by the function owning the parentheses, if any.
+	 */
+	private void closeParenthesis(Stack<String> stack, List<String> outputQueue) {
+		while (!stack.isEmpty() && !"(".equals(stack.peek())) {
+			outputQueue.add(stack.pop());
+		}
+		if (stack.isEmpty()) {
+			throw new ExpressionException("Mismatched parentheses");
+		}
+		stack.pop();
+		if (!stack.isEmpty() && functions.containsKey(stack.peek())) {
+			outputQueue.add(stack.pop());
 		}
+	}
+
+	/**
+	 * Pops the remaining operators to the output queue at the end of the
+	 * expression.
+	 */
+	private void flushStack(Stack<String> stack, List<String> outputQueue) {
 		while (!stack.isEmpty()) {
 			String element = stack.pop();
 			if ("(".equals(element) || ")".equals(element)) {
@@ -1079,32 +1286,31 @@ public class Expression {
 			}
 			outputQueue.add(element);
 		}
-		return outputQueue;
 	}
 
 	// Tayyeb
-	private boolean isvalidHexa(String str) {
-		boolean ret = false;
-		ret = str.matches("[0-9]*[A,B,C,D,E,F]*[0-9]*\\.?[0-9]*[A,B,C,D,E,F]*[0-9]*");
-		return ret;
-	}
-
 	private List<String> shuntingYard16(String expression) {
 		List<String> outputQueue = new ArrayList<String>();
 		Stack<String> stack = new Stack<String>();
 
-		Tokenizer tokenizer = new Tokenizer(expression);
+		TokenScanner scanner = new TokenScanner(expression, true);
 
 		String lastFunction = null;
 		String previousToken = null;
-		while (tokenizer.hasNext()) {
-			String token = tokenizer.next16();
-			if (isvalidHexa(token)) {
+		TokenKind previousKind = null;
+		TokenKind kind;
+		while ((kind = scanner.next()) != null) {
+			String token = scanner.text();
+			switch (kind) {
+			case NUMBER:
 				outputQueue.add(token);
-			}  else if (",".equals(token)) {
-				if (operators.containsKey(previousToken)) {
+				break;
+			case IDENTIFIER:
+				break;
+			case COMMA:
+				if (previousKind == TokenKind.OPERATOR) {
 					throw new ExpressionException("Missing parameter(s) for operator " + previousToken
-							+ " at character position " + (tokenizer.getPos() - 1 - previousToken.length()));
+							+ " at character position " + (scanner.getPos() - 1 - previousToken.length()));
 				}
 				while (!stack.isEmpty() && !"(".equals(stack.peek())) {
 					outputQueue.add(stack.pop());
@@ -1112,60 +1318,37 @@ public class Expression {
 				if (stack.isEmpty()) {
 					throw new ExpressionException("Parse error for function '" + lastFunction + "'");
 				}
-			} else if (operators.containsKey(token)) {
-				if (",".equals(previousToken) || "(".equals(previousToken)) {
+				break;
+			case OPERATOR:
+				if (previousKind == TokenKind.COMMA || previousKind == TokenKind.OPEN_PARENTHESIS) {
 					throw new ExpressionException("Missing parameter(s) for operator " + token
-							+ " at character position " + (tokenizer.getPos() - token.length()));
+							+ " at character position " + (scanner.getPos() - token.length()));
 				}
-				Operator o1 = operators.get(token);
-				String token2 = stack.isEmpty() ? null : stack.peek();
-				while (token2 != null && operators.containsKey(token2)
-						&& ((o1.isLeftAssoc() && o1.getPrecedence() <= operators.get(token2).getPrecedence())
-								|| (o1.getPrecedence() < operators.get(token2).getPrecedence()))) {
-					outputQueue.add(stack.pop());
-					token2 = stack.isEmpty() ? null : stack.peek();
+				pushOperator(token, stack, outputQueue);
+				break;
+			case OPEN_PARENTHESIS:
+				if (previousKind == TokenKind.NUMBER) {
+					throw new ExpressionException("Missing operator at character position " + scanner.getPos());
 				}
-				stack.push(token);
-			} else if ("(".equals(token)) {
-				if (previousToken != null) {
-					if (isvalidHexa(previousToken)) {
-						throw new ExpressionException("Missing operator at character position " + tokenizer.getPos());
-					}
-					// if the ( is preceded by a valid function, then it
-					// denotes the start of a parameter list
-					if (functions.containsKey(previousToken.toUpperCase(Locale.ROOT))) {
-						outputQueue.add(token);
-					}
+				// if the ( is preceded by a valid function, then it
+				// denotes the start of a parameter list
+				if (previousKind == TokenKind.IDENTIFIER && functions.containsKey(previousToken)) {
+					outputQueue.add(token);
 				}
 				stack.push(token);
-			} else if (")".equals(token)) {
-				if (operators.containsKey(previousToken)) {
+				break;
+			case CLOSE_PARENTHESIS:
+				if (previousKind == TokenKind.OPERATOR) {
 					throw new ExpressionException("Missing parameter(s) for operator " + previousToken
-							+ " at character position " + (tokenizer.getPos() - 1 - previousToken.length()));
-				}
-				while (!stack.isEmpty() && !"(".equals(stack.peek())) {
-					outputQueue.add(stack.pop());
-				}
-				if (stack.isEmpty()) {
-					throw new ExpressionException("Mismatched parentheses");
-				}
-				stack.pop();
-				if (!stack.isEmpty() && functions.containsKey(stack.peek().toUpperCase(Locale.ROOT))) {
-					outputQueue.add(stack.pop());
+							+ " at character position " + (scanner.getPos() - 1 - previousToken.length()));
 				}
+				closeParenthesis(stack, outputQueue);
+				break;
 			}
 			previousToken = token;
+			previousKind = kind;
 		}
-		while (!stack.isEmpty()) {
-			String element = stack.pop();
-			if ("(".equals(element) || ")".equals(element)) {
-				throw new ExpressionException("Mismatched parentheses");
-			}
-			if (!operators.containsKey(element)) {
-				throw new ExpressionException("Unknown operator or function: " + element);
-			}
-			outputQueue.add(element);
-		}
+		flushStack(stack, outputQueue);
 		return outputQueue;
 	}
 
@@ -1223,6 +1406,109 @@ public class Expression {
 		return bd;
 	}
 
+	/**
+	 * Compiles the expression into an immutable tree with all operators,
+	 * functions and constants resolved, for repeated evaluation with
+	 * different variable values. Variables which are not named here keep the
+	 * value they have at compile time.
+	 * <p>
+	 * The compiled expression works on a private copy of this expression's
+	 * configuration: later changes to the precision, angle mode, variables,
+	 * operators or functions of this instance do not affect it. As the
+	 * variable values are passed in with each call, one compiled expression
+	 * can be evaluated by many threads at once without synchronization.
+	 * Operators and functions added by {@link #addOperator(Operator)},
+	 * {@link #addFunction(Function)} or {@link #addLazyFunction(LazyFunction)}
+	 * are shared with this instance and have to be thread-safe themselves.
+	 *
+	 * @param variableNames
+	 *            The variables to be passed to
+	 *            {@link CompiledExpression#eval(BigDecimal...)}, in this
+	 *            order.
+	 * @return The compiled expression.
+	 */
+	public CompiledExpression compile(String... variableNames) {
+		return snapshot(variableNames).compileTree(variableNames.clone());
+	}
+
+	/**
+	 * Creates a copy of this expression for compilation. The built-in
+	 * operators and functions of the copy read the copy's math context and
+	 * angle mode, which nobody changes afterwards; user-defined ones are taken
+	 * over from this instance.
+	 */
+	private Expression snapshot(String... variableNames) {
+		Expression copy = new Expression(expression);
+		copy.mc = mc;
+		copy.EAngleMode = EAngleMode == null ? AngleMode.DEGREE : EAngleMode;
+		copy.customSyntax = customSyntax;
+		for (Map.Entry<String, Operator> entry : operators.entrySet()) {
+			Operator builtIn = copy.operators.get(entry.getKey());
+			if (builtIn == null || builtIn.getClass() != entry.getValue().getClass()) {
+				copy.operators.put(entry.getKey(), entry.getValue());
+			}
+		}
+		for (Map.Entry<String, LazyFunction> entry : functions.entrySet()) {
+			LazyFunction builtIn = copy.functions.get(entry.getKey());
+			if (builtIn == null || builtIn.getClass() != entry.getValue().getClass()) {
+				copy.functions.put(entry.getKey(), entry.getValue());
+			}
+		}
+		copy.variables.putAll(variables);
+		for (String name : variableNames) {
+			if (!copy.variables.containsKey(name)) {
+				copy.variables.put(name, BigDecimal.ZERO);
+			}
+		}
+		return copy;
+	}
+
+	private CompiledExpression compileTree(String[] variableNames) {
+		Map<String, Integer> slots = new TreeMap<String, Integer>(String.CASE_INSENSITIVE_ORDER);
+		for (int i = 0; i < variableNames.length; i++) {
+			slots.put(variableNames[i], i);
+		}
+
+		Stack<CompiledExpression.Node> stack = new Stack<CompiledExpression.Node>();
+		CompiledExpression.Builder builder = new CompiledExpression.Builder();
+
+		for (final String token : getRPN()) {
+			if (operators.containsKey(token)) {
+				final CompiledExpression.Node v1 = stack.pop();
+				final CompiledExpression.Node v2 = stack.pop();
+				Operator o = operators.get(token);
+				stack.push(builder.add(new CompiledExpression.BinaryOperation(o, v2, v1, o.owner() == this)));
+			} else if (slots.containsKey(token)) {
+				stack.push(builder.add(new CompiledExpression.Slot(slots.get(token))));
+			} else if (variables.containsKey(token)) {
+				stack.push(builder.add(new CompiledExpression.Constant(variables.get(token))));
+			} else if (functions.containsKey(token.toUpperCase(Locale.ROOT))) {
+				LazyFunction f = functions.get(token.toUpperCase(Locale.ROOT));
+				ArrayList<CompiledExpression.Node> p = new ArrayList<CompiledExpression.Node>();
+				// pop parameters off the stack until we hit the start of
+				// this function's parameter list
+				while (!stack.isEmpty() && stack.peek() != CompiledExpression.PARAMS_START) {
+					p.add(0, stack.pop());
+				}
+				if (!stack.isEmpty() && stack.peek() == CompiledExpression.PARAMS_START) {
+					stack.pop();
+				}
+				CompiledExpression.Node[] params = p.toArray(new CompiledExpression.Node[p.size()]);
+				if (f instanceof Function) {
+					stack.push(builder.add(new CompiledExpression.FunctionCall((Function) f, params, f.owner() == this,
+							EAngleMode, mc.getRoundingMode())));
+				} else {
+					stack.push(builder.add(new CompiledExpression.LazyFunctionCall(f, params, f.owner() == this)));
+				}
+			} else if ("(".equals(token)) {
+				stack.push(CompiledExpression.PARAMS_START);
+			} else {
+				stack.push(builder.add(new CompiledExpression.Constant(new BigDecimal(token))));
+			}
+		}
+		return builder.build(stack.pop(), variableNames);
+	}
+
 	public static String decToBin(BigDecimal z, int limit) {
 		final BigDecimal base = new BigDecimal(2);
 		boolean negative = false;
@@ -1451,8 +1737,8 @@ public class Expression {
 		for (int i = 0; i < oct.length(); i++) {
 			symbol = oct.substring(i, i + 1);
 			a_i = Integer.parseInt(symbol);
-			if (a_i > 1) {
-				throw new NumberFormatException("No binary number \"" + oct + "\"");
+			if (a_i > 7) {
+				throw new NumberFormatException("No octal number \"" + oct + "\"");
 			}
 			x = x.add(BigDecimal.valueOf(a_i).divide(base.pow(i + 1, mc), mc));
 		}
@@ -1487,121 +1773,132 @@ public class Expression {
 		return n;
 	}
 
+	/**
+	 * Evaluates the expression in octal notation. Number literals are read as
+	 * octal numbers, and the result is returned with its octal digits.
+	 * 
+	 * @return The octal digits of the result.
+	 */
 	public BigDecimal eval8() {
-
-		Stack<LazyNumber> stack = new Stack<LazyNumber>();
-
-		for (final String token : getRPN()) {
-			if (operators.containsKey(token)) {
-				// Here convert to mode base
-				final LazyNumber v1 = stack.pop();
-				final LazyNumber v2 = stack.pop();
-
-				LazyNumber number = new LazyNumber() {
-					public BigDecimal eval() {
-						final BigDecimal V1 = octToBigDecimal(v1.eval().toPlainString(), mc);
-						final BigDecimal V2 = octToBigDecimal(v2.eval().toPlainString(), mc);
-						return operators.get(token).eval(V2, V1);
-					}
-				};
-				stack.push(new LazyNumber() {
-					public BigDecimal eval() {
-						BigDecimal bd = new BigDecimal(0);
-						String ret = decToOct(number.eval(), 5);
-						bd = BigDecimal.valueOf(Double.parseDouble(ret));
-						return bd;
-					}
-				});
-			} else if (variables.containsKey(token)) {
-				stack.push(new LazyNumber() {
-					public BigDecimal eval() {
-						return variables.get(token);
-					}
-				});
-			} else if (functions.containsKey(token.toUpperCase(Locale.ROOT))) {
-				LazyFunction f = functions.get(token.toUpperCase(Locale.ROOT));
-				ArrayList<LazyNumber> p = new ArrayList<LazyNumber>(!f.numParamsVaries() ? f.getNumParams() : 0);
-				// pop parameters off the stack until we hit the start of
-				// this function's parameter list
-				while (!stack.isEmpty() && stack.peek() != PARAMS_START) {
-					p.add(0, stack.pop());
-				}
-				if (stack.peek() == PARAMS_START) {
-					stack.pop();
-				}
-				LazyNumber fResult = f.lazyEval(p);
-				stack.push(fResult);
-			} else if ("(".equals(token)) {
-				stack.push(PARAMS_START);
-			} else {
-				stack.push(new LazyNumber() {
-					public BigDecimal eval() {
-						return new BigDecimal(token);
-					}
-				});
-			}
-		}
-		BigDecimal bd = new BigDecimal(0, mc.DECIMAL128);
-		bd = stack.pop().eval().stripTrailingZeros();
-		return bd;
+		return new BigDecimal(formatRadix(evalRadix(getRadixRPN(8)), 8)).stripTrailingZeros();
 	}
 
+	/**
+	 * Evaluates the expression in binary notation. Number literals are read as
+	 * binary numbers, and the result is returned with its binary digits.
+	 * 
+	 * @return The binary digits of the result.
+	 */
 	public BigDecimal eval2() {
+		return new BigDecimal(formatRadix(evalRadix(getRadixRPN(2)), 2)).stripTrailingZeros();
+	}
 
-		Stack<LazyNumber> stack = new Stack<LazyNumber>();
+	/**
+	 * Returns the RPN of this expression for evaluation in a radix other than
+	 * 10, with the number literals converted to their values. Expressions
+	 * with the built-in operators and functions share it via the
+	 * {@link ParseCache}.
+	 * 
+	 * @param radix
+	 *            The radix, 2, 8 or 16.
+	 * @return The RPN, with number literals as {@link BigDecimal} and all
+	 *         other tokens as {@link String}.
+	 */
+	@SuppressWarnings("unchecked")
+	private List<Object> getRadixRPN(int radix) {
+		String kind = "Radix" + radix;
+		// the literals are converted with the math context
+		String context = variables.keySet().toString() + mc;
+		ParseCache cache = ParseCache.getShared();
+		List<Object> program = customSyntax ? null : (List<Object>) cache.get(kind, expression, context);
+		if (program == null) {
+			List<String> rpn = radix == 16 ? getRPN16() : getRPN();
+			program = new ArrayList<Object>(rpn.size());
+			for (String token : rpn) {
+				if (operators.containsKey(token) || variables.containsKey(token) || functions.containsKey(token)
+						|| "(".equals(token)) {
+					program.add(token);
+				} else if (radix == 16) {
+					program.add(hexToBigDecimal(token, mc));
+				} else if (radix == 8) {
+					program.add(octToBigDecimal(token, mc));
+				} else {
+					program.add(binToBigDecimal(token, mc));
+				}
+			}
+			program = Collections.unmodifiableList(program);
+			if (!customSyntax) {
+				cache.put(kind, expression, context, program);
+			}
+		}
+		return program;
+	}
 
-		for (final String token : getRPN()) {
-			if (operators.containsKey(token)) {
-				// Here convert to mode base
-				final LazyNumber v1 = stack.pop();
-				final LazyNumber v2 = stack.pop();
+	/**
+	 * Marker for the start of a function parameter list in
+	 * {@link #evalRadix(List)}.
+	 */
+	private static final BigDecimal RADIX_PARAMS_START = new BigDecimal(0);
 
-				LazyNumber number = new LazyNumber() {
-					public BigDecimal eval() {
-						final BigDecimal V1 = binToBigDecimal(v1.eval().toPlainString(), mc);
-						final BigDecimal V2 = binToBigDecimal(v2.eval().toPlainString(), mc);
-						return operators.get(token).eval(V2, V1);
-					}
-				};
-				stack.push(new LazyNumber() {
-					public BigDecimal eval() {
-						BigDecimal bd = new BigDecimal(0);
-						bd = BigDecimal.valueOf(Double.parseDouble(decToBin(number.eval(), 5)));
-						return bd;
-					}
-				});
+	/**
+	 * Evaluates an RPN as returned by {@link #getRadixRPN(int)}. Operators and
+	 * functions work on the values of the numbers, independently of the
+	 * radix.
+	 * 
+	 * @param program
+	 *            The RPN with converted number literals.
+	 * @return The value of the expression.
+	 */
+	private BigDecimal evalRadix(List<Object> program) {
+		Stack<BigDecimal> stack = new Stack<BigDecimal>();
+		for (Object item : program) {
+			if (item instanceof BigDecimal) {
+				stack.push((BigDecimal) item);
+				continue;
+			}
+			String token = (String) item;
+			if (operators.containsKey(token)) {
+				BigDecimal v1 = stack.pop();
+				BigDecimal v2 = stack.pop();
+				stack.push(operators.get(token).eval(v2, v1));
 			} else if (variables.containsKey(token)) {
-				stack.push(new LazyNumber() {
-					public BigDecimal eval() {
-						return variables.get(token);
-					}
-				});
-			} else if (functions.containsKey(token.toUpperCase(Locale.ROOT))) {
-				LazyFunction f = functions.get(token.toUpperCase(Locale.ROOT));
-				ArrayList<LazyNumber> p = new ArrayList<LazyNumber>(!f.numParamsVaries() ? f.getNumParams() : 0);
+				stack.push(variables.get(token));
+			} else if (functions.containsKey(token)) {
+				LazyFunction f = functions.get(token);
+				ArrayList<LazyNumber> p = new ArrayList<LazyNumber>();
 				// pop parameters off the stack until we hit the start of
 				// this function's parameter list
-				while (!stack.isEmpty() && stack.peek() != PARAMS_START) {
-					p.add(0, stack.pop());
+				while (!stack.isEmpty() && stack.peek() != RADIX_PARAMS_START) {
+					final BigDecimal value = stack.pop();
+					p.add(0, new LazyNumber() {
+						public BigDecimal eval() {
+							return value;
+						}
+					});
 				}
-				if (stack.peek() == PARAMS_START) {
+				if (!stack.isEmpty()) {
 					stack.pop();
 				}
-				LazyNumber fResult = f.lazyEval(p);
-				stack.push(fResult);
-			} else if ("(".equals(token)) {
-				stack.push(PARAMS_START);
+				stack.push(f.lazyEval(p).eval());
 			} else {
-				stack.push(new LazyNumber() {
-					public BigDecimal eval() {
-						return new BigDecimal(token);
-					}
-				});
+				stack.push(RADIX_PARAMS_START);
 			}
 		}
-		BigDecimal bd = new BigDecimal(0, mc.DECIMAL128);
-		bd = stack.pop().eval().stripTrailingZeros();
-		return bd;
+		return stack.pop();
+	}
+
+	/**
+	 * Formats a value with at most 6 digits after the point in the given
+	 * radix by {@link #decToHex(BigDecimal, int)},
+	 * {@link #decToOct(BigDecimal, int)} or {@link #decToBin(BigDecimal, int)}.
+	 */
+	private static String formatRadix(BigDecimal value, int radix) {
+		String digits = radix == 16 ? decToHex(value, 5) : radix == 8 ? decToOct(value, 5) : decToBin(value, 5);
+		if (value.signum() != 0 && value.abs().compareTo(BigDecimal.ONE) < 0) {
+			// the conversions omit the integer part 0
+			digits = value.signum() < 0 ? "-0." + digits.substring(1) : "0." + digits;
+		}
+		return digits;
 	}
 
 	public static BigDecimal hexToBigDecimal(String hex, MathContext mc) {
@@ -1794,41 +2091,19 @@ public class Expression {
 		return symbols;
 	}
 
+	/**
+	 * Evaluates the expression in hexadecimal notation. Number literals are
+	 * read as hexadecimal numbers with the digits 0 to 9 and A to F.
+	 * 
+	 * @return The result in hexadecimal notation.
+	 */
 	public String eval16() {
-		String finalOp = "";
-		Stack<String> stack = new Stack<String>();
-
-		for (final String token : getRPN16()) {
-			if (operators.containsKey(token)) {
-				// Here convert to mode base
-				final String v1 = stack.pop();
-				final String v2 = stack.pop();
-				final BigDecimal V1 = hexToBigDecimal(v1, mc);
-				final BigDecimal V2 = hexToBigDecimal(v2, mc);
-				stack.push(eval_hexa(token, V2, V1));
-			}  else {
-				stack.push(token);
-			}
-			finalOp = token;
-		}
-		BigDecimal bd = new BigDecimal(0, mc.DECIMAL128);
-		final String val = stack.pop();
-		Pattern pattern = Pattern.compile(
-				"(-?[0-9]*[A B C D E F]*[0-9]*\\.[0-9]*[A B C D E F]*[0-9]*)[+ - \\* /](-?[0-9]*[A B C D E F]*[0-9]*\\.[0-9]*[A B C D E F]*[0-9]*)");
-		Matcher matcher = pattern.matcher(val);
-		try {
-			if (matcher.find()) {
-				final BigDecimal fV1 = hexToBigDecimal(matcher.group(1), mc);
-				final BigDecimal fV2 = hexToBigDecimal(matcher.group(2), mc);
-				return eval_hexa(finalOp, fV2, fV1);
-			} else {
-				return val;
-			}
-		} catch (Exception e) {
-			System.out.println(e.getMessage());
+		List<Object> program = getRadixRPN(16);
+		if (program.size() == 1 && program.get(0) instanceof BigDecimal) {
+			// a single number is returned as it is
+			return getRPN16().get(0);
 		}
-
-		return null;
+		return formatRadix(evalRadix(program), 16);
 	}
 
 	public String eval_hexa(String token, BigDecimal arg1, BigDecimal arg2) {
@@ -1869,6 +2144,7 @@ public class Expression {
 	 *         there was none.
 	 */
 	public Operator addOperator(Operator operator) {
+		customSyntax = true;
 		return operators.put(operator.getOper(), operator);
 	}
 
@@ -1881,6 +2157,7 @@ public class Expression {
 	 *         there was none.
 	 */
 	public Function addFunction(Function function) {
+		customSyntax = true;
 		return (Function) functions.put(function.getName(), function);
 	}
 
@@ -1893,6 +2170,7 @@ public class Expression {
 	 *         there was none.
 	 */
 	public LazyFunction addLazyFunction(LazyFunction function) {
+		customSyntax = true;
 		return functions.put(function.getName(), function);
 	}
 
@@ -1992,29 +2270,60 @@ public class Expression {
 	}
 
 	/**
-	 * Cached access to the RPN notation of this expression, ensures only one
-	 * calculation of the RPN per expression instance. If no cached instance
+	 * Cached access to the RPN notation of this expression. Expressions with
+	 * the built-in operators and functions and the same declared variables
+	 * share their RPN via the {@link ParseCache}; if no cached instance
 	 * exists, a new one will be created and put to the cache.
 	 * 
 	 * @return The cached RPN instance.
 	 */
 	private List<String> getRPN() {
-		// if (rpn == null) {
-		rpn = shuntingYard(this.expression);
-		validate(rpn);
-		// }
+		rpn = getRPN("Expression", false);
 		return rpn;
 	}
 
 	// Tayyeb
 	private List<String> getRPN16() {
-		// if (rpn == null) {
-		rpn = shuntingYard16(this.expression);
-		//validate16(rpn);
-		// }
+		rpn = getRPN("Expression16", true);
 		return rpn;
 	}
 
+	/**
+	 * Looks up the RPN of this expression in the {@link ParseCache}, or
+	 * creates it by the shunting yard algorithm.
+	 * 
+	 * @param kind
+	 *            The key under which the RPN is cached.
+	 * @param hex
+	 *            Whether to parse the expression for a radix other than 10.
+	 * @return The RPN, unmodifiable if it comes from the cache.
+	 */
+	@SuppressWarnings("unchecked")
+	private List<String> getRPN(String kind, boolean hex) {
+		if (customSyntax) {
+			return parseRPN(hex);
+		}
+		ParseCache cache = ParseCache.getShared();
+		// the shunting yard algorithm tells variables from functions
+		String context = variables.keySet().toString();
+		List<String> result = (List<String>) cache.get(kind, expression, context);
+		if (result == null) {
+			result = Collections.unmodifiableList(parseRPN(hex));
+			cache.put(kind, expression, context, result);
+		}
+		return result;
+	}
+
+	private List<String> parseRPN(boolean hex) {
+		if (hex) {
+			//validate16(rpn);
+			return shuntingYard16(this.expression);
+		}
+		List<String> result = shuntingYard(this.expression);
+		validate(result);
+		return result;
+	}
+
 	// end-Tayyeb
 	/**
 	 * Check that the expression has enough numbers and variables to fit the
@@ -2165,11 +2474,14 @@ public class Expression {
 	 */
 	public List<String> getUsedVariables() {
 		List<String> result = new ArrayList<String>();
-		Tokenizer tokenizer = new Tokenizer(expression);
-		while (tokenizer.hasNext()) {
-			String token = tokenizer.next();
-			if (functions.containsKey(token) || operators.containsKey(token) || token.equals("(") || token.equals(")")
-					|| token.equals(",") || isNumber(token) || token.equals("PI") || token.equals("e")
+		TokenScanner scanner = new TokenScanner(expression, false);
+		TokenKind kind;
+		while ((kind = scanner.next()) != null) {
+			if (kind != TokenKind.IDENTIFIER) {
+				continue;
+			}
+			String token = scanner.text();
+			if (functions.containsKey(token) || operators.containsKey(token) || token.equals("PI") || token.equals("e")
 					|| token.equals("TRUE") || token.equals("FALSE")) {
 				continue;
 			}
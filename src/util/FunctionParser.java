@@ -133,6 +133,8 @@ public class FunctionParser implements java.io.Serializable {
    
    /** An array list containing a list of functions in postfix notation. */
    private ArrayList<String[]> functions;
+   /** The functions compiled into opcodes, in the same order as {@link #functions}. */
+   private Program[] programs;
       
    /** Creates a function parser from a single function in usual notation,
     *  infix for binary operators and prefix for functions and ternary operators.
@@ -163,8 +165,10 @@ public class FunctionParser implements java.io.Serializable {
     *  @param function a string of the function in usual notation
     */
    public FunctionParser( String function ) {
+      Parsed parsed = parse( function );
       functions = new ArrayList<String[]>();
-      functions.add( parseToPostFix( function ) );
+      functions.add( parsed.postfix() );
+      programs = new Program[] { parsed.program };
    }
    
    /** Creates a function parser from a list of functions in usual 
@@ -175,8 +179,11 @@ public class FunctionParser implements java.io.Serializable {
     */
    public FunctionParser( String[] functionList ) {
       functions = new ArrayList<String[]>();
+      programs = new Program[ functionList.length ];
       for ( int i = 0; i < functionList.length; i++ ) {
-         functions.add( parseToPostFix( functionList[i] ) );
+         Parsed parsed = parse( functionList[i] );
+         functions.add( parsed.postfix() );
+         programs[i] = parsed.program;
       }
    }
    
@@ -188,6 +195,7 @@ public class FunctionParser implements java.io.Serializable {
     */
    public FunctionParser(ArrayList<String[]> functions) {
       this.functions = functions;
+      this.programs = compile( functions );
    }
 
    /**
@@ -342,6 +350,38 @@ public class FunctionParser implements java.io.Serializable {
      return parsedFunction;
    }
 
+   /** Parses and compiles a function in usual notation, consulting the
+    *  shared {@link ParseCache} first.
+    */
+   private Parsed parse( String function ) {
+      ParseCache cache = ParseCache.getShared();
+      Parsed parsed = (Parsed) cache.get( "FunctionParser", function, null );
+      if ( parsed == null ) {
+         String[] postfix = parseToPostFix( function );
+         parsed = new Parsed( postfix, compile( postfix ) );
+         if ( postfix != null ) {
+            cache.put( "FunctionParser", function, null, parsed );
+         }
+      }
+      return parsed;
+   }
+
+   /** A parsed function as stored in the {@link ParseCache}. */
+   private static final class Parsed {
+      private final String[] postfix;
+      private final Program program;
+
+      private Parsed( String[] postfix, Program program ) {
+         this.postfix = postfix;
+         this.program = program;
+      }
+
+      /** Returns a copy of the postfix array, which each parser may expose. */
+      private String[] postfix() {
+         return postfix == null ? null : postfix.clone();
+      }
+   }
+
    private String[] parseToPostFix(String function) {
       Stack<String> stack = new Stack<String>();
       String[] elements;
@@ -701,10 +741,8 @@ public class FunctionParser implements java.io.Serializable {
     * @return the i-th function value at x
     */
    public double evaluate( int i, double x) {
-      String[] variable = {"x"};
-      double[] value = {x};
-      if ( i >= functions.size() ) return Double.NaN;
-      return evaluatePostFix( functions.get(i), variable, value );
+      Program program = i < functions.size() ? getProgram(i) : null;
+      return program == null ? Double.NaN : program.evaluate( x, Double.NaN, Double.NaN );
    }
 
    /** Evaluates the <i>i</i>-th function <i>f</i>(<i>x</i>, <i>y</i>) of the 
@@ -715,10 +753,8 @@ public class FunctionParser implements java.io.Serializable {
     * @return the <i>i</i>-th function value at (<i>x</i>, <i>y</i>)
     */
    public double evaluate( int i, double x, double y ) {
-      String[] variable = {"x", "y"};
-      double[] value = {x, y};
-      if ( i >= functions.size() ) return Double.NaN;
-      return evaluatePostFix( functions.get(i), variable, value );
+      Program program = i < functions.size() ? getProgram(i) : null;
+      return program == null ? Double.NaN : program.evaluate( x, y, Double.NaN );
    }
 
    /** Evaluates the 0-th function <i>f</i>(<i>x</i>, <i>z</i>) of this object 
@@ -728,10 +764,8 @@ public class FunctionParser implements java.io.Serializable {
     *  @return the function value at (<i>x</i>, <i>z</i>)
     */
    public double evaluateInt( int x, int z ) {
-      String[] variable = {"x","z"};
-      double[] value = {x, z};
-      if ( functions == null || functions.isEmpty() ) return Double.NaN;
-      return evaluatePostFix( functions.get(0), variable, value );
+      Program program = functions == null || functions.isEmpty() ? null : getProgram(0);
+      return program == null ? Double.NaN : program.evaluate( x, Double.NaN, z );
    }
 
    /** Evaluates the function (in postfix notation) at the value <i>x</i>.
@@ -740,194 +774,356 @@ public class FunctionParser implements java.io.Serializable {
     * @return the function value at <i>x</i>
     */
    public static double evaluatePostFix( String[] function, double x) {
-      String[] variable = {"x"};
-      double[] value = {x};
-      return evaluatePostFix( function, variable, value );
+      Program program = compile( function );
+      if ( program == null ) return Double.NaN;
+      return program.evaluate( x, Double.NaN, Double.NaN );
    }
 
-   private static double evaluatePostFix(String[] function, String[] variable, double[] value) {
-      if (function == null) return Double.NaN;
-     
-      String[] postfix = new String[ function.length ];
-      for ( int i = 0; i < function.length; i++ ) {
-         postfix[i] = function[i];
+   /** Evaluates the <i>i</i>-th function at all values of the array <i>xs</i>
+    *  and stores the function values in <i>out</i>, such that
+    *  <code>out[k]</code> = <i>f</i>(<code>xs[k]</code>).
+    *  The function is compiled once into a program of opcodes which is then
+    *  run over blocks of the input, so that no strings are created or
+    *  parsed per point. Occurrences of the variables <i>y</i> and <i>z</i>
+    *  evaluate to NaN.
+    *  @param i index of the function (starting at 0)
+    *  @param xs the <i>x</i>-values to be inserted
+    *  @param out the array receiving the function values, at least as long as <code>xs</code>
+    *  @throws IllegalArgumentException if <code>out</code> is shorter than <code>xs</code>
+    */
+   public void evaluate( int i, double[] xs, double[] out ) {
+      evaluate( i, xs, null, out );
+   }
+
+   /** Evaluates the <i>i</i>-th function <i>f</i>(<i>x</i>, <i>y</i>) at all
+    *  pairs of values of the arrays <i>xs</i> and <i>ys</i> and stores the
+    *  function values in <i>out</i>, such that
+    *  <code>out[k]</code> = <i>f</i>(<code>xs[k]</code>, <code>ys[k]</code>).
+    *  See {@link #evaluate(int, double[], double[])} for details.
+    *  @param i index of the function (starting at 0)
+    *  @param xs the <i>x</i>-values to be inserted
+    *  @param ys the <i>y</i>-values to be inserted, or null if the function does not depend on <i>y</i>
+    *  @param out the array receiving the function values, at least as long as <code>xs</code>
+    *  @throws IllegalArgumentException if <code>ys</code> or <code>out</code> is shorter than <code>xs</code>
+    */
+   public void evaluate( int i, double[] xs, double[] ys, double[] out ) {
+      if ( out.length < xs.length || ( ys != null && ys.length < xs.length ) ) {
+         throw new IllegalArgumentException("Arrays of arguments and results must have equal lengths");
+      }
+      Program program = i < functions.size() ? getProgram(i) : null;
+      if ( program == null ) {
+         java.util.Arrays.fill( out, 0, xs.length, Double.NaN );
+         return;
       }
+      double[][] register = new double[ program.maxDepth ][ BLOCK_SIZE ];
+      for ( int from = 0; from < xs.length; from += BLOCK_SIZE ) {
+         program.run( register, xs, ys, from, min( BLOCK_SIZE, xs.length - from ), out );
+      }
+   }
+
+   /** Returns the compiled program of the <i>i</i>-th function. Instances
+    *  deserialized from a version without compiled programs are compiled on
+    *  the first call.
+    */
+   private Program getProgram( int i ) {
+      if ( programs == null ) {
+         programs = compile( functions );
+      }
+      return programs[i];
+   }
+
+   /** Compiles a list of functions in postfix notation. */
+   private static Program[] compile( ArrayList<String[]> functions ) {
+      Program[] compiled = new Program[ functions.size() ];
+      for ( int k = 0; k < compiled.length; k++ ) {
+         compiled[k] = compile( functions.get(k) );
+      }
+      return compiled;
+   }
 
+   /** Number of points evaluated at once by a {@link Program}. */
+   private static final int BLOCK_SIZE = 256;
+
+   // Opcodes of compiled functions. The first ones push a value onto the stack:
+   private static final int
+      CONST = 0, VAR_X = 1, VAR_Y = 2, VAR_Z = 3,
+      // unary operators:
+      LN = 4, LD = 5, EXP = 6, LOG = 7, SQRT = 8,
+      SIN = 9, COS = 10, TAN = 11, COT = 12, SEC = 13, CSC = 14,
+      ASIN = 15, ACOS = 16, ATAN = 17, ACOT = 18,
+      SINH = 19, COSH = 20, TANH = 21, COTH = 22,
+      ARSINH = 23, ARCOSH = 24, ARTANH = 25, ARCOTH = 26,
+      RIEMANN_Z = 27,
+      // binary operators:
+      PLUS = 28, MINUS = 29, TIMES = 30, DIVIDE = 31, REMAINDER = 32, MOD = 33, POWER = 34,
+      EQUAL = 35, LESS = 36, GREATER = 37, LESS_EQUAL = 38, GREATER_EQUAL = 39,
+      AND = 40, OR = 41, XOR = 42,
+      // ternary operators:
+      IF = 43, MOD_POW = 44;
+
+   /** Arity of each opcode. */
+   private static final int[] ARITY = {
+      0, 0, 0, 0,
+      1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+      2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2,
+      3, 3
+   };
+
+   /** Returns the opcode of an operator or variable name, or -1 if it is none.
+    *  The variables <i>x</i>, <i>y</i>, <i>z</i> are resolved first, then the
+    *  operators of {@link #operator} ordered by arity, ignoring case.
+    */
+   private static int opcode( String name ) {
+      if ( name.equals("x") ) return VAR_X;
+      if ( name.equals("y") ) return VAR_Y;
+      if ( name.equals("z") ) return VAR_Z;
+      if ( name.equals("Z") ) return RIEMANN_Z;
+      String op = name.toLowerCase(java.util.Locale.ROOT);
+      if ( op.equals("ln") ) return LN;
+      if ( op.equals("ld") ) return LD;
+      if ( op.equals("exp") ) return EXP;
+      if ( op.equals("log") ) return LOG;
+      if ( op.equals("sqrt") || op.equals("w") ) return SQRT;
+      if ( op.equals("sin") ) return SIN;
+      if ( op.equals("cos") ) return COS;
+      if ( op.equals("tan") ) return TAN;
+      if ( op.equals("cot") ) return COT;
+      if ( op.equals("sec") ) return SEC;
+      if ( op.equals("csc") ) return CSC;
+      if ( op.equals("asin") ) return ASIN;
+      if ( op.equals("acos") ) return ACOS;
+      if ( op.equals("atan") ) return ATAN;
+      if ( op.equals("acot") ) return ACOT;
+      if ( op.equals("sinh") ) return SINH;
+      if ( op.equals("cosh") ) return COSH;
+      if ( op.equals("tanh") ) return TANH;
+      if ( op.equals("coth") ) return COTH;
+      if ( op.equals("arsinh") ) return ARSINH;
+      if ( op.equals("arcosh") ) return ARCOSH;
+      if ( op.equals("artanh") ) return ARTANH;
+      if ( op.equals("arcoth") ) return ARCOTH;
+      if ( op.equals("+") ) return PLUS;
+      if ( op.equals("-") ) return MINUS;
+      if ( op.equals("*") ) return TIMES;
+      if ( op.equals("/") ) return DIVIDE;
+      if ( op.equals("%") ) return REMAINDER;
+      if ( op.equals("mod") ) return MOD;
+      if ( op.equals("^") ) return POWER;
+      if ( op.equals("=") || op.equals("==") ) return EQUAL;
+      if ( op.equals("<") ) return LESS;
+      if ( op.equals(">") ) return GREATER;
+      if ( op.equals("<=") ) return LESS_EQUAL;
+      if ( op.equals(">=") ) return GREATER_EQUAL;
+      if ( op.equals("&&") || op.equals("&") || op.equals("and") ) return AND;
+      if ( op.equals("|") || op.equals("or") ) return OR;
+      if ( op.equals("xor") ) return XOR;
+      if ( op.equals("if") ) return IF;
+      if ( op.equals("modpow") ) return MOD_POW;
+      if ( op.equals("x") ) return VAR_X;
+      if ( op.equals("y") ) return VAR_Y;
+      return -1;
+   }
+
+   /** Compiles a function in postfix notation into a program of opcodes.
+    *  @param postfix the function in postfix notation
+    *  @return the compiled program, or null if the postfix array is null or malformed
+    */
+   private static Program compile( String[] postfix ) {
+      if ( postfix == null ) return null;
+      int[] code = new int[ postfix.length ];
+      double[] constant = new double[ postfix.length ];
+      int depth = 0, maxDepth = 0;
       for ( int i = 0; i < postfix.length; i++ ) {
-         for ( int j = 0; j < variable.length; j++ ) {
-            postfix[i] = postfix[i].replaceAll( variable[j], Double.toString( value[j] ) );
+         code[i] = opcode( postfix[i] );
+         if ( code[i] < 0 ) {
+            code[i] = CONST;
+            try {
+               constant[i] = Double.parseDouble( postfix[i] );
+            } catch ( NumberFormatException e ) {
+               constant[i] = 0.0; // <- value of an unknown symbol
+            }
          }
+         depth += ARITY[ code[i] ] > 0 ? 1 - ARITY[ code[i] ] : 1;
+         if ( depth <= 0 ) return null;
+         maxDepth = max( maxDepth, depth );
       }
+      if ( maxDepth == 0 ) return null;
+      return new Program( code, constant, maxDepth );
+   }
 
-      Stack<String> stack = new Stack<String>();
-      double result = Double.NaN;
-      for (int i = 0; i < postfix.length; i++) {
-         try {
-            if ( isNumber(postfix[i]) ) {
-               stack.push(postfix[i]);
-            } else {
-               int arguments = 0, k = 1;
-               while ( k < operator.length && arguments == 0 ) {
-                  if ( isOperator( k, postfix[i] ) ) {
-                     arguments = k;
-                     //break; // while-loop
-                  }
-                  k++;
-               }
-               double[] x = new double[ arguments ];
-               for ( int j = 0; j < arguments; j++ ) {
-                  x[j] = Double.parseDouble( stack.pop() );
-               }
-               stack.push( evaluate( x, postfix[i] ) );
+   /** A function compiled into a sequence of opcodes for a stack machine.
+    *  Each postfix token is resolved to its opcode and arity once at parse
+    *  time, so evaluation dispatches by a switch on the opcode.
+    *  For batch evaluation the stack consists of registers each holding the
+    *  values of a block of points, so that every opcode is applied to a whole
+    *  block at once.
+    */
+   private static final class Program implements java.io.Serializable {
+      private static final long serialVersionUID = 1L;
+      /** The opcodes. */
+      private final int[] code;
+      /** The values pushed by CONST opcodes, indexed like {@link #code}. */
+      private final double[] constant;
+      /** Maximum depth of the stack. */
+      private final int maxDepth;
+
+      private Program( int[] code, double[] constant, int maxDepth ) {
+         this.code = code;
+         this.constant = constant;
+         this.maxDepth = maxDepth;
+      }
+
+      /** Evaluates the program at a single point. */
+      private double evaluate( double x, double y, double z ) {
+         double[] stack = new double[ maxDepth ];
+         int top = -1;
+         for ( int i = 0; i < code.length; i++ ) {
+            int op = code[i];
+            switch ( ARITY[op] ) {
+               case 0:
+                  stack[++top] = op == CONST ? constant[i] : op == VAR_X ? x : op == VAR_Y ? y : z;
+                  break;
+               case 1:
+                  stack[top] = apply( op, stack[top], 0, 0 );
+                  break;
+               case 2:
+                  top--;
+                  stack[top] = apply( op, stack[top+1], stack[top], 0 );
+                  break;
+               default:
+                  top -= 2;
+                  stack[top] = apply( op, stack[top+2], stack[top+1], stack[top] );
             }
-         } catch ( Exception e ) {
-            System.out.println("Error: Operands of " + postfix[i] + " wrong!");
-            e.printStackTrace();
          }
+         return stack[top];
       }
-      try {
-         result = Double.parseDouble( stack.pop() );
-      } catch ( Exception e ) {
-         System.out.println("Error: Operand is no number or function is null!");
-         e.printStackTrace();
+
+      /** Evaluates the points <code>from</code>, ..., <code>from + n - 1</code>. */
+      private void run( double[][] register, double[] xs, double[] ys, int from, int n, double[] out ) {
+         int top = -1;
+         for ( int i = 0; i < code.length; i++ ) {
+            int op = code[i];
+            double[] a, b;
+            switch ( op ) {
+               case CONST:
+                  java.util.Arrays.fill( register[++top], 0, n, constant[i] );
+                  break;
+               case VAR_X:
+                  System.arraycopy( xs, from, register[++top], 0, n );
+                  break;
+               case VAR_Y:
+                  if ( ys != null ) {
+                     System.arraycopy( ys, from, register[++top], 0, n );
+                  } else {
+                     java.util.Arrays.fill( register[++top], 0, n, Double.NaN );
+                  }
+                  break;
+               case VAR_Z:
+                  java.util.Arrays.fill( register[++top], 0, n, Double.NaN );
+                  break;
+               case PLUS:
+                  a = register[top-1]; b = register[top--];
+                  for ( int k = 0; k < n; k++ ) a[k] += b[k];
+                  break;
+               case MINUS:
+                  a = register[top-1]; b = register[top--];
+                  for ( int k = 0; k < n; k++ ) a[k] -= b[k];
+                  break;
+               case TIMES:
+                  a = register[top-1]; b = register[top--];
+                  for ( int k = 0; k < n; k++ ) a[k] *= b[k];
+                  break;
+               default:
+                  if ( ARITY[op] == 1 ) {
+                     a = register[top];
+                     for ( int k = 0; k < n; k++ ) a[k] = apply( op, a[k], 0, 0 );
+                  } else if ( ARITY[op] == 2 ) {
+                     a = register[top-1]; b = register[top--];
+                     for ( int k = 0; k < n; k++ ) a[k] = apply( op, b[k], a[k], 0 );
+                  } else {
+                     a = register[top-2]; b = register[top-1];
+                     double[] c = register[top];
+                     top -= 2;
+                     for ( int k = 0; k < n; k++ ) a[k] = apply( op, c[k], b[k], a[k] );
+                  }
+            }
+         }
+         System.arraycopy( register[top], 0, out, from, n );
       }
-      return result;
    }
 
   /** 
-   * evaluates the operation determined by the operation op
-   * and the operands x[0] and x[1].
+   * evaluates the operation determined by the opcode op
+   * and the operands x0, x1, x2.
    * For all operators the operands are pushed
    * from the stack in reverse order (postfix!), e.g.:
    * <p style="text-align:center">
    *   (2,1,-) = 1 - 2 = -1
    * </p>
    */
-  private static String evaluate(double[] x, String op) {
-     double y = 0.0;
-
-     if (op.equals("+")) {
-        y = (x[1] + x[0]);
-     } else if (op.equals("-")) {
-        y = x[1] - x[0];
-     } else if (op.equals("*")) {
-        y = (x[1] * x[0]);
-     } else if (op.equals("/")) {
-        if ( x[0] != 0 && x[1] != 0 )
-           y = (x[1] / x[0]);
-        else if ( x[0] == 0 && x[1] == 0 )   
-           y = 1;
-        else if ( x[1] > 0 )
-           y = Double.POSITIVE_INFINITY;
-        else 
-           y = Double.NEGATIVE_INFINITY;
-     } else if (op.equals("%")) {
-        x[0] = (int) x[0];
-        x[1] = (int) x[1];
-        y = (x[1] % x[0]);
-     } else if (op.equals("mod")) {
-        x[0] = (int) x[0];
-        x[1] = (int) x[1];
-        if ( x[0] == 0 )
-           y = Double.POSITIVE_INFINITY; //??
-        else {
-           if ( x[0] < 0 )
-              x[0] = -x[0];
-           if ( x[1] >= 0 )
-              y = x[1] % x[0];
-           else if ( x[1] < 0 )
-              y = x[0] + x[1] % x[0];
-        }
-     } else if (op.equals("^") || op.equals("pow")) {
-        y = pow(x[1], x[0]);
-     } else if (op.equals("sin")) {
-        y = sin(x[0]);
-     } else if (op.equals("cos")) {
-        y = cos(x[0]);
-     } else if (op.equals("tan")) {
-        y = tan(x[0]);
-     } else if (op.equals("cot")) {
-        y = 1/tan(x[0]);
-     } else if (op.equals("sec")) {
-        y = 1/cos(x[0]);
-     } else if (op.equals("csc")) {
-        y = 1/sin(x[0]);
-     } else if (op.equals("asin")) {
-        y = asin(x[0]);
-     } else if (op.equals("acos")) {
-        y = acos(x[0]);
-     } else if (op.equals("atan")) {
-        y = atan(x[0]);
-     } else if (op.equals("acot")) {
-        y = atan(1/x[0]);
-     } else if (op.equals("sinh")) {
-        y = ( exp(x[0]) - exp(-x[0]) ) / 2;
-     } else if (op.equals("cosh")) {
-        y = ( exp(x[0]) + exp(-x[0]) ) / 2;
-     } else if (op.equals("tanh")) {
-        y = ( exp(x[0]) - exp(-x[0]) ) / ( exp(x[0]) + exp(-x[0]) );
-     } else if (op.equals("coth")) {
-        y = ( exp(x[0]) + exp(-x[0]) ) / ( exp(x[0]) - exp(-x[0]) );
-     } else if (op.equals("arsinh")) {
-        y = log( x[0] + sqrt( x[0]*x[0] + 1 ) );
-     } else if (op.equals("arcosh")) {
-        y = log( x[0] + sqrt( x[0]*x[0] - 1 ) );
-     } else if (op.equals("artanh")) {
-        y = log( (1 + x[0]) / (1 - x[0]) ) / 2;
-     } else if (op.equals("arcoth")) {
-        y = log( (x[0] + 1) / (x[0] - 1) ) / 2;
-     } else if (op.equals("exp")) {
-        y = exp(x[0]);
-     } else if (op.equals("ln")) {
-        y = log(x[0]);
-     } else if (op.equals("log")) {
-        y = log(x[0]) / log(10);
-     } else if (op.equals("ld")) {
-        y = log(x[0]) / log(2);
-     } else if ( op.equals("w") || op.equals("sqrt") ) {
-        y = sqrt(x[0]);
-     } else if ( op.equals("Z") ) {
-        y = Riemann.Z(x[0]);
-     } else if ( op.equals("and") || op.equals("&&") || op.equals("&") ) {
-        y = x[1] * x[0];
-     } else if ( op.equals("or") || op.equals("|") ) {
-        y = x[1] >= x[0] ? x[1] : x[0];
-     } else if ( op.equals("xor") ) {
-        y = (x[1] + x[0]) % 2;
-     } else if ( op.equals("if") ) {
-        y = x[2] == 1 ? x[1] : x[0];
-     } else if ( op.equals("modPow") ) {
-        y = modPow( round(x[2]), round(x[1]), round(x[0]) );
-     } else if (op.equals("<")) {
-        if ( x[1] < x[0] )
-           y = 1; // true
-        else 
-           y = 0; // false
-     } else if (op.equals("<=")) {
-        if ( x[1] <= x[0] )
-           y = 1; // true
-        else 
-           y = 0; // false
-     } else if (op.equals(">")) {
-        if ( x[1] > x[0] )
-           y = 1; // true
-        else 
-           y = 0; // false
-     } else if (op.equals(">=")) {
-        if ( x[1] <= x[0] )
-           y = 1; // true
-        else 
-           y = 0; // false
-     } else if (op.equals("==") || op.equals("=") ) {
-        if ( x[1] == x[0] )
-           y = 1; // true
-        else 
-           y = 0; // false
+  private static double apply( int op, double x0, double x1, double x2 ) {
+     switch ( op ) {
+        case PLUS: return x1 + x0;
+        case MINUS: return x1 - x0;
+        case TIMES: return x1 * x0;
+        case DIVIDE:
+           if ( x0 != 0 && x1 != 0 )
+              return x1 / x0;
+           else if ( x0 == 0 && x1 == 0 )
+              return 1;
+           else if ( x1 > 0 )
+              return Double.POSITIVE_INFINITY;
+           else
+              return Double.NEGATIVE_INFINITY;
+        case REMAINDER:
+           x0 = (int) x0;
+           x1 = (int) x1;
+           return x1 % x0;
+        case MOD:
+           x0 = (int) x0;
+           x1 = (int) x1;
+           if ( x0 == 0 ) return Double.POSITIVE_INFINITY; //??
+           if ( x0 < 0 ) x0 = -x0;
+           return x1 >= 0 ? x1 % x0 : x0 + x1 % x0;
+        case POWER: return pow(x1, x0);
+        case SIN: return sin(x0);
+        case COS: return cos(x0);
+        case TAN: return tan(x0);
+        case COT: return 1/tan(x0);
+        case SEC: return 1/cos(x0);
+        case CSC: return 1/sin(x0);
+        case ASIN: return asin(x0);
+        case ACOS: return acos(x0);
+        case ATAN: return atan(x0);
+        case ACOT: return atan(1/x0);
+        case SINH: return ( exp(x0) - exp(-x0) ) / 2;
+        case COSH: return ( exp(x0) + exp(-x0) ) / 2;
+        case TANH: return ( exp(x0) - exp(-x0) ) / ( exp(x0) + exp(-x0) );
+        case COTH: return ( exp(x0) + exp(-x0) ) / ( exp(x0) - exp(-x0) );
+        case ARSINH: return log( x0 + sqrt( x0*x0 + 1 ) );
+        case ARCOSH: return log( x0 + sqrt( x0*x0 - 1 ) );
+        case ARTANH: return log( (1 + x0) / (1 - x0) ) / 2;
+        case ARCOTH: return log( (x0 + 1) / (x0 - 1) ) / 2;
+        case EXP: return exp(x0);
+        case LN: return log(x0);
+        case LOG: return log(x0) / log(10);
+        case LD: return log(x0) / log(2);
+        case SQRT: return sqrt(x0);
+        case RIEMANN_Z: return Riemann.Z(x0);
+        case AND: return x1 * x0;
+        case OR: return x1 >= x0 ? x1 : x0;
+        case XOR: return (x1 + x0) % 2;
+        case IF: return x2 == 1 ? x1 : x0;
+        case MOD_POW: return modPow( round(x2), round(x1), round(x0) );
+        case LESS: return x1 < x0 ? 1 : 0;
+        case LESS_EQUAL: return x1 <= x0 ? 1 : 0;
+        case GREATER: return x1 > x0 ? 1 : 0;
+        case GREATER_EQUAL: return x1 <= x0 ? 1 : 0;
+        case EQUAL: return x1 == x0 ? 1 : 0;
+        default: return 0.0;
      }
-//System.out.println(" => " + erg);
-     return Double.toString( y );
   }
-  
+
   /** For test purposes...*/
   /*
   public static void main( String[] args ) {     
@@ -0,0 +1,234 @@
+/*
+ * ParseCache.java
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A size-bounded cache of parsed expressions, shared by the front ends
+ * {@link Expression}, {@link TermParser} and {@link FunctionParser}.
+ * Entries are keyed by the front end and the expression text; when the cache
+ * is full, the least recently used entry is evicted.
+ * The cache is safe for concurrent use, and it counts hits, misses and
+ * evictions such that its efficiency can be monitored, e.g.:
+ * <pre>
+ *   ParseCache cache = ParseCache.getShared();
+ *   System.out.println(cache.getHits() + " hits, " + cache.getMisses() + " misses");
+ * </pre>
+ * Cached values are never modified by the front ends, so they may be shared
+ * by several parser instances.
+ * @author agent
+ * @version 1.0
+ */
+public final class ParseCache {
+   /** The default maximum number of entries of the shared cache.*/
+   public static final int DEFAULT_CAPACITY = 1024;
+   /** The cache consulted by all front ends.*/
+   private static final ParseCache shared = new ParseCache( DEFAULT_CAPACITY );
+
+   /** The entries in access order, the least recently used one first.*/
+   private final LinkedHashMap<Key, Object> entries;
+   /** The maximum number of entries.*/
+   private int capacity;
+   private long hits;
+   private long misses;
+   private long evictions;
+
+   /**
+    * Creates an empty cache holding at most <code>capacity</code> entries.
+    * @param capacity the maximum number of entries
+    * @throws IllegalArgumentException if <code>capacity</code> is negative
+    */
+   public ParseCache( int capacity ) {
+      if ( capacity < 0 ) {
+         throw new IllegalArgumentException( "Negative capacity: " + capacity );
+      }
+      this.capacity = capacity;
+      this.entries = new LinkedHashMap<Key, Object>( 16, 0.75f, true ) {
+         private static final long serialVersionUID = 1L;
+         @Override
+         protected boolean removeEldestEntry( Map.Entry<Key, Object> eldest ) {
+            if ( size() > ParseCache.this.capacity ) {
+               evictions++;
+               return true;
+            }
+            return false;
+         }
+      };
+   }
+
+   /**
+    * Returns the cache shared by {@link Expression}, {@link TermParser}
+    * and {@link FunctionParser}.
+    * @return the shared cache
+    */
+   public static ParseCache getShared() {
+      return shared;
+   }
+
+   /**
+    * Returns the parsed form of <code>text</code> stored by the front end
+    * <code>kind</code> under the context <code>context</code>, or
+    * <code>null</code> if it is not cached.
+    */
+   synchronized Object get( String kind, String text, String context ) {
+      if ( text == null ) {
+         return null;
+      }
+      Object parsed = entries.get( new Key( kind, text, context ) );
+      if ( parsed == null ) {
+         misses++;
+      } else {
+         hits++;
+      }
+      return parsed;
+   }
+
+   /**
+    * Stores the parsed form of <code>text</code> for the front end
+    * <code>kind</code> under the context <code>context</code>, evicting the
+    * least recently used entry if the cache is full.
+    */
+   synchronized void put( String kind, String text, String context, Object parsed ) {
+      if ( text != null && parsed != null ) {
+         entries.put( new Key( kind, text, context ), parsed );
+      }
+   }
+
+   /**
+    * Returns the number of lookups which found a cached entry.
+    * @return the number of hits
+    */
+   public synchronized long getHits() {
+      return hits;
+   }
+
+   /**
+    * Returns the number of lookups which did not find a cached entry.
+    * @return the number of misses
+    */
+   public synchronized long getMisses() {
+      return misses;
+   }
+
+   /**
+    * Returns the number of entries removed to respect the capacity.
+    * @return the number of evictions
+    */
+   public synchronized long getEvictions() {
+      return evictions;
+   }
+
+   /**
+    * Returns the current number of entries.
+    * @return the number of cached entries
+    */
+   public synchronized int size() {
+      return entries.size();
+   }
+
+   /**
+    * Returns the maximum number of entries.
+    * @return the capacity of this cache
+    */
+   public synchronized int getCapacity() {
+      return capacity;
+   }
+
+   /**
+    * Sets the maximum number of entries, evicting the least recently used
+    * entries if the cache holds more. A capacity of 0 disables caching.
+    * @param capacity the maximum number of entries
+    * @throws IllegalArgumentException if <code>capacity</code> is negative
+    */
+   public synchronized void setCapacity( int capacity ) {
+      if ( capacity < 0 ) {
+         throw new IllegalArgumentException( "Negative capacity: " + capacity );
+      }
+      this.capacity = capacity;
+      Iterator<Key> eldest = entries.keySet().iterator();
+      while ( entries.size() > capacity ) {
+         eldest.next();
+         eldest.remove();
+         evictions++;
+      }
+   }
+
+   /**
+    * Removes all entries. The counters are not reset.
+    */
+   public synchronized void clear() {
+      entries.clear();
+   }
+
+   /**
+    * Resets the hit, miss and eviction counters to zero.
+    */
+   public synchronized void resetStatistics() {
+      hits = 0;
+      misses = 0;
+      evictions = 0;
+   }
+
+   /**
+    * Returns a string representation of the size and the counters of this
+    * cache.
+    */
+   @Override
+   public synchronized String toString() {
+      return "ParseCache[size=" + entries.size() + ", capacity=" + capacity
+         + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "]";
+   }
+
+   /** Key of a cache entry.*/
+   private static final class Key {
+      private final String kind;
+      private final String text;
+      private final String context;
+      private final int hash;
+
+      private Key( String kind, String text, String context ) {
+         this.kind = kind;
+         this.text = text;
+         this.context = context;
+         int h = kind.hashCode();
+         h = 31 * h + text.hashCode();
+         h = 31 * h + ( context == null ? 0 : context.hashCode() );
+         this.hash = h;
+      }
+
+      @Override
+      public int hashCode() {
+         return hash;
+      }
+
+      @Override
+      public boolean equals( Object o ) {
+         if ( this == o ) return true;
+         if ( !( o instanceof Key ) ) return false;
+         Key k = (Key) o;
+         return hash == k.hash && kind.equals( k.kind ) && text.equals( k.text )
+            && ( context == null ? k.context == null : context.equals( k.context ) );
+      }
+   }
+}
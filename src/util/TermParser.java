@@ -123,6 +123,8 @@ public class TermParser implements java.io.Serializable {
    
    /** The formula in postfix notation. */
    private String[] formula;
+   /** The formula compiled into opcodes. */
+   private Program program;
       
    /** Creates a term parser from a single formula in usual notation,
     *  infix for binary operators and prefix for functions and ternary operators.
@@ -146,7 +148,17 @@ public class TermParser implements java.io.Serializable {
     *  @param formula a string of the function in usual notation
     */
    public TermParser(String formula) {
-      this.formula = parseToPostFix(formula);
+      ParseCache cache = ParseCache.getShared();
+      Parsed parsed = (Parsed) cache.get("TermParser", formula, null);
+      if (parsed == null) {
+         String[] postfix = parseToPostFix(formula);
+         parsed = new Parsed(postfix, compile(postfix));
+         if (postfix != null) {
+            cache.put("TermParser", formula, null, parsed);
+         }
+      }
+      this.formula = parsed.postfix == null ? null : parsed.postfix.clone();
+      this.program = parsed.program;
    }
    
    /**
@@ -617,196 +629,258 @@ public class TermParser implements java.io.Serializable {
       }
    }
    
-   /** Evaluates the function (in postfix notation) at the value <i>x</i>.
-    * @param formula the formula in postfix notation, each array element being a postfix component
+   /** Evaluates the formula (in usual notation) with the given precision.
+    * @param formula the formula in usual notation
     * @param mc the mathcontext determining the precision
-    * @return the function value at <i>x</i>
+    * @return the value of the formula, or null if it cannot be evaluated
     */
    public static BigDecimal evaluate(String formula, MathContext mc) {
-      TermParser parser = new TermParser(formula);
-      return evaluatePostFix(parser.formula, mc);
+      return new TermParser(formula).evaluate(mc);
    }
-   /** Evaluates the function (in postfix notation) at the value <i>x</i>.
-    * @param formula the formula in postfix notation, each array element being a postfix component
-    * @param x the double value to be inserted in the function
-    * @return the function value at <i>x</i>
+
+   /** Evaluates the formula of this parser with the given precision.
+    * @param mc the mathcontext determining the precision
+    * @return the value of the formula, or null if it cannot be evaluated
     */
-   private static BigDecimal evaluatePostFix(String[] formula, MathContext mc) {
-      if (formula == null || formula.length == 0) return null;
+   public BigDecimal evaluate(MathContext mc) {
+      if (program == null && formula != null) {
+         // instance deserialized from a version without compiled program
+         program = compile(formula);
+      }
+      return program == null ? null : program.evaluate(mc);
+   }
 
-      String[] postfix = new String[formula.length];
-      System.arraycopy(formula, 0, postfix, 0, formula.length);
+   // Opcodes of compiled formulas:
+   private static final int
+      CONST = 0,
+      // unary operators:
+      LN = 1, LD = 2, EXP = 3, LOG = 4, SQRT = 5,
+      SIN = 6, COS = 7, TAN = 8, COT = 9, SEC = 10, CSC = 11,
+      ASIN = 12, ACOS = 13, ATAN = 14, ACOT = 15,
+      SINH = 16, COSH = 17, TANH = 18, COTH = 19,
+      ARSINH = 20, ARCOSH = 21, ARTANH = 22, ARCOTH = 23,
+      BROWN = 24,
+      // binary operators:
+      PLUS = 25, MINUS = 26, TIMES = 27, DIVIDE = 28, REMAINDER = 29, MOD = 30, POWER = 31,
+      EQUAL = 32, LESS = 33, GREATER = 34, LESS_EQUAL = 35, GREATER_EQUAL = 36,
+      AND = 37, OR = 38, XOR = 39,
+      // ternary operators:
+      IF = 40, MOD_POW = 41;
 
-      Stack<String> stack = new Stack<String>();
-      BigDecimal result = null;
+   /** Arity of each opcode. */
+   private static final int[] ARITY = {
+      0,
+      1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+      2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2, 2,
+      3, 3
+   };
+
+   /** Returns the opcode of an operator name of {@link #operator}, ignoring
+    *  case, or -1 if it is none.
+    */
+   private static int opcode(String name) {
+      String op = name.toLowerCase(java.util.Locale.ROOT);
+      if ( op.equals("ln") ) return LN;
+      if ( op.equals("ld") ) return LD;
+      if ( op.equals("exp") ) return EXP;
+      if ( op.equals("log") ) return LOG;
+      if ( op.equals("sqrt") || op.equals("w") ) return SQRT;
+      if ( op.equals("sin") ) return SIN;
+      if ( op.equals("cos") ) return COS;
+      if ( op.equals("tan") ) return TAN;
+      if ( op.equals("cot") ) return COT;
+      if ( op.equals("sec") ) return SEC;
+      if ( op.equals("csc") ) return CSC;
+      if ( op.equals("asin") ) return ASIN;
+      if ( op.equals("acos") ) return ACOS;
+      if ( op.equals("atan") ) return ATAN;
+      if ( op.equals("acot") ) return ACOT;
+      if ( op.equals("sinh") ) return SINH;
+      if ( op.equals("cosh") ) return COSH;
+      if ( op.equals("tanh") ) return TANH;
+      if ( op.equals("coth") ) return COTH;
+      if ( op.equals("arsinh") ) return ARSINH;
+      if ( op.equals("arcosh") ) return ARCOSH;
+      if ( op.equals("artanh") ) return ARTANH;
+      if ( op.equals("arcoth") ) return ARCOTH;
+      if ( op.equals("brown") ) return BROWN;
+      if ( op.equals("+") ) return PLUS;
+      if ( op.equals("-") ) return MINUS;
+      if ( op.equals("*") ) return TIMES;
+      if ( op.equals("/") ) return DIVIDE;
+      if ( op.equals("%") ) return REMAINDER;
+      if ( op.equals("mod") ) return MOD;
+      if ( op.equals("^") ) return POWER;
+      if ( op.equals("=") || op.equals("==") ) return EQUAL;
+      if ( op.equals("<") ) return LESS;
+      if ( op.equals(">") ) return GREATER;
+      if ( op.equals("<=") ) return LESS_EQUAL;
+      if ( op.equals(">=") ) return GREATER_EQUAL;
+      if ( op.equals("&&") || op.equals("&") || op.equals("and") ) return AND;
+      if ( op.equals("|") || op.equals("or") ) return OR;
+      if ( op.equals("xor") ) return XOR;
+      if ( op.equals("if") ) return IF;
+      if ( op.equals("modpow") ) return MOD_POW;
+      return -1;
+   }
+
+   /** Compiles a formula in postfix notation into a program of opcodes.
+    *  @param postfix the formula in postfix notation
+    *  @return the compiled program, or null if the formula is null, malformed or contains variables
+    */
+   private static Program compile(String[] postfix) {
+      if (postfix == null) return null;
+      int[] code = new int[postfix.length];
+      BigDecimal[] constant = new BigDecimal[postfix.length];
+      int depth = 0, maxDepth = 0;
       for (int i = 0; i < postfix.length; i++) {
+         code[i] = opcode(postfix[i]);
+         if (code[i] < 0) {
+            code[i] = CONST;
+            try {
+               constant[i] = new BigDecimal(postfix[i]);
+            } catch (NumberFormatException e) {
+               return null; // a variable, which cannot be evaluated
+            }
+         }
+         depth += ARITY[code[i]] > 0 ? 1 - ARITY[code[i]] : 1;
+         if (depth <= 0) return null;
+         maxDepth = Math.max(maxDepth, depth);
+      }
+      if (maxDepth == 0) return null;
+      return new Program(code, constant, maxDepth);
+   }
+
+   /** A parsed formula as stored in the {@link ParseCache}. */
+   private static final class Parsed {
+      private final String[] postfix;
+      private final Program program;
+
+      private Parsed(String[] postfix, Program program) {
+         this.postfix = postfix;
+         this.program = program;
+      }
+   }
+
+   /** A formula compiled into a sequence of opcodes for a stack machine.
+    *  Each postfix token is resolved to its opcode and arity once at parse
+    *  time, so evaluation dispatches by a switch on the opcode.
+    */
+   private static final class Program implements java.io.Serializable {
+      private static final long serialVersionUID = 1L;
+      /** The opcodes. */
+      private final int[] code;
+      /** The values pushed by CONST opcodes, indexed like {@link #code}. */
+      private final BigDecimal[] constant;
+      /** Maximum depth of the stack. */
+      private final int maxDepth;
+
+      private Program(int[] code, BigDecimal[] constant, int maxDepth) {
+         this.code = code;
+         this.constant = constant;
+         this.maxDepth = maxDepth;
+      }
+
+      private BigDecimal evaluate(MathContext mc) {
+         BigDecimal[] stack = new BigDecimal[maxDepth];
+         int top = -1;
          try {
-            if ( isNumber(postfix[i]) ) {
-               stack.push(postfix[i]);
-            } else {
-               int arguments = 0, k = 1;
-               while ( k < operator.length && arguments == 0 ) {
-                  if ( isOperator( k, postfix[i] ) ) {
-                     arguments = k;
-                     //break; // while-loop
-                  }
-                  k++;
+            for (int i = 0; i < code.length; i++) {
+               int op = code[i];
+               switch (ARITY[op]) {
+                  case 0:
+                     stack[++top] = constant[i];
+                     break;
+                  case 1:
+                     stack[top] = apply(op, stack[top], null, null, mc);
+                     break;
+                  case 2:
+                     top--;
+                     stack[top] = apply(op, stack[top+1], stack[top], null, mc);
+                     break;
+                  default:
+                     top -= 2;
+                     stack[top] = apply(op, stack[top+2], stack[top+1], stack[top], mc);
                }
-               BigDecimal[] x = new BigDecimal[arguments];
-               for ( int j = 0; j < arguments; j++ ) {
-                  x[j] = new BigDecimal(stack.pop());
-               }
-               stack.push(evaluate(x, postfix[i], mc));
             }
-         } catch (Exception e) {
-            System.out.println("Error: Operands of " + postfix[i] + " wrong!");
-            e.printStackTrace();
+         } catch (ArithmeticException e) {
+            System.out.println("Error: " + e.getMessage());
+            return null;
          }
+         return stack[top];
       }
-      try {
-         result = new BigDecimal(stack.pop());
-      } catch ( Exception e ) {
-         System.out.println("Error: Operand is no number or function is null!");
-         e.printStackTrace();
-      }
-      return result;
    }
 
   /** 
-   * evaluates the operation determined by the operation op
-   * and the operands x[0] and x[1].
+   * evaluates the operation determined by the opcode op
+   * and the operands x0, x1, x2.
    * For all operators the operands are pushed
    * from the stack in reverse order (postfix!), e.g.:
    * <p style="text-align:center">
    *   (2,1,-) = 1 - 2 = -1
    * </p>
+   * Operators without an implementation yield zero.
    */
-  private static String evaluate(BigDecimal[] x, String op, MathContext mc) {
+  private static BigDecimal apply(int op, BigDecimal x0, BigDecimal x1, BigDecimal x2, MathContext mc) {
      BigDecimal y = ZERO_DOT;
 
-     if (op.equals("+")) {
-        y = x[1].add(x[0]);
-     } else if (op.equals("-")) {
-        y = x[1].subtract(x[0]);
-     } else if (op.equals("*")) {
-        y = x[1].multiply(x[0]);
-     } else if (op.equals("/")) {
-        if ( !x[0].equals(ZERO_DOT) && !x[1].equals(ZERO_DOT))
-           y = x[1].divide(x[0], mc);
-        else if (x[0].equals(ZERO_DOT) && x[1].equals(ZERO_DOT))
-           y = ONE_DOT;
-//        else if (x[1].signum() > 0)
-//           y = Double.POSITIVE_INFINITY;
-//        else
-//           y = Double.NEGATIVE_INFINITY;
-     } else if (op.equals("%")) {
-        BigInteger m = x[0].toBigInteger();
-        BigInteger n = x[1].toBigInteger();
-        y = new BigDecimal(n.mod(m));
-     } else if (op.equals("mod")) {
-        BigInteger m = x[0].toBigInteger();
-        BigInteger n = x[1].toBigInteger();
-        y = new BigDecimal(n.mod(m));
-     } else if (op.equals("^") || op.equals("pow")) {
-        y = pow(x[1], x[0].intValue());
-     } else if (op.equals("sin")) {
-        y = sin(x[0]);
-     } else if (op.equals("cos")) {
-        y = cos(x[0]);
-        /*
-     } else if (op.equals("tan")) {
-        y = tan(x[0]);
-     } else if (op.equals("cot")) {
-        y = 1/tan(x[0]);
-     } else if (op.equals("sec")) {
-        y = 1/cos(x[0]);
-     } else if (op.equals("csc")) {
-        y = 1/sin(x[0]);
-     } else if (op.equals("asin")) {
-        y = asin(x[0]);
-     } else if (op.equals("acos")) {
-        y = acos(x[0]);
-     } else if (op.equals("atan")) {
-        y = atan(x[0]);
-     } else if (op.equals("acot")) {
-        y = atan(1/x[0]);
-     } else if (op.equals("sinh")) {
-        y = ( exp(x[0]) - exp(-x[0]) ) / 2;
-     } else if (op.equals("cosh")) {
-        y = ( exp(x[0]) + exp(-x[0]) ) / 2;
-     } else if (op.equals("tanh")) {
-        y = ( exp(x[0]) - exp(-x[0]) ) / ( exp(x[0]) + exp(-x[0]) );
-     } else if (op.equals("coth")) {
-        y = ( exp(x[0]) + exp(-x[0]) ) / ( exp(x[0]) - exp(-x[0]) );
-     } else if (op.equals("arsinh")) {
-        y = log( x[0] + sqrt( x[0]*x[0] + 1 ) );
-     } else if (op.equals("arcosh")) {
-        y = log( x[0] + sqrt( x[0]*x[0] - 1 ) );
-     } else if (op.equals("artanh")) {
-        y = log( (1 + x[0]) / (1 - x[0]) ) / 2;
-     } else if (op.equals("arcoth")) {
-        y = log( (x[0] + 1) / (x[0] - 1) ) / 2;
-         */
-     } else if (op.equals("exp")) {
-        y = exp(x[0]);
-     } else if (op.equals("ln")) {
-        y = ln(x[0]);
-     } else if (op.equals("log")) {
-        y = ln(x[0]).divide(ln(BigDecimal.valueOf(10)), mc);
-     } else if (op.equals("ld")) {
-        y = ln(x[0]).divide(ln(BigDecimal.valueOf(2)), mc);
-        //y = log(x[0]) / log(2);
-     } else if ( op.equals("w") || op.equals("sqrt") ) {
-        y = sqrt(x[0],mc.getPrecision());
-     } else if ( op.equalsIgnoreCase("brown") ) {
-        y = brown( x[0].intValue(), mc.getPrecision());
-        /*
-     } else if ( op.equals("and") || op.equals("&&") || op.equals("&") ) {
-        y = x[1] * x[0];
-     } else if ( op.equals("or") || op.equals("|") ) {
-        y = x[1] >= x[0] ? x[1] : x[0];
-     } else if ( op.equals("xor") ) {
-        y = (x[1] + x[0]) % 2;
-     } else if ( op.equals("if") ) {
-        y = x[2] == 1 ? x[1] : x[0];
-         */
-     } else if ( op.equals("modPow") ) {
-        //y = modPow( round(x[2]), round(x[1]), round(x[0]) );
-        y = new BigDecimal(modPow(
-          x[2].toBigInteger(),x[1].toBigInteger(),x[0].toBigInteger()
-        ));
-        /*
-     } else if (op.equals("<")) {
-        if ( x[1] < x[0] )
-           y = 1; // true
-        else 
-           y = 0; // false
-     } else if (op.equals("<=")) {
-        if ( x[1] <= x[0] )
-           y = 1; // true
-        else 
-           y = 0; // false
-     } else if (op.equals(">")) {
-        if ( x[1] > x[0] )
-           y = 1; // true
-        else 
-           y = 0; // false
-     } else if (op.equals(">=")) {
-        if ( x[1] <= x[0] )
-           y = 1; // true
-        else 
-           y = 0; // false
-     } else if (op.equals("==") || op.equals("=") ) {
-        if ( x[1] == x[0] )
-           y = 1; // true
-        else 
-           y = 0; // false
-         */
+     switch (op) {
+        case PLUS:
+           y = x1.add(x0);
+           break;
+        case MINUS:
+           y = x1.subtract(x0);
+           break;
+        case TIMES:
+           y = x1.multiply(x0);
+           break;
+        case DIVIDE:
+           if ( !x0.equals(ZERO_DOT) && !x1.equals(ZERO_DOT))
+              y = x1.divide(x0, mc);
+           else if (x0.equals(ZERO_DOT) && x1.equals(ZERO_DOT))
+              y = ONE_DOT;
+           break;
+        case REMAINDER:
+        case MOD:
+           y = new BigDecimal(x1.toBigInteger().mod(x0.toBigInteger()));
+           break;
+        case POWER:
+           y = pow(x1, x0.intValue());
+           break;
+        case SIN:
+           y = sin(x0);
+           break;
+        case COS:
+           y = cos(x0);
+           break;
+        case EXP:
+           y = exp(x0);
+           break;
+        case LN:
+           y = ln(x0);
+           break;
+        case LOG:
+           y = ln(x0).divide(ln(BigDecimal.valueOf(10)), mc);
+           break;
+        case LD:
+           y = ln(x0).divide(ln(BigDecimal.valueOf(2)), mc);
+           break;
+        case SQRT:
+           y = sqrt(x0,mc.getPrecision());
+           break;
+        case BROWN:
+           y = brown( x0.intValue(), mc.getPrecision());
+           break;
+        case MOD_POW:
+           y = new BigDecimal(modPow(
+             x2.toBigInteger(),x1.toBigInteger(),x0.toBigInteger()
+           ));
+           break;
      }
-//System.out.println(" => " + erg);
-     return y.toPlainString();
+     // intermediate results used to be passed on as plain strings:
+     return y.scale() < 0 ? y.setScale(0) : y;
   }
-  
+
   /** For test purposes...*/
   /*
   public static void main( String[] args ) {     
@@ -0,0 +1,79 @@
+/*
+ * FlatMatrixTest.java
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package algebra;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tests the equality and the hash code of {@link FlatMatrix}, which depend on the
+ * dimensions and entries but not on the layout of the data array, so that a view
+ * equals its contiguous copy, and the rows and columns of empty matrices.
+ * An {@link AssertionError} is thrown at the first deviation.
+ * <p>
+ * Usage: <code>java algebra.FlatMatrixTest</code>
+ * @author agent
+ * @version 1.0
+ */
+public class FlatMatrixTest {
+   private FlatMatrixTest() {
+   }
+
+   private static void check( boolean condition, String message ) {
+      if ( !condition ) {
+         throw new AssertionError( message );
+      }
+   }
+
+   public static void main( String[] args ) {
+      double[] data = new double[20];
+      for ( int k = 0; k < data.length; k++ ) {
+         data[k] = k - 7.5;
+      }
+      FlatMatrix a = new FlatMatrix( data, 4, 5 );
+      FlatMatrix view = a.submatrix( 1, 2, 3, 2 );
+      FlatMatrix copy = view.copy();
+      check( view.equals( copy ) && copy.equals( view ), "view != copy: " + view + copy );
+      check( view.hashCode() == copy.hashCode(), "hash codes of view and copy differ" );
+      check( a.equals( a.transpose().transpose() ), "a != (a^T)^T" );
+      check( !a.equals( a.transpose() ), "a = a^T for a non-square matrix" );
+      check( !a.equals( new FlatMatrix( data, 5, 4 ) ), "4x5 = 5x4 with the same data" );
+      check( !a.equals( a.toMatrix() ), "a FlatMatrix equals a Matrix" );
+
+      Set<FlatMatrix> set = new HashSet<FlatMatrix>();
+      set.add( view );
+      check( set.contains( copy ), "the copy of a view is not found in a hash set" );
+
+      copy.set( 0, 0, copy.get( 0, 0 ) + Matrix.EPSILON / 2 );
+      check( !view.equals( copy ) && view.approximates( copy ), "equals is not exact" );
+
+      FlatMatrix wide = new FlatMatrix( 0, 3 ), tall = new FlatMatrix( 3, 0 );
+      check( wide.getColumn( 2 ).length == 0, "column of a 0x3 matrix" );
+      check( tall.getRow( 2 ).length == 0, "row of a 3x0 matrix" );
+      check( wide.equals( new FlatMatrix( 0, 3 ) ) && !wide.equals( tall ), "equality of empty matrices" );
+      try {
+         tall.getColumn( 0 );
+         check( false, "column 0 of a 3x0 matrix" );
+      } catch ( IndexOutOfBoundsException e ) {
+      }
+      System.out.println( "FlatMatrix checked" );
+   }
+}
@@ -0,0 +1,84 @@
+/*
+ * KrylovEigenSolverTest.java
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package algebra;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests the {@link KrylovEigenSolver} against the full {@link EigenvalueDecomposition}.
+ * For random nonsymmetric matrices and the target
+ * {@link KrylovEigenSolver.Target#LARGEST_REAL}, a converged result must consist of
+ * the eigenvalues of largest real part; in particular for the matrix of seed 2 and
+ * <i>k</i> = 6, where the unverified Arnoldi iteration converged to a wrong set.
+ * An {@link AssertionError} is thrown at the first deviation.
+ * <p>
+ * Usage: <code>java algebra.KrylovEigenSolverTest</code>
+ * @author agent
+ * @version 1.0
+ */
+public class KrylovEigenSolverTest {
+   private KrylovEigenSolverTest() {
+   }
+
+   /** Returns an <i>n</i> &times; <i>n</i> matrix with standard normal entries. */
+   private static Matrix gaussian( int n, long seed ) {
+      Random random = new Random( seed );
+      double[][] a = new double[n][n];
+      for ( int i = 0; i < n; i++ ) {
+         for ( int j = 0; j < n; j++ ) {
+            a[i][j] = random.nextGaussian();
+         }
+      }
+      return new Matrix( a );
+   }
+
+   /** Checks the eigenvalues of largest real part of the given matrix, and returns
+    *  whether the solver has converged. */
+   private static boolean checkLargestReal( Matrix a, int k ) {
+      int n = a.getRows();
+      double[] expected = new EigenvalueDecomposition( a ).getRealEigenvalues().clone();
+      Arrays.sort( expected );
+      KrylovEigenSolver solver = new KrylovEigenSolver( KrylovSolver.operator( a ), k )
+         .setTarget( KrylovEigenSolver.Target.LARGEST_REAL ).solve();
+      if ( solver.isConverged() ) {
+         double[] re = solver.getRealEigenvalues();
+         for ( int l = 0; l < re.length; l++ ) {
+            if ( Math.abs( re[l] - expected[n - 1 - l] ) > 1e-6 * Math.abs( expected[n - 1] ) ) {
+               throw new AssertionError( "Converged to " + Arrays.toString( re ) + ", but eigenvalue "
+                  + l + " of largest real part is " + expected[n - 1 - l] );
+            }
+         }
+      }
+      return solver.isConverged();
+   }
+
+   public static void main( String[] args ) {
+      if ( !checkLargestReal( gaussian( 150, 2 ), 6 ) ) {
+         throw new AssertionError( "Not converged for seed 2, k = 6" );
+      }
+      int converged = 0;
+      for ( long seed = 0; seed < 10; seed++ ) {
+         if ( checkLargestReal( gaussian( 100, seed ), 4 ) ) converged++;
+      }
+      System.out.println( "LARGEST_REAL checked, " + converged + " of 10 random cases converged" );
+   }
+}
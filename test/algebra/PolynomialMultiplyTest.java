@@ -0,0 +1,132 @@
+/*
+ * PolynomialMultiplyTest.java
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package algebra;
+
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Tests the polynomial products. The products of {@link PolynomialZ}, whose dense
+ * path by {@link Convolution} applies only to polynomials without negative exponents,
+ * are compared with the sparse loop over all pairs of terms, for random polynomials
+ * with and without negative exponents, over the integers and modulo a prime;
+ * {@link PolynomialZ#multiplyMod2(PolynomialZ, BigInteger)} only for nonnegative ones.
+ * The products of {@link Polynomial} must be exact: integer coefficients yield
+ * integer coefficients, and zero-padded arrays yield the product of the degree
+ * deg <i>p</i> + deg <i>q</i>. An {@link AssertionError} is thrown at the first deviation.
+ * <p>
+ * Usage: <code>java algebra.PolynomialMultiplyTest [cases]</code>
+ * @author agent
+ * @version 1.0
+ */
+public class PolynomialMultiplyTest {
+   private PolynomialMultiplyTest() {
+   }
+
+   /** Returns a random polynomial with exponents from low to high and leading coefficient &#x00B1;1. */
+   static PolynomialZ random( int low, int high, Random random ) {
+      PolynomialZ p = new PolynomialZ();
+      for ( int k = low; k < high; k++ ) {
+         if ( random.nextInt( 4 ) > 0 ) {
+            p.put( BigInteger.valueOf( k ), BigInteger.valueOf( random.nextInt( 21 ) - 10 ) );
+         }
+      }
+      p.put( BigInteger.valueOf( high ), random.nextBoolean() ? BigInteger.ONE : BigInteger.ONE.negate() );
+      return p;
+   }
+
+   /** Returns the nonvanishing coefficients of p, reduced modulo m unless m is null. */
+   static Map<BigInteger, BigInteger> normalize( PolynomialZ p, BigInteger m ) {
+      Map<BigInteger, BigInteger> map = new TreeMap<BigInteger, BigInteger>();
+      for ( Map.Entry<BigInteger, BigInteger> term : p.entrySet() ) {
+         BigInteger a = m == null ? term.getValue() : term.getValue().mod( m );
+         if ( a.signum() != 0 ) {
+            map.put( term.getKey(), a );
+         }
+      }
+      return map;
+   }
+
+   /** Returns the product of p and q by the sparse loop over all pairs of terms. */
+   static PolynomialZ sparseProduct( PolynomialZ p, PolynomialZ q ) {
+      PolynomialZ product = new PolynomialZ();
+      for ( Map.Entry<BigInteger, BigInteger> s : p.entrySet() ) {
+         for ( Map.Entry<BigInteger, BigInteger> t : q.entrySet() ) {
+            BigInteger k = s.getKey().add( t.getKey() );
+            BigInteger a = product.containsKey( k ) ? product.get( k ) : BigInteger.ZERO;
+            product.put( k, a.add( s.getValue().multiply( t.getValue() ) ) );
+         }
+      }
+      return product;
+   }
+
+   private static void check( boolean condition, String message ) {
+      if ( !condition ) {
+         throw new AssertionError( message );
+      }
+   }
+
+   public static void main( String[] args ) {
+      int cases = args.length > 0 ? Integer.parseInt( args[0] ) : 1000;
+      Random random = new Random( 42 );
+      BigInteger prime = BigInteger.valueOf( 10007 );
+
+      for ( int i = 0; i < cases; i++ ) {
+         int low = i % 2 == 0 ? 0 : -random.nextInt( 5 ) - 1;
+         PolynomialZ p = random( low, 8 + random.nextInt( 60 ), random );
+         PolynomialZ q = random( i % 4 < 2 ? 0 : low, 8 + random.nextInt( 30 ), random );
+         Map<BigInteger, BigInteger> expected = normalize( sparseProduct( p, q ), null );
+         check( normalize( p.multiply( q ), null ).equals( expected ),
+            "p*q differs for p = " + p + ", q = " + q );
+         check( normalize( p.multiplyMod( q, prime ), prime ).equals( normalize( sparseProduct( p, q ), prime ) ),
+            "p*q mod m differs for p = " + p + ", q = " + q );
+         // the sparse loop of multiplyMod2 runs over the nonnegative exponents only:
+         if ( low == 0 ) {
+            check( normalize( p.multiplyMod2( q, prime ), prime ).equals( normalize( sparseProduct( p, q ), prime ) ),
+               "multiplyMod2 differs for p = " + p + ", q = " + q );
+         }
+      }
+
+      // exact products of double coefficients, also for zero-padded arrays:
+      for ( int n = 100; n <= 400; n += 150 ) {
+         double[] x = new double[n + 50], y = new double[n + 50];
+         double[] expected = new double[2 * n - 1];
+         for ( int k = 0; k < n; k++ ) {
+            x[k] = random.nextInt( 1000 ) - 500;
+            y[k] = random.nextInt( 1000 ) - 500;
+         }
+         x[n - 1] = y[n - 1] = 1;
+         for ( int k = 0; k < n; k++ ) {
+            for ( int l = 0; l < n; l++ ) {
+               expected[k + l] += x[k] * y[l];
+            }
+         }
+         check( java.util.Arrays.equals( Polynomial.multiply( x, y ), expected ),
+            "Polynomial.multiply is not exact for n = " + n );
+         double[] fft = Polynomial.multiplyFFT( x, y );
+         check( fft.length == expected.length, "Polynomial.multiplyFFT has length " + fft.length
+            + " instead of " + expected.length );
+      }
+      System.out.println( cases + " random products checked" );
+   }
+}
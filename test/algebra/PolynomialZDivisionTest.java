@@ -0,0 +1,145 @@
+/*
+ * PolynomialZDivisionTest.java
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package algebra;
+
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Tests the divisions of {@link PolynomialZ}, whose Newton division applies only
+ * to polynomials without negative exponents, by the identity <i>u</i> = <i>qv</i> + <i>r</i>.
+ * Random polynomials with and without negative exponents are divided by random
+ * polynomials over the integers and modulo a prime, and the division
+ * (<i>x</i><sup>5</sup> + 3<i>x</i><sup>-1</sup>) / (<i>x</i><sup>2</sup> + 2<i>x</i>)
+ * is compared with its known quotient and remainder. If the leading coefficient of
+ * the divisor is not prime to the modulus <i>m</i>, the coefficients of the remainder
+ * must still be reduced modulo <i>m</i>. An {@link AssertionError} is thrown at the
+ * first deviation.
+ * <p>
+ * Usage: <code>java algebra.PolynomialZDivisionTest [cases]</code>
+ * @author agent
+ * @version 1.0
+ */
+public class PolynomialZDivisionTest {
+   private PolynomialZDivisionTest() {
+   }
+
+   /** Returns the polynomial with the given exponents and coefficients. */
+   private static PolynomialZ polynomial( long... terms ) {
+      PolynomialZ p = new PolynomialZ();
+      for ( int i = 0; i < terms.length; i += 2 ) {
+         p.put( BigInteger.valueOf( terms[i] ), BigInteger.valueOf( terms[i + 1] ) );
+      }
+      return p;
+   }
+
+   /** Returns a random polynomial with exponents from low to high and leading coefficient &#x00B1;1. */
+   private static PolynomialZ random( int low, int high, Random random ) {
+      PolynomialZ p = new PolynomialZ();
+      for ( int k = low; k < high; k++ ) {
+         if ( random.nextInt( 4 ) > 0 ) {
+            p.put( BigInteger.valueOf( k ), BigInteger.valueOf( random.nextInt( 21 ) - 10 ) );
+         }
+      }
+      p.put( BigInteger.valueOf( high ), random.nextBoolean() ? BigInteger.ONE : BigInteger.ONE.negate() );
+      return p;
+   }
+
+   /** Returns the nonvanishing coefficients of p, reduced modulo m unless m is null. */
+   private static Map<BigInteger, BigInteger> normalize( PolynomialZ p, BigInteger m ) {
+      Map<BigInteger, BigInteger> map = new TreeMap<BigInteger, BigInteger>();
+      for ( Map.Entry<BigInteger, BigInteger> term : p.entrySet() ) {
+         BigInteger a = m == null ? term.getValue() : term.getValue().mod( m );
+         if ( a.signum() != 0 ) {
+            map.put( term.getKey(), a );
+         }
+      }
+      return map;
+   }
+
+   /** Returns the product of p and q by the sparse loop over all pairs of terms. */
+   private static PolynomialZ sparseProduct( PolynomialZ p, PolynomialZ q ) {
+      PolynomialZ product = new PolynomialZ();
+      for ( Map.Entry<BigInteger, BigInteger> s : p.entrySet() ) {
+         for ( Map.Entry<BigInteger, BigInteger> t : q.entrySet() ) {
+            BigInteger k = s.getKey().add( t.getKey() );
+            BigInteger a = product.containsKey( k ) ? product.get( k ) : BigInteger.ZERO;
+            product.put( k, a.add( s.getValue().multiply( t.getValue() ) ) );
+         }
+      }
+      return product;
+   }
+
+   private static void check( boolean condition, String message ) {
+      if ( !condition ) {
+         throw new AssertionError( message );
+      }
+   }
+
+   /** Checks u = qv + r modulo m, or over the integers if m is null. */
+   private static void checkDivision( PolynomialZ u, PolynomialZ v, BigInteger m ) {
+      PolynomialZ[] qr = m == null ? u.divide( v ) : u.divideMod( v, m );
+      PolynomialZ sum = sparseProduct( qr[0], v ).plus( qr[1] );
+      check( normalize( sum, m ).equals( normalize( u, m ) ),
+         "u != qv + r for u = " + u + ", v = " + v + ", m = " + m );
+      PolynomialZ r = m == null ? u.mod( v ) : u.mod( v, m );
+      check( normalize( r, m ).equals( normalize( qr[1], m ) ),
+         "mod differs from the remainder for u = " + u + ", v = " + v + ", m = " + m );
+   }
+
+   public static void main( String[] args ) {
+      int cases = args.length > 0 ? Integer.parseInt( args[0] ) : 1000;
+      Random random = new Random( 42 );
+      BigInteger prime = BigInteger.valueOf( 10007 );
+
+      // (x^5 + 3x^-1) / (x^2 + 2x) = x^3 - 2x^2 + 4x - 8, remainder 16x + 3x^-1:
+      PolynomialZ u = polynomial( 5, 1, -1, 3 ), v = polynomial( 2, 1, 1, 2 );
+      PolynomialZ[] qr = u.divide( v );
+      check( normalize( qr[0], null ).equals( normalize( polynomial( 3, 1, 2, -2, 1, 4, 0, -8 ), null ) )
+         && normalize( qr[1], null ).equals( normalize( polynomial( 1, 16, -1, 3 ), null ) ),
+         "(x^5 + 3x^-1) / (x^2 + 2x) = " + qr[0] + ", remainder " + qr[1] );
+      checkDivision( u, v, null );
+      checkDivision( u, v, prime );
+
+      for ( int i = 0; i < cases; i++ ) {
+         int low = i % 2 == 0 ? 0 : -random.nextInt( 5 ) - 1;
+         PolynomialZ p = random( low, 8 + random.nextInt( 60 ), random );
+         // the long division does not support negative exponents of the divisor:
+         PolynomialZ d = random( 0, 1 + random.nextInt( 30 ), random );
+         checkDivision( p, d, null );
+         checkDivision( p, d, prime );
+      }
+      // a leading coefficient not prime to m leaves the remainder to the long division:
+      BigInteger m = BigInteger.valueOf( 15 );
+      for ( int i = 0; i < cases / 10; i++ ) {
+         PolynomialZ p = random( 0, 8 + random.nextInt( 30 ), random );
+         PolynomialZ d = random( 0, 1 + random.nextInt( 8 ), random );
+         d.put( d.getDegree(), BigInteger.valueOf( 3 ) );
+         for ( BigInteger c : p.mod( d, m ).values() ) {
+            check( c.signum() > 0 && c.compareTo( m ) < 0,
+               "coefficient " + c + " of " + p + " mod (" + d + ", " + m + ") is not reduced" );
+         }
+      }
+      System.out.println( cases + " random divisions checked" );
+   }
+}
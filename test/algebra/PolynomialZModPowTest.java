@@ -0,0 +1,118 @@
+/*
+ * PolynomialZModPowTest.java
+ *
+ * Copyright (C) 2026 agent
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see http://www.gnu.org/licenses
+ * or write to the Free Software Foundation,Inc., 51 Franklin Street,
+ * Fifth Floor, Boston, MA 02110-1301  USA
+ */
+package algebra;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * Tests {@link PolynomialZ#modPow(BigInteger, int, BigInteger)}, whose dense
+ * Montgomery path applies to odd moduli below 2<sup>63</sup> and polynomials
+ * without negative exponents. Random polynomials are raised to powers modulo
+ * (<i>x<sup>r</sup></i> - 1, <i>n</i>) and compared with the powers of their
+ * coefficient arrays by cyclic convolution, and the power of
+ * <i>x</i><sup>-1</sup> + 3<i>x</i> is compared with its known value.
+ * An {@link AssertionError} is thrown at the first deviation.
+ * <p>
+ * Usage: <code>java algebra.PolynomialZModPowTest [cases]</code>
+ * @author agent
+ * @version 1.0
+ */
+public class PolynomialZModPowTest {
+   private PolynomialZModPowTest() {
+   }
+
+   /** Returns the polynomial with the given exponents and coefficients. */
+   static PolynomialZ polynomial( long... terms ) {
+      PolynomialZ p = new PolynomialZ();
+      for ( int i = 0; i < terms.length; i += 2 ) {
+         p.put( BigInteger.valueOf( terms[i] ), BigInteger.valueOf( terms[i + 1] ) );
+      }
+      return p;
+   }
+
+   /** Returns the cyclic convolution of a and b modulo n. */
+   private static BigInteger[] multiply( BigInteger[] a, BigInteger[] b, BigInteger n ) {
+      int r = a.length;
+      BigInteger[] c = new BigInteger[r];
+      for ( int k = 0; k < r; k++ ) {
+         BigInteger sum = BigInteger.ZERO;
+         for ( int i = 0; i < r; i++ ) {
+            sum = sum.add( a[i].multiply( b[( k - i + r ) % r] ) );
+         }
+         c[k] = sum.mod( n );
+      }
+      return c;
+   }
+
+   /** Returns the polynomial with the coefficients c, omitting zeros. */
+   private static PolynomialZ toPolynomial( BigInteger[] c ) {
+      PolynomialZ p = new PolynomialZ();
+      for ( int k = 0; k < c.length; k++ ) {
+         if ( c[k].signum() != 0 ) {
+            p.put( BigInteger.valueOf( k ), c[k] );
+         }
+      }
+      return p;
+   }
+
+   public static void main( String[] args ) {
+      int cases = args.length > 0 ? Integer.parseInt( args[0] ) : 200;
+      Random random = new Random( 42 );
+
+      // negative exponents are left to the sparse algorithm:
+      PolynomialZ p = polynomial( -1, 1, 1, 3 );
+      PolynomialZ expected = polynomial( 6, 90, 5, 41, 4, 15, 3, 1, 2, 1, 1, 68 );
+      PolynomialZ power = p.modPow( BigInteger.valueOf( 5 ), 7, BigInteger.valueOf( 101 ) );
+      if ( !power.equals( expected ) ) {
+         throw new AssertionError( "(x^-1 + 3x)^5 mod (x^7 - 1, 101) = " + power );
+      }
+
+      for ( int i = 0; i < cases; i++ ) {
+         int r = 1 + random.nextInt( 40 );
+         BigInteger n = new BigInteger( 2 + random.nextInt( 61 ), random ).setBit( 0 ).setBit( 1 );
+         BigInteger e = new BigInteger( 1 + random.nextInt( 40 ), random ).add( BigInteger.ONE );
+         BigInteger[] a = new BigInteger[r];
+         PolynomialZ s = new PolynomialZ();
+         for ( int k = 0; k < r; k++ ) {
+            a[k] = random.nextInt( 3 ) == 0 ? BigInteger.ZERO : new BigInteger( 64, random ).mod( n );
+            if ( a[k].signum() != 0 ) {
+               s.put( BigInteger.valueOf( k ), a[k] );
+            }
+         }
+         BigInteger[] c = new BigInteger[r];
+         java.util.Arrays.fill( c, BigInteger.ZERO );
+         c[0] = BigInteger.ONE.mod( n );
+         for ( int b = e.bitLength() - 1; b >= 0; b-- ) {
+            c = multiply( c, c, n );
+            if ( e.testBit( b ) ) {
+               c = multiply( c, a, n );
+            }
+         }
+         power = s.modPow( e, r, n );
+         if ( !power.equals( toPolynomial( c ) ) ) {
+            throw new AssertionError( "s^" + e + " mod (x^" + r + " - 1, " + n + ") = " + power
+               + " for s = " + s + ", expected " + toPolynomial( c ) );
+         }
+      }
+      System.out.println( cases + " random powers checked" );
+   }
+}